@@ -0,0 +1,431 @@
+package utils;
+
+import io.restassured.authentication.PreemptiveOAuth2HeaderScheme;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.internal.log.LogRepository;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A RestAssured filter that records HTTP exchanges to an on-disk cassette and replays them later
+ * without the Book API running.
+ *
+ * <p>The mode is chosen with the {@code cassette.mode} system property ({@code record} or {@code
+ * replay}) and the cassette directory with {@code cassette.dir} (default {@value
+ * #DEFAULT_CASSETTE_DIR}). The filter must be the last one in the chain, so that the logging,
+ * metrics and Allure filters see replayed responses like real ones.
+ *
+ * <p>An exchange is keyed on method, path, sorted query parameters, auth role, a hash of the
+ * request body and an occurrence counter, so that repeated identical requests (e.g. a create
+ * followed by a duplicate create) replay their own responses in order. The cassette consists of:
+ *
+ * <ul>
+ *   <li>{@code cassette.dat}: append-only records of key, status, headers and body
+ *   <li>{@code cassette.idx}: a memory-mapped open-addressing hash table of 16-byte slots holding
+ *       the 64-bit key hash and the record offset, with linear probing
+ * </ul>
+ */
+public class CassetteFilter implements Filter, Closeable {
+
+  /** Cassette mode. */
+  public enum Mode {
+    RECORD,
+    REPLAY
+  }
+
+  /** Default cassette directory. */
+  public static final String DEFAULT_CASSETTE_DIR = "test-results/cassette";
+
+  /** Default roles whose tokens are mapped back to the role in the key. */
+  public static final String DEFAULT_ROLES = "user,admin";
+
+  private static final int MAGIC = 0x43535354;
+  private static final int HEADER_SIZE = 16;
+  private static final int SLOT_SIZE = 16;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final Logger logger = LogManager.getLogger(CassetteFilter.class);
+
+  private final Mode mode;
+  private final UnaryOperator<String> roleOfToken;
+  private final Map<String, Integer> occurrences = new HashMap<>();
+  private final FileChannel indexChannel;
+  private final FileChannel dataChannel;
+  private MappedByteBuffer index;
+  private MappedByteBuffer data;
+  private int capacity;
+  private int size;
+
+  /**
+   * Opens a cassette. Recording starts a new, empty cassette.
+   *
+   * @param directory the cassette directory
+   * @param mode the mode
+   * @param roleOfToken maps a bearer token to the auth role used in the key, which must not contain
+   *     the token itself since the key is written to the cassette
+   * @throws IOException if the cassette cannot be opened
+   */
+  public CassetteFilter(Path directory, Mode mode, UnaryOperator<String> roleOfToken)
+      throws IOException {
+    this.mode = mode;
+    this.roleOfToken = roleOfToken;
+    Path indexFile = directory.resolve("cassette.idx");
+    Path dataFile = directory.resolve("cassette.dat");
+    if (mode == Mode.RECORD) {
+      Files.createDirectories(directory);
+      indexChannel =
+          FileChannel.open(
+              indexFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      dataChannel =
+          FileChannel.open(
+              dataFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      mapIndex(INITIAL_CAPACITY);
+      index.putInt(0, MAGIC).putInt(4, 1).putInt(8, capacity).putInt(12, 0);
+    } else {
+      indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+      dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+      index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+      data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+      if (index.getInt(0) != MAGIC) {
+        throw new IOException("Not a cassette index: " + indexFile);
+      }
+      capacity = index.getInt(8);
+      size = index.getInt(12);
+    }
+    logger.info("Cassette {} with {} exchanges in {}", mode, size, directory.toAbsolutePath());
+  }
+
+  /**
+   * Creates the filter configured by the {@code cassette.mode} and {@code cassette.dir} system
+   * properties. Bearer tokens are keyed on the role of {@code cassette.roles} (default {@value
+   * #DEFAULT_ROLES}) whose {@link TokenProvider#forRole(String)} token they are, see {@link
+   * #roleOfToken(List)}.
+   *
+   * @return the filter, or null if no cassette mode is set
+   */
+  public static CassetteFilter fromSystemProperties() {
+    String mode = System.getProperty("cassette.mode", "");
+    if (mode.isBlank()) {
+      return null;
+    }
+    Path directory = Path.of(System.getProperty("cassette.dir", DEFAULT_CASSETTE_DIR));
+    try {
+      return new CassetteFilter(
+          directory,
+          Mode.valueOf(mode.trim().toUpperCase()),
+          roleOfToken(List.of(System.getProperty("cassette.roles", DEFAULT_ROLES).split(","))));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open cassette " + directory, e);
+    }
+  }
+
+  /**
+   * Maps a bearer token to the first of the given roles whose current {@link
+   * TokenProvider#forRole(String)} token it is, so that cassette keys stay the same when an OAuth2
+   * issuer hands out new tokens in every run, and no token is written to the cassette. Any other
+   * token, e.g. a deliberately invalid one, maps to {@code unknown-} and the first 8 bytes of its
+   * SHA-256 digest in hex.
+   *
+   * @param roles the roles, e.g. {@code user} and {@code admin}
+   * @return the mapping
+   */
+  public static UnaryOperator<String> roleOfToken(List<String> roles) {
+    List<String> known =
+        roles.stream().map(String::trim).filter(role -> !role.isEmpty()).toList();
+    return token -> {
+      for (String role : known) {
+        if (token.equals(TokenProvider.forRole(role).token())) {
+          return role;
+        }
+      }
+      return "unknown-"
+          + HexFormat.of().formatHex(sha256(token.getBytes(StandardCharsets.UTF_8)), 0, 8);
+    };
+  }
+
+  /**
+   * Records the exchange, or replays the recorded response without calling the API.
+   *
+   * @param requestSpec the request specification
+   * @param responseSpec the response specification
+   * @param filterContext the filter context
+   * @return the HTTP response
+   */
+  @Override
+  public Response filter(
+      FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec,
+      FilterContext filterContext) {
+    String key = nextKey(requestSpec);
+    if (mode == Mode.REPLAY) {
+      Response response = replay(key);
+      if (response == null) {
+        throw new IllegalStateException("No recorded response in cassette for " + key);
+      }
+      return response;
+    }
+    Response response = filterContext.next(requestSpec, responseSpec);
+    record(key, response);
+    return response;
+  }
+
+  /** Closes the cassette files. */
+  @Override
+  public synchronized void close() throws IOException {
+    indexChannel.close();
+    dataChannel.close();
+  }
+
+  /**
+   * Builds the key of a request, including how often the same request was made before.
+   *
+   * @param requestSpec the request specification
+   * @return the key
+   */
+  private synchronized String nextKey(FilterableRequestSpecification requestSpec) {
+    String token = null;
+    if (requestSpec.getAuthenticationScheme() instanceof PreemptiveOAuth2HeaderScheme oauth2) {
+      token = oauth2.getAccessToken();
+    } else if (requestSpec.getHeaders().hasHeaderWithName("Authorization")) {
+      token = requestSpec.getHeaders().getValue("Authorization").replaceFirst("^Bearer ", "");
+    }
+    Object body = requestSpec.getBody();
+    byte[] bodyBytes =
+        body instanceof byte[] bytes
+            ? bytes
+            : body == null ? new byte[0] : body.toString().getBytes(StandardCharsets.UTF_8);
+    String request =
+        requestSpec.getMethod()
+            + " "
+            + URI.create(requestSpec.getURI()).getRawPath()
+            + " "
+            + new TreeMap<>(requestSpec.getQueryParams())
+            + " role="
+            + (token == null ? "anonymous" : roleOfToken.apply(token))
+            + " body="
+            + HexFormat.of().formatHex(sha256(bodyBytes), 0, 8);
+    int occurrence = occurrences.merge(request, 1, Integer::sum);
+    return request + " #" + occurrence;
+  }
+
+  /**
+   * Appends an exchange to the data file and indexes it.
+   *
+   * @param key the exchange key
+   * @param response the response
+   */
+  private synchronized void record(String key, Response response) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    StringBuilder headerText = new StringBuilder();
+    for (Header header : response.getHeaders()) {
+      headerText.append(header.getName()).append(": ").append(header.getValue()).append('\n');
+    }
+    byte[] headerBytes = headerText.toString().getBytes(StandardCharsets.UTF_8);
+    byte[] body = response.asByteArray();
+    ByteBuffer record =
+        ByteBuffer.allocate(16 + keyBytes.length + headerBytes.length + body.length)
+            .putInt(keyBytes.length)
+            .put(keyBytes)
+            .putInt(response.getStatusCode())
+            .putInt(headerBytes.length)
+            .put(headerBytes)
+            .putInt(body.length)
+            .put(body)
+            .flip();
+    try {
+      long offset = dataChannel.size();
+      while (record.hasRemaining()) {
+        dataChannel.write(record, offset + record.position());
+      }
+      if ((size + 1) * 2 > capacity) {
+        grow();
+      }
+      insert(hash(keyBytes), offset);
+      index.putInt(12, ++size);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to record exchange " + key, e);
+    }
+  }
+
+  /**
+   * Looks up and rebuilds a recorded response.
+   *
+   * @param key the exchange key
+   * @return the response, or null if the exchange was not recorded
+   */
+  private Response replay(String key) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(keyBytes);
+    for (int probe = 0; probe < capacity; probe++) {
+      int slot = HEADER_SIZE + (int) Math.floorMod(hash + probe, (long) capacity) * SLOT_SIZE;
+      long offsetPlusOne = index.getLong(slot + 8);
+      if (offsetPlusOne == 0) {
+        return null;
+      }
+      if (index.getLong(slot) == hash) {
+        ByteBuffer record = data.duplicate().position((int) (offsetPlusOne - 1));
+        byte[] recordedKey = new byte[record.getInt()];
+        record.get(recordedKey);
+        if (MessageDigest.isEqual(recordedKey, keyBytes)) {
+          return toResponse(record);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the status, headers and body of a record into a response.
+   *
+   * @param record the record, positioned after the key
+   * @return the response
+   */
+  private Response toResponse(ByteBuffer record) {
+    int status = record.getInt();
+    byte[] headerBytes = new byte[record.getInt()];
+    record.get(headerBytes);
+    byte[] body = new byte[record.getInt()];
+    record.get(body);
+    List<Header> headers = new ArrayList<>();
+    String contentType = null;
+    for (String line : new String(headerBytes, StandardCharsets.UTF_8).split("\n")) {
+      int split = line.indexOf(": ");
+      if (split > 0) {
+        Header header = new Header(line.substring(0, split), line.substring(split + 2));
+        headers.add(header);
+        if (header.getName().equalsIgnoreCase("Content-Type")) {
+          contentType = header.getValue();
+        }
+      }
+    }
+    ResponseBuilder builder =
+        new ResponseBuilder()
+            .setStatusCode(status)
+            .setStatusLine("HTTP/1.1 " + status)
+            .setHeaders(new Headers(headers))
+            .setBody(body);
+    if (contentType != null) {
+      builder.setContentType(contentType);
+    }
+    Response response = builder.build();
+    // RestAssured only gives the responses it receives itself the log repository that
+    // then().log() writes to, so a replayed response needs its own
+    ((RestAssuredResponseOptionsImpl<?>) response).setLogRepository(new LogRepository());
+    return response;
+  }
+
+  /**
+   * Inserts a record offset into the first free slot of its probe sequence.
+   *
+   * @param hash the key hash
+   * @param offset the record offset in the data file
+   */
+  private void insert(long hash, long offset) {
+    int slot = HEADER_SIZE + (int) Math.floorMod(hash, (long) capacity) * SLOT_SIZE;
+    while (index.getLong(slot + 8) != 0) {
+      slot += SLOT_SIZE;
+      if (slot >= HEADER_SIZE + capacity * SLOT_SIZE) {
+        slot = HEADER_SIZE;
+      }
+    }
+    index.putLong(slot, hash).putLong(slot + 8, offset + 1);
+  }
+
+  /**
+   * Doubles the index capacity and rehashes all slots.
+   *
+   * @throws IOException if the index cannot be remapped
+   */
+  private void grow() throws IOException {
+    long[] hashes = new long[size];
+    long[] offsets = new long[size];
+    int count = 0;
+    for (int i = 0; i < capacity; i++) {
+      int slot = HEADER_SIZE + i * SLOT_SIZE;
+      if (index.getLong(slot + 8) != 0) {
+        hashes[count] = index.getLong(slot);
+        offsets[count++] = index.getLong(slot + 8) - 1;
+      }
+    }
+    mapIndex(capacity * 2);
+    for (int i = 0; i < capacity; i++) {
+      index.putLong(HEADER_SIZE + i * SLOT_SIZE, 0).putLong(HEADER_SIZE + i * SLOT_SIZE + 8, 0);
+    }
+    index.putInt(8, capacity);
+    for (int i = 0; i < count; i++) {
+      insert(hashes[i], offsets[i]);
+    }
+  }
+
+  /**
+   * Maps the index file with the given capacity.
+   *
+   * @param newCapacity the number of slots
+   * @throws IOException if the file cannot be mapped
+   */
+  private void mapIndex(int newCapacity) throws IOException {
+    capacity = newCapacity;
+    index =
+        indexChannel.map(
+            FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+  }
+
+  /**
+   * Returns the 64-bit hash of a key.
+   *
+   * @param keyBytes the key
+   * @return the first 8 bytes of the SHA-256 digest
+   */
+  private static long hash(byte[] keyBytes) {
+    return ByteBuffer.wrap(sha256(keyBytes)).getLong();
+  }
+
+  /**
+   * Computes a SHA-256 digest.
+   *
+   * @param bytes the input
+   * @return the digest
+   */
+  private static byte[] sha256(byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Token provider that obtains tokens from an OAuth2 token endpoint with the client credentials
+ * grant, caches them and refreshes them in the background before they expire.
+ *
+ * <p>The first call to {@link #token()} requests a token; every later call returns the cached token
+ * from a volatile read. When 80% of the token's lifetime ({@code expires_in}, one hour if absent)
+ * has passed, a shared background thread requests a new one while the current token stays in use,
+ * so requests never wait for the issuer. A failed refresh is retried every 5 seconds until the
+ * token expires; only then does a caller request a token itself, and fail if the issuer does.
+ */
+public class ClientCredentialsTokenProvider implements TokenProvider, AutoCloseable {
+
+  private static final double REFRESH_AFTER_LIFETIME_FRACTION = 0.8;
+  private static final long DEFAULT_LIFETIME_SECONDS = 3600;
+  private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Logger logger = LogManager.getLogger(ClientCredentialsTokenProvider.class);
+  private static final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+  private static final ScheduledExecutorService refresher =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("token-refresh").daemon().factory());
+
+  /**
+   * An issued token.
+   *
+   * @param value the access token
+   * @param expiresAtNanos the {@link System#nanoTime()} at which the token expires
+   */
+  private record Token(String value, long expiresAtNanos) {
+
+    boolean isValid() {
+      return System.nanoTime() - expiresAtNanos < 0;
+    }
+  }
+
+  private final URI tokenUrl;
+  private final String clientId;
+  private final String authorization;
+  private final AtomicLong requests = new AtomicLong();
+  private volatile Token current;
+
+  /**
+   * Guards token requests, the scheduled refresh and the closed flag. A lock rather than a monitor,
+   * so that virtual threads waiting for a token do not pin their carrier while it is requested.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private ScheduledFuture<?> refresh;
+  private boolean closed;
+
+  /**
+   * Creates a provider. No token is requested until {@link #token()} is called.
+   *
+   * @param tokenUrl the token endpoint
+   * @param clientId the client ID
+   * @param clientSecret the client secret
+   */
+  public ClientCredentialsTokenProvider(URI tokenUrl, String clientId, String clientSecret) {
+    this.tokenUrl = tokenUrl;
+    this.clientId = clientId;
+    String credentials =
+        URLEncoder.encode(clientId, StandardCharsets.UTF_8)
+            + ":"
+            + URLEncoder.encode(clientSecret, StandardCharsets.UTF_8);
+    this.authorization =
+        "Basic "
+            + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the cached token, requesting one if there is no valid token yet.
+   *
+   * @return the access token
+   * @throws IllegalStateException if a token is needed and the issuer does not return one
+   */
+  @Override
+  public String token() {
+    Token token = current;
+    if (token != null && token.isValid()) {
+      return token.value();
+    }
+    lock.lock();
+    try {
+      token = current;
+      return token != null && token.isValid() ? token.value() : request().value();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of token requests sent so far, including failed ones.
+   *
+   * @return the number of requests
+   */
+  public long requests() {
+    return requests.get();
+  }
+
+  /** Stops the background refresh. The cached token is still returned until it expires. */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      if (refresh != null) {
+        refresh.cancel(false);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Requests a token, caches it and schedules its refresh.
+   *
+   * @return the new token
+   */
+  private Token request() {
+    lock.lock();
+    try {
+      return send();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sends a token request while holding the lock.
+   *
+   * @return the new token
+   */
+  private Token send() {
+    requests.incrementAndGet();
+    long start = System.nanoTime();
+    HttpRequest request =
+        HttpRequest.newBuilder(tokenUrl)
+            .timeout(TIMEOUT)
+            .header("Authorization", authorization)
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .header("Accept", "application/json")
+            .POST(BodyPublishers.ofString("grant_type=client_credentials"))
+            .build();
+    HttpResponse<String> response;
+    try {
+      response = client.send(request, BodyHandlers.ofString());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Token request to " + tokenUrl + " failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while requesting a token", e);
+    }
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException(
+          "Token endpoint "
+              + tokenUrl
+              + " returned "
+              + response.statusCode()
+              + " for client "
+              + clientId);
+    }
+    JsonNode body;
+    try {
+      body = objectMapper.readTree(response.body());
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Invalid token response from " + tokenUrl, e);
+    }
+    String value = body.path("access_token").asText("");
+    if (value.isEmpty()) {
+      throw new IllegalStateException("No access_token in the response from " + tokenUrl);
+    }
+    long lifetimeSeconds = body.path("expires_in").asLong(DEFAULT_LIFETIME_SECONDS);
+    long lifetimeNanos = TimeUnit.SECONDS.toNanos(lifetimeSeconds);
+    Token token = new Token(value, start + lifetimeNanos);
+    current = token;
+    schedule((long) (lifetimeNanos * REFRESH_AFTER_LIFETIME_FRACTION));
+    logger.info("Obtained a token for client {} valid for {} s", clientId, lifetimeSeconds);
+    return token;
+  }
+
+  /** Refreshes the token on the background thread, retrying until the current token expires. */
+  private void refresh() {
+    try {
+      request();
+    } catch (RuntimeException e) {
+      long remaining = current.expiresAtNanos() - System.nanoTime();
+      logger.warn(
+          "Refreshing the token of client {} failed, {} ms before it expires",
+          clientId,
+          TimeUnit.NANOSECONDS.toMillis(remaining),
+          e);
+      if (remaining > 0) {
+        schedule(Math.min(RETRY_DELAY_NANOS, remaining));
+      }
+    }
+  }
+
+  private void schedule(long delayNanos) {
+    lock.lock();
+    try {
+      if (refresh != null) {
+        refresh.cancel(false);
+      }
+      if (!closed) {
+        refresh = refresher.schedule(this::refresh, delayNanos, TimeUnit.NANOSECONDS);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Manages the JDK Flight Recorder recording of a test run.
+ *
+ * <p>When the {@code jfr.recording} system property is set to a file path, {@link #start()} begins
+ * a recording with the JDK {@code profile} settings plus the harness events ({@link
+ * HttpExchangeEvent} and the TestNG test method events). {@link #stopAndSummarize()} writes the
+ * {@code .jfr} file, which can be opened in JDK Mission Control, and returns a compact summary for
+ * the results report.
+ */
+public class FlightRecording {
+
+  /** System property holding the path of the {@code .jfr} file to write. */
+  public static final String RECORDING_PROPERTY = "jfr.recording";
+
+  private static final String TEST_METHOD_EVENT = "bookapi.TestMethod";
+  private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+
+  private static Recording recording;
+  private static Path destination;
+
+  /** Starts the recording if {@value #RECORDING_PROPERTY} is set and none is running yet. */
+  public static synchronized void start() {
+    String path = System.getProperty(RECORDING_PROPERTY);
+    if (path == null || path.isBlank() || recording != null) {
+      return;
+    }
+    try {
+      destination = Path.of(path.trim()).toAbsolutePath();
+      recording = new Recording(Configuration.getConfiguration("profile"));
+      recording.setName("book-api-test-run");
+      recording.enable(HttpExchangeEvent.NAME);
+      recording.enable(TEST_METHOD_EVENT);
+      recording.start();
+      logger.info("Flight recording started, writing to {}", destination);
+    } catch (IOException | ParseException e) {
+      logger.error("Failed to start flight recording", e);
+      recording = null;
+    }
+  }
+
+  /**
+   * Stops the recording, writes it to disk and summarizes it.
+   *
+   * @return the recording summary, or null if no recording was running
+   */
+  public static synchronized Map<String, Object> stopAndSummarize() {
+    if (recording == null) {
+      return null;
+    }
+    try {
+      Path parent = destination.getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      recording.stop();
+      recording.dump(destination);
+      logger.info("Flight recording written to {}", destination);
+      return summarize(destination);
+    } catch (IOException e) {
+      logger.error("Failed to write flight recording", e);
+      return null;
+    } finally {
+      recording.close();
+      recording = null;
+    }
+  }
+
+  /**
+   * Summarizes a recording file: HTTP exchanges per endpoint, test method durations, garbage
+   * collection pauses, sampled allocation and CPU load.
+   *
+   * @param file the {@code .jfr} file
+   * @return the summary
+   * @throws IOException if the file cannot be read
+   */
+  public static Map<String, Object> summarize(Path file) throws IOException {
+    Map<String, EndpointStats> endpoints = new TreeMap<>();
+    Map<String, Double> testDurationsInMs = new TreeMap<>();
+    long gcCount = 0;
+    Duration gcPause = Duration.ZERO;
+    Duration longestGcPause = Duration.ZERO;
+    long allocationSampleBytes = 0;
+    double cpuLoadSum = 0;
+    double cpuLoadMax = 0;
+    long cpuLoadSamples = 0;
+
+    for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      switch (event.getEventType().getName()) {
+        case HttpExchangeEvent.NAME -> {
+          String endpoint = event.getString("method") + " " + event.getString("pathTemplate");
+          endpoints
+              .computeIfAbsent(endpoint, key -> new EndpointStats())
+              .add(
+                  event.getDuration(),
+                  event.getLong("requestBytes"),
+                  event.getLong("responseBytes"));
+        }
+        case TEST_METHOD_EVENT ->
+            testDurationsInMs.merge(
+                event.getString("testName"), toMillis(event.getDuration()), Double::sum);
+        case "jdk.GarbageCollection" -> {
+          gcCount++;
+          Duration pause = event.getDuration("sumOfPauses");
+          gcPause = gcPause.plus(pause);
+          longestGcPause = pause.compareTo(longestGcPause) > 0 ? pause : longestGcPause;
+        }
+        case "jdk.ObjectAllocationSample" -> allocationSampleBytes += event.getLong("weight");
+        case "jdk.CPULoad" -> {
+          double load = event.getDouble("jvmUser") + event.getDouble("jvmSystem");
+          cpuLoadSum += load;
+          cpuLoadMax = Math.max(cpuLoadMax, load);
+          cpuLoadSamples++;
+        }
+        default -> {}
+      }
+    }
+
+    Map<String, Object> http = new TreeMap<>();
+    endpoints.forEach((endpoint, stats) -> http.put(endpoint, stats.toMap()));
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("recordingFile", file.toString());
+    summary.put("httpExchanges", http);
+    summary.put("testMethodDurationsInMs", testDurationsInMs);
+    summary.put(
+        "garbageCollection",
+        Map.of(
+            "count", gcCount,
+            "totalPauseInMs", toMillis(gcPause),
+            "longestPauseInMs", toMillis(longestGcPause)));
+    summary.put("sampledAllocationInBytes", allocationSampleBytes);
+    summary.put(
+        "jvmCpuLoad",
+        Map.of(
+            "average", cpuLoadSamples == 0 ? 0 : cpuLoadSum / cpuLoadSamples, "max", cpuLoadMax));
+    return summary;
+  }
+
+  /**
+   * Converts a duration to fractional milliseconds.
+   *
+   * @param duration the duration
+   * @return the duration in milliseconds
+   */
+  private static double toMillis(Duration duration) {
+    return duration.toNanos() / 1_000_000.0;
+  }
+
+  /** Aggregated statistics of the HTTP exchanges of one endpoint. */
+  private static class EndpointStats {
+    private long count;
+    private Duration total = Duration.ZERO;
+    private Duration max = Duration.ZERO;
+    private long requestBytes;
+    private long responseBytes;
+
+    private void add(Duration duration, long requestSize, long responseSize) {
+      count++;
+      total = total.plus(duration);
+      max = duration.compareTo(max) > 0 ? duration : max;
+      requestBytes += requestSize;
+      responseBytes += responseSize;
+    }
+
+    private Map<String, Object> toMap() {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("count", count);
+      map.put("meanInMs", toMillis(total) / count);
+      map.put("maxInMs", toMillis(max));
+      map.put("requestBytes", requestBytes);
+      map.put("responseBytes", responseBytes);
+      return map;
+    }
+  }
+}
@@ -0,0 +1,364 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Live counters, gauges and latency histograms for the test harness.
+ *
+ * <p>{@link HarnessMetricsFilter}, the retry helpers and the TestNG listeners record into the
+ * shared {@link #get() instance} while the run is in progress. The metrics are published over JMX
+ * under {@value #OBJECT_NAME} and, when the {@code metrics.port} system property is set, as
+ * OpenMetrics text on {@code http://localhost:<port>/metrics}.
+ */
+public class HarnessMetrics implements HarnessMetricsMXBean {
+
+  /** JMX object name the metrics are registered under. */
+  public static final String OBJECT_NAME = "book.api.harness:type=HarnessMetrics";
+
+  /** System property holding the port of the OpenMetrics endpoint. */
+  public static final String PORT_PROPERTY = "metrics.port";
+
+  private static final String CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  /**
+   * Histogram bucket bounds exported to OpenMetrics, as powers of two in microseconds. Each bound is
+   * exported one microsecond lower, where a histogram bucket ends, so that its inclusive {@code le}
+   * count is exact.
+   */
+  private static final int MIN_EXPORTED_EXPONENT = 7;
+
+  private static final int MAX_EXPORTED_EXPONENT = 24;
+
+  private static final Logger logger = LogManager.getLogger(HarnessMetrics.class);
+  private static final HarnessMetrics INSTANCE = new HarnessMetrics();
+
+  private final Map<String, LongAdder> requestsByEndpointAndStatus = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> latencyByEndpoint = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> retriesBySource = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> testsByOutcome = new ConcurrentHashMap<>();
+  private volatile LatencyHistogram overallLatency = new LatencyHistogram();
+  private final LongAdder tooManyRequests = new LongAdder();
+  private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+  private HttpServer server;
+  private boolean mbeanRegistered;
+
+  /**
+   * Returns the shared metrics instance.
+   *
+   * @return the harness metrics
+   */
+  public static HarnessMetrics get() {
+    return INSTANCE;
+  }
+
+  /** Marks the start of an HTTP request. */
+  public void requestStarted() {
+    inFlightRequests.incrementAndGet();
+  }
+
+  /**
+   * Marks the end of an HTTP request and records its outcome and latency.
+   *
+   * @param endpoint the endpoint as {@code "<METHOD> <path template>"}
+   * @param status the HTTP status code, or {@code "error"} when no response was received
+   * @param durationNanos the request duration in nanoseconds
+   */
+  public void requestCompleted(String endpoint, String status, long durationNanos) {
+    inFlightRequests.decrementAndGet();
+    requestsByEndpointAndStatus
+        .computeIfAbsent(endpoint + " " + status, key -> new LongAdder())
+        .increment();
+    latencyByEndpoint
+        .computeIfAbsent(endpoint, key -> new LatencyHistogram())
+        .recordNanos(durationNanos);
+    overallLatency.recordNanos(durationNanos);
+    if ("429".equals(status)) {
+      tooManyRequests.increment();
+    }
+  }
+
+  /**
+   * Records a retry performed by the harness.
+   *
+   * @param source the component that retried, e.g. {@code "RetryAnalyzer"}
+   */
+  public void retried(String source) {
+    retriesBySource.computeIfAbsent(source, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Records the outcome of a test method.
+   *
+   * @param outcome the outcome, e.g. {@code "passed"}
+   */
+  public void testFinished(String outcome) {
+    testsByOutcome.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Clears all recorded requests, retries and test outcomes, e.g. between runs of a long-lived JVM.
+   * Scrapers see this as a counter reset, like a process restart. In-flight requests are kept.
+   */
+  public void reset() {
+    requestsByEndpointAndStatus.clear();
+    latencyByEndpoint.clear();
+    retriesBySource.clear();
+    testsByOutcome.clear();
+    overallLatency = new LatencyHistogram();
+    tooManyRequests.reset();
+  }
+
+  /**
+   * Returns a snapshot of the latency histograms keyed by endpoint.
+   *
+   * @return the latency histograms
+   */
+  public Map<String, LatencyHistogram> latencyByEndpoint() {
+    return new TreeMap<>(latencyByEndpoint);
+  }
+
+  @Override
+  public int getInFlightRequests() {
+    return inFlightRequests.get();
+  }
+
+  @Override
+  public long getTotalRequests() {
+    return overallLatency.count();
+  }
+
+  @Override
+  public long getTooManyRequests() {
+    return tooManyRequests.sum();
+  }
+
+  @Override
+  public long getRetries() {
+    return retriesBySource.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  @Override
+  public Map<String, Long> getRequestsByEndpointAndStatus() {
+    return snapshot(requestsByEndpointAndStatus);
+  }
+
+  @Override
+  public Map<String, Long> getTestsByOutcome() {
+    return snapshot(testsByOutcome);
+  }
+
+  @Override
+  public double getLatencyP50Millis() {
+    return overallLatency.percentileMillis(50);
+  }
+
+  @Override
+  public double getLatencyP95Millis() {
+    return overallLatency.percentileMillis(95);
+  }
+
+  @Override
+  public double getLatencyP99Millis() {
+    return overallLatency.percentileMillis(99);
+  }
+
+  /**
+   * Registers the JMX bean and, when {@value #PORT_PROPERTY} is set, starts the OpenMetrics
+   * endpoint. Calling it more than once has no further effect.
+   */
+  public static void startExporters() {
+    INSTANCE.registerMBean();
+    String port = System.getProperty(PORT_PROPERTY);
+    if (port != null && !port.isBlank()) {
+      INSTANCE.startServer(Integer.parseInt(port.trim()));
+    }
+  }
+
+  /** Stops the OpenMetrics endpoint if it is running. */
+  public static synchronized void stopExporters() {
+    if (INSTANCE.server != null) {
+      INSTANCE.server.stop(0);
+      INSTANCE.server = null;
+    }
+  }
+
+  /**
+   * Renders all metrics in the OpenMetrics text exposition format.
+   *
+   * @return the OpenMetrics text
+   */
+  public String toOpenMetrics() {
+    StringBuilder out = new StringBuilder(4096);
+
+    out.append("# TYPE bookapi_http_requests counter\n");
+    out.append("# HELP bookapi_http_requests Completed HTTP requests by endpoint and status.\n");
+    getRequestsByEndpointAndStatus()
+        .forEach(
+            (key, count) -> {
+              int split = key.lastIndexOf(' ');
+              out.append("bookapi_http_requests_total{endpoint=\"")
+                  .append(escape(key.substring(0, split)))
+                  .append("\",status=\"")
+                  .append(escape(key.substring(split + 1)))
+                  .append("\"} ")
+                  .append(count)
+                  .append('\n');
+            });
+
+    out.append("# TYPE bookapi_http_too_many_requests counter\n");
+    out.append("bookapi_http_too_many_requests_total ").append(getTooManyRequests()).append('\n');
+
+    out.append("# TYPE bookapi_http_in_flight gauge\n");
+    out.append("bookapi_http_in_flight ").append(getInFlightRequests()).append('\n');
+
+    out.append("# TYPE bookapi_retries counter\n");
+    snapshot(retriesBySource)
+        .forEach(
+            (source, count) ->
+                out.append("bookapi_retries_total{source=\"")
+                    .append(escape(source))
+                    .append("\"} ")
+                    .append(count)
+                    .append('\n'));
+
+    out.append("# TYPE bookapi_tests counter\n");
+    getTestsByOutcome()
+        .forEach(
+            (outcome, count) ->
+                out.append("bookapi_tests_total{outcome=\"")
+                    .append(escape(outcome))
+                    .append("\"} ")
+                    .append(count)
+                    .append('\n'));
+
+    out.append("# TYPE bookapi_http_request_duration_seconds histogram\n");
+    out.append("# UNIT bookapi_http_request_duration_seconds seconds\n");
+    latencyByEndpoint()
+        .forEach(
+            (endpoint, histogram) -> {
+              String label = "endpoint=\"" + escape(endpoint) + "\"";
+              for (int exponent = MIN_EXPORTED_EXPONENT;
+                  exponent <= MAX_EXPORTED_EXPONENT;
+                  exponent++) {
+                long bound = (1L << exponent) - 1;
+                out.append("bookapi_http_request_duration_seconds_bucket{")
+                    .append(label)
+                    .append(",le=\"")
+                    .append(BigDecimal.valueOf(bound, 6).toPlainString())
+                    .append("\"} ")
+                    .append(histogram.countAtOrBelow(bound))
+                    .append('\n');
+              }
+              long count = histogram.count();
+              out.append("bookapi_http_request_duration_seconds_bucket{")
+                  .append(label)
+                  .append(",le=\"+Inf\"} ")
+                  .append(count)
+                  .append('\n');
+              out.append("bookapi_http_request_duration_seconds_count{")
+                  .append(label)
+                  .append("} ")
+                  .append(count)
+                  .append('\n');
+              out.append("bookapi_http_request_duration_seconds_sum{")
+                  .append(label)
+                  .append("} ")
+                  .append(BigDecimal.valueOf(histogram.sumMicros(), 6).toPlainString())
+                  .append('\n');
+            });
+
+    out.append("# EOF\n");
+    return out.toString();
+  }
+
+  /** Registers this instance with the platform MBean server. */
+  private synchronized void registerMBean() {
+    if (mbeanRegistered) {
+      return;
+    }
+    try {
+      MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!mbeanServer.isRegistered(name)) {
+        mbeanServer.registerMBean(this, name);
+      }
+      mbeanRegistered = true;
+      logger.info("Harness metrics registered over JMX as {}", OBJECT_NAME);
+    } catch (JMException e) {
+      logger.error("Failed to register harness metrics over JMX", e);
+    }
+  }
+
+  /**
+   * Starts the OpenMetrics endpoint on the loopback interface.
+   *
+   * @param port the port to listen on
+   */
+  private synchronized void startServer(int port) {
+    if (server != null) {
+      return;
+    }
+    try {
+      server =
+          HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext(
+          "/metrics",
+          exchange -> {
+            byte[] body = toOpenMetrics().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+              responseBody.write(body);
+            }
+          });
+      server.start();
+      logger.info(
+          "Harness metrics available at http://localhost:{}/metrics",
+          server.getAddress().getPort());
+    } catch (IOException e) {
+      logger.error("Failed to start the OpenMetrics endpoint on port {}", port, e);
+      server = null;
+    }
+  }
+
+  /**
+   * Copies a map of adders into a sorted map of their current sums.
+   *
+   * @param adders the adders to snapshot
+   * @return the sorted snapshot
+   */
+  private static Map<String, Long> snapshot(Map<String, LongAdder> adders) {
+    Map<String, Long> snapshot = new TreeMap<>();
+    adders.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+    return snapshot;
+  }
+
+  /**
+   * Escapes a label value for the OpenMetrics text format.
+   *
+   * @param value the raw label value
+   * @return the escaped value
+   */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
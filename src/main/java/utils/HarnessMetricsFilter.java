@@ -0,0 +1,109 @@
+package utils;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import java.nio.charset.StandardCharsets;
+import org.apache.logging.log4j.ThreadContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+/**
+ * A RestAssured filter that records every exchange in the {@link HarnessMetrics} and as a {@link
+ * HttpExchangeEvent}, and attaches the status code and {@code Retry-After} header of the response
+ * to the current TestNG result, where the {@code RetryAnalyzer} picks them up.
+ */
+public class HarnessMetricsFilter implements Filter {
+
+  /**
+   * Records the exchange and attaches the response status to the current test result.
+   *
+   * @param requestSpec the request specification
+   * @param responseSpec the response specification
+   * @param filterContext the filter context
+   * @return the HTTP response
+   */
+  @Override
+  public Response filter(
+      FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec,
+      FilterContext filterContext) {
+    HarnessMetrics metrics = HarnessMetrics.get();
+    String endpoint = getEndpoint(requestSpec);
+    String status = "error";
+    HttpExchangeEvent event = new HttpExchangeEvent();
+    event.begin();
+    long startNanos = System.nanoTime();
+    metrics.requestStarted();
+    Response response = null;
+    try {
+      response = filterContext.next(requestSpec, responseSpec);
+      status = String.valueOf(response.getStatusCode());
+    } finally {
+      metrics.requestCompleted(endpoint, status, System.nanoTime() - startNanos);
+      commitEvent(event, requestSpec, response);
+    }
+
+    TestContext context = TestContext.current();
+    ITestResult result =
+        context != null && context.testResult() != null
+            ? context.testResult()
+            : Reporter.getCurrentTestResult();
+    if (result != null) {
+      result.setAttribute("statusCode", response.getStatusCode());
+      String retryAfter = response.getHeader("Retry-After");
+      if (retryAfter != null) {
+        result.setAttribute("retryAfter", Integer.parseInt(retryAfter));
+      }
+    }
+
+    return response;
+  }
+
+  /**
+   * Completes and commits the flight recorder event of an exchange. Payload sizes are only
+   * computed when the event is actually being recorded.
+   *
+   * @param event the started event
+   * @param requestSpec the request specification
+   * @param response the response, or null if the request failed
+   */
+  private void commitEvent(
+      HttpExchangeEvent event, FilterableRequestSpecification requestSpec, Response response) {
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.method = requestSpec.getMethod();
+    event.pathTemplate = getEndpoint(requestSpec).substring(event.method.length() + 1);
+    TestContext context = TestContext.current();
+    event.testName = context != null ? context.testName() : ThreadContext.get("testName");
+    Object body = requestSpec.getBody();
+    if (body instanceof byte[] bytes) {
+      event.requestBytes = bytes.length;
+    } else if (body != null) {
+      event.requestBytes = body.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+    if (response != null) {
+      event.status = response.getStatusCode();
+      event.responseBytes = response.asByteArray().length;
+    }
+    event.commit();
+  }
+
+  /**
+   * Returns the endpoint of a request as method and path template, e.g. {@code GET
+   * /api/books/{bookId}}, so that metrics are not split by path parameter values.
+   *
+   * @param requestSpec the request specification
+   * @return the endpoint label
+   */
+  public static String getEndpoint(FilterableRequestSpecification requestSpec) {
+    String basePath = requestSpec.getBasePath() == null ? "" : requestSpec.getBasePath();
+    String path = requestSpec.getUserDefinedPath() == null ? "" : requestSpec.getUserDefinedPath();
+    String template = basePath + path;
+    return requestSpec.getMethod() + " " + (template.isEmpty() ? "/" : template);
+  }
+}
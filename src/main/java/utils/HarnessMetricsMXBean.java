@@ -0,0 +1,70 @@
+package utils;
+
+import java.util.Map;
+
+/** JMX view of the live harness metrics published by {@link HarnessMetrics}. */
+public interface HarnessMetricsMXBean {
+
+  /**
+   * Gets the number of HTTP requests currently in flight.
+   *
+   * @return the in-flight request count
+   */
+  int getInFlightRequests();
+
+  /**
+   * Gets the total number of completed HTTP requests.
+   *
+   * @return the request count
+   */
+  long getTotalRequests();
+
+  /**
+   * Gets the number of HTTP 429 (Too Many Requests) responses.
+   *
+   * @return the 429 count
+   */
+  long getTooManyRequests();
+
+  /**
+   * Gets the number of retries performed by the harness.
+   *
+   * @return the retry count
+   */
+  long getRetries();
+
+  /**
+   * Gets the completed request counts keyed by {@code "<endpoint> <status>"}.
+   *
+   * @return the request counts
+   */
+  Map<String, Long> getRequestsByEndpointAndStatus();
+
+  /**
+   * Gets the test method counts keyed by outcome.
+   *
+   * @return the test outcome counts
+   */
+  Map<String, Long> getTestsByOutcome();
+
+  /**
+   * Gets the 50th percentile latency across all endpoints.
+   *
+   * @return the p50 latency in milliseconds
+   */
+  double getLatencyP50Millis();
+
+  /**
+   * Gets the 95th percentile latency across all endpoints.
+   *
+   * @return the p95 latency in milliseconds
+   */
+  double getLatencyP95Millis();
+
+  /**
+   * Gets the 99th percentile latency across all endpoints.
+   *
+   * @return the p99 latency in milliseconds
+   */
+  double getLatencyP99Millis();
+}
@@ -0,0 +1,88 @@
+package utils;
+
+import io.qameta.allure.restassured.AllureRestAssured;
+import io.restassured.filter.Filter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Execution profile of the test harness, selected with {@code -Dharness.profile}, that decides how
+ * much reporting the filters and listeners do per request and per test.
+ *
+ * <ul>
+ *   <li>{@link #FULL} (default): request and response logging, Allure results with HTTP
+ *       attachments, metrics, per-test logging and resource usage
+ *   <li>{@link #LEAN}: metrics, status code attributes for the retry analyzer and per-test
+ *       resource usage only, for load and soak runs
+ *   <li>{@link #BARE}: no reporting at all, to measure the API and the transport alone; the retry
+ *       analyzer does not see 429 responses
+ * </ul>
+ *
+ * <p>The results report is written in every profile.
+ */
+public enum HarnessProfile {
+  FULL,
+  LEAN,
+  BARE;
+
+  /** System property selecting the profile. */
+  public static final String PROPERTY = "harness.profile";
+
+  /**
+   * Returns the profile selected with {@value #PROPERTY}.
+   *
+   * @return the current profile
+   * @throws IllegalArgumentException if the property names no profile
+   */
+  public static HarnessProfile current() {
+    return valueOf(System.getProperty(PROPERTY, "full").trim().toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns whether requests, responses and test events are logged.
+   *
+   * @return true for {@link #FULL}
+   */
+  public boolean logs() {
+    return this == FULL;
+  }
+
+  /**
+   * Returns whether Allure results are written.
+   *
+   * @return true for {@link #FULL}
+   */
+  public boolean writesAllureResults() {
+    return this == FULL;
+  }
+
+  /**
+   * Returns whether metrics, flight recorder events and resource usage are recorded.
+   *
+   * @return false for {@link #BARE}
+   */
+  public boolean recordsMetrics() {
+    return this != BARE;
+  }
+
+  /**
+   * Creates the reporting filters of this profile, in the order they are installed. Filters that
+   * the tests depend on, such as the book catalog, are not part of the profile.
+   *
+   * @return the filters, empty for {@link #BARE}
+   */
+  public List<Filter> filters() {
+    List<Filter> filters = new ArrayList<>();
+    if (logs()) {
+      filters.add(new RestAssuredLogFilter());
+    }
+    if (writesAllureResults()) {
+      filters.add(new AllureRestAssured());
+    }
+    if (recordsMetrics()) {
+      filters.add(new HarnessMetricsFilter());
+    }
+    return filters;
+  }
+}
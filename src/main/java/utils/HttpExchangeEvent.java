@@ -0,0 +1,52 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a single HTTP exchange made through {@link HarnessMetricsFilter}.
+ *
+ * <p>The event duration covers the rest of the filter chain, i.e. the time spent waiting for the
+ * Book API plus the filters installed after the metrics filter.
+ */
+@Name(HttpExchangeEvent.NAME)
+@Label("HTTP Exchange")
+@Category({"Book API", "HTTP"})
+@Description("HTTP request sent by the test harness and its response")
+@StackTrace(false)
+public class HttpExchangeEvent extends Event {
+
+  /** Event type name used in recordings. */
+  public static final String NAME = "bookapi.HttpExchange";
+
+  /** HTTP method of the request. */
+  @Label("Method")
+  public String method;
+
+  /** Path template of the request, e.g. {@code /api/books/{bookId}}. */
+  @Label("Path Template")
+  public String pathTemplate;
+
+  /** HTTP status code of the response, or -1 when no response was received. */
+  @Label("Status")
+  public int status = -1;
+
+  /** Size of the request body. */
+  @Label("Request Size")
+  @DataAmount
+  public long requestBytes;
+
+  /** Size of the response body. */
+  @Label("Response Size")
+  @DataAmount
+  public long responseBytes;
+
+  /** Name of the test the request belongs to. */
+  @Label("Test Name")
+  public String testName;
+}
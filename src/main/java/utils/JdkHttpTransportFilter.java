@@ -0,0 +1,173 @@
+package utils;
+
+import io.restassured.authentication.PreemptiveOAuth2HeaderScheme;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.internal.log.LogRepository;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+/**
+ * A RestAssured filter that sends requests with the JDK {@link HttpClient} instead of RestAssured's
+ * Apache HttpClient transport.
+ *
+ * <p>The client keeps connections alive and runs its work on virtual threads. It is enabled with
+ * {@code -Dhttp.transport=jdk} and must be the last filter in the chain, since it does not call the
+ * next filter; the logging, metrics and Allure filters and all response verification work
+ * unchanged. The HTTP version is chosen with {@code http.version} ({@code HTTP_1_1} by default, or
+ * {@code HTTP_2}). HTTP/2 is only negotiated over {@code https://}, or over {@code http://} with a
+ * server that accepts the h2c upgrade; otherwise, e.g. with the Node.js app or the {@code
+ * BookApiStub}, the client falls back to HTTP/1.1. The status line of each response holds the
+ * version actually used.
+ */
+public class JdkHttpTransportFilter implements Filter {
+
+  /** Headers managed by {@link HttpClient} itself, which it refuses to accept from callers. */
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final HttpClient client;
+
+  /**
+   * Creates a transport with its own HTTP client.
+   *
+   * @param version the preferred HTTP version
+   */
+  public JdkHttpTransportFilter(HttpClient.Version version) {
+    this.client =
+        HttpClient.newBuilder()
+            .version(version)
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+  }
+
+  /**
+   * Creates the transport selected by the {@code http.transport} system property.
+   *
+   * @return the transport, or null when the default RestAssured transport is used
+   */
+  public static JdkHttpTransportFilter fromSystemProperties() {
+    if (!"jdk".equalsIgnoreCase(System.getProperty("http.transport", "").trim())) {
+      return null;
+    }
+    return new JdkHttpTransportFilter(
+        HttpClient.Version.valueOf(System.getProperty("http.version", "HTTP_1_1").trim()));
+  }
+
+  /**
+   * Sends the request with the JDK HTTP client.
+   *
+   * @param requestSpec the request specification
+   * @param responseSpec the response specification
+   * @param filterContext the filter context, not continued
+   * @return the HTTP response
+   */
+  @Override
+  public Response filter(
+      FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec,
+      FilterContext filterContext) {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(URI.create(requestSpec.getURI()))
+            .timeout(TIMEOUT)
+            .method(requestSpec.getMethod(), toBodyPublisher(requestSpec.getBody()));
+    for (Header header : requestSpec.getHeaders()) {
+      if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase())) {
+        request.header(header.getName(), header.getValue());
+      }
+    }
+    // A content type set with contentType(...) is not always among the headers
+    if (requestSpec.getContentType() != null
+        && !requestSpec.getHeaders().hasHeaderWithName("Content-Type")) {
+      request.header("Content-Type", requestSpec.getContentType());
+    }
+    if (requestSpec.getAuthenticationScheme() instanceof PreemptiveOAuth2HeaderScheme oauth2
+        && !requestSpec.getHeaders().hasHeaderWithName("Authorization")) {
+      request.header("Authorization", "Bearer " + oauth2.getAccessToken());
+    }
+
+    HttpResponse<byte[]> response;
+    try {
+      response = client.send(request.build(), BodyHandlers.ofByteArray());
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Request failed: " + requestSpec.getMethod() + " " + requestSpec.getURI(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the response", e);
+    }
+    return toResponse(response);
+  }
+
+  /**
+   * Converts a RestAssured request body to a body publisher.
+   *
+   * @param body the body, already serialized by RestAssured
+   * @return the body publisher
+   */
+  private static BodyPublisher toBodyPublisher(Object body) {
+    if (body == null) {
+      return BodyPublishers.noBody();
+    }
+    if (body instanceof byte[] bytes) {
+      return BodyPublishers.ofByteArray(bytes);
+    }
+    return BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Builds a RestAssured response from a JDK response.
+   *
+   * @param response the JDK response
+   * @return the RestAssured response
+   */
+  private static Response toResponse(HttpResponse<byte[]> response) {
+    List<Header> headers = new ArrayList<>();
+    response
+        .headers()
+        .map()
+        .forEach(
+            (name, values) -> {
+              if (!name.startsWith(":")) {
+                values.forEach(value -> headers.add(new Header(name, value)));
+              }
+            });
+    String protocol = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+    ResponseBuilder builder =
+        new ResponseBuilder()
+            .setStatusCode(response.statusCode())
+            .setStatusLine(protocol + " " + response.statusCode())
+            .setHeaders(new Headers(headers))
+            .setBody(response.body());
+    response.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+    Response built = builder.build();
+    // RestAssured only gives the responses it receives itself the log repository that
+    // then().log() writes to
+    ((RestAssuredResponseOptionsImpl<?>) built).setLogRepository(new LogRepository());
+    return built;
+  }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
 import org.apache.logging.log4j.LogManager;
@@ -66,6 +68,25 @@ public class JsonUtils {
     return Collections.emptyMap();
   }
 
+  /**
+   * Converts a JSON file from the file system to a Map.
+   *
+   * @param path the path of the JSON file
+   * @return a Map representation of the JSON, or an empty map if the file is missing or invalid
+   */
+  public static Map<String, Object> jsonFileToMap(Path path) {
+    if (!Files.isRegularFile(path)) {
+      logger.warn("File not found: {}", path);
+      return Collections.emptyMap();
+    }
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      return objectMapper.readValue(inputStream, new TypeReference<Map<String, Object>>() {});
+    } catch (IOException e) {
+      logger.error("Error occurred while reading JSON file {}", path, e);
+    }
+    return Collections.emptyMap();
+  }
+
   /**
    * Reads and converts a JSON file from the classpath to an object of the specified class.
    *
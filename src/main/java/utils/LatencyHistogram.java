@@ -0,0 +1,236 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ *
+ * <p>Values are recorded in microseconds. Every power-of-two range is split into 8 linear
+ * sub-buckets, which bounds the relative error of any reported percentile to 12.5% while keeping
+ * the whole histogram at a fixed 280 buckets (up to ~19 hours). Because the bucket layout is fixed,
+ * two histograms can be merged losslessly by adding their bucket counts.
+ */
+public class LatencyHistogram {
+
+  /** Number of bits used for the linear sub-buckets inside each power-of-two range. */
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** Largest exponent tracked; larger values are clamped into the last bucket. */
+  private static final int MAX_EXPONENT = 36;
+
+  /** Total number of buckets in every histogram. */
+  public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder totalCount = new LongAdder();
+  private final LongAdder totalMicros = new LongAdder();
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a duration measured with {@link System#nanoTime()}.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  public void recordNanos(long nanos) {
+    recordMicros(nanos / 1_000);
+  }
+
+  /**
+   * Records a duration in microseconds.
+   *
+   * @param micros the duration in microseconds, negative values are recorded as zero
+   */
+  public void recordMicros(long micros) {
+    long value = Math.max(0, micros);
+    counts.incrementAndGet(bucketIndex(value));
+    totalCount.increment();
+    totalMicros.add(value);
+    maxMicros.accumulate(value);
+  }
+
+  /**
+   * Adds all recorded values of another histogram to this one.
+   *
+   * @param other the histogram to merge
+   */
+  public void merge(LatencyHistogram other) {
+    merge(other.bucketCounts(), other.sumMicros(), other.maxMicros());
+  }
+
+  /**
+   * Adds raw bucket counts, as produced by {@link #bucketCounts()}, to this histogram.
+   *
+   * @param bucketCounts the bucket counts to add
+   * @param sumMicros the sum of all values represented by the counts
+   * @param max the largest value represented by the counts
+   */
+  public void merge(long[] bucketCounts, long sumMicros, long max) {
+    if (bucketCounts.length != BUCKET_COUNT) {
+      throw new IllegalArgumentException(
+          "Expected " + BUCKET_COUNT + " buckets but got " + bucketCounts.length);
+    }
+    long added = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      if (bucketCounts[i] != 0) {
+        counts.addAndGet(i, bucketCounts[i]);
+        added += bucketCounts[i];
+      }
+    }
+    totalCount.add(added);
+    totalMicros.add(sumMicros);
+    maxMicros.accumulate(max);
+  }
+
+  /**
+   * Returns a copy of the bucket counts.
+   *
+   * @return array of {@link #BUCKET_COUNT} counts
+   */
+  public long[] bucketCounts() {
+    long[] snapshot = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the count
+   */
+  public long count() {
+    return totalCount.sum();
+  }
+
+  /**
+   * Returns the sum of all recorded values.
+   *
+   * @return the sum in microseconds
+   */
+  public long sumMicros() {
+    return totalMicros.sum();
+  }
+
+  /**
+   * Returns the largest recorded value.
+   *
+   * @return the maximum in microseconds
+   */
+  public long maxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * Returns the mean of all recorded values.
+   *
+   * @return the mean in milliseconds, or 0 when empty
+   */
+  public double meanMillis() {
+    long count = count();
+    return count == 0 ? 0 : sumMicros() / 1_000.0 / count;
+  }
+
+  /**
+   * Returns the value at the given percentile.
+   *
+   * @param percentile the percentile between 0 and 100
+   * @return the upper bound of the bucket holding the percentile, in milliseconds
+   */
+  public double percentileMillis(double percentile) {
+    long[] snapshot = bucketCounts();
+    long total = 0;
+    for (long count : snapshot) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), maxMicros()) / 1_000.0;
+      }
+    }
+    return maxMicros() / 1_000.0;
+  }
+
+  /**
+   * Returns how many recorded values are at or below the given bound, as the {@code le} buckets of
+   * OpenMetrics count them.
+   *
+   * <p>The result is exact when the bound is one less than a power of two, since values are whole
+   * microseconds and bucket boundaries align with powers of two.
+   *
+   * @param boundMicros the inclusive upper bound in microseconds
+   * @return the cumulative count
+   */
+  public long countAtOrBelow(long boundMicros) {
+    long cumulative = 0;
+    for (int i = 0; i < BUCKET_COUNT && bucketUpperBound(i) <= boundMicros + 1; i++) {
+      cumulative += counts.get(i);
+    }
+    return cumulative;
+  }
+
+  /**
+   * Returns a representative value for a bucket, used when bucket counts stand in for raw samples.
+   *
+   * @param index the bucket index
+   * @return the midpoint of the bucket in milliseconds
+   */
+  public static double bucketMidpointMillis(int index) {
+    long upper = bucketUpperBound(index);
+    long lower = index < SUB_BUCKET_COUNT ? index : upper - bucketWidth(index);
+    return (lower + upper) / 2.0 / 1_000.0;
+  }
+
+  /**
+   * Returns the bucket index for a value.
+   *
+   * @param micros the value in microseconds
+   * @return the bucket index
+   */
+  static int bucketIndex(long micros) {
+    if (micros < SUB_BUCKET_COUNT) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /**
+   * Returns the exclusive upper bound of a bucket.
+   *
+   * @param index the bucket index
+   * @return the upper bound in microseconds
+   */
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index + 1L;
+    }
+    int subBucket = index % SUB_BUCKET_COUNT;
+    return (SUB_BUCKET_COUNT + subBucket + 1) * bucketWidth(index);
+  }
+
+  /**
+   * Returns the width of a bucket at or above the linear range.
+   *
+   * @param index the bucket index, at least {@link #SUB_BUCKET_COUNT}
+   * @return the bucket width in microseconds
+   */
+  private static long bucketWidth(int index) {
+    int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    return 1L << (exponent - SUB_BUCKET_BITS);
+  }
+}
@@ -7,10 +7,11 @@ import io.restassured.specification.FilterableRequestSpecification;
 import io.restassured.specification.FilterableResponseSpecification;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.testng.ITestResult;
-import org.testng.Reporter;
 
-/** A RestAssured filter for logging HTTP requests and responses during tests. */
+/**
+ * A RestAssured filter for logging HTTP requests and responses during tests. Metrics and the
+ * status code attributes of the test result are recorded by {@link HarnessMetricsFilter}.
+ */
 public class RestAssuredLogFilter implements Filter {
 
   private static final Logger logger = LogManager.getLogger(RestAssuredLogFilter.class);
@@ -43,15 +44,6 @@ public class RestAssuredLogFilter implements Filter {
     logger.debug("Response Body: {}", response.getBody().asPrettyString());
     response.then().log().ifValidationFails();
 
-    ITestResult result = Reporter.getCurrentTestResult();
-    if (result != null) {
-      result.setAttribute("statusCode", response.getStatusCode());
-      String retryAfter = response.getHeader("Retry-After");
-      if (retryAfter != null) {
-        result.setAttribute("retryAfter", Integer.parseInt(retryAfter));
-      }
-    }
-
     return response;
   }
 }
@@ -0,0 +1,232 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+/**
+ * Asynchronous log4j appender that writes every event to a {@link SegmentedLogStore}, indexed by
+ * the {@code testName} context value.
+ *
+ * <p>Events are encoded with the layout on the logging thread and handed to a background thread
+ * through a bounded queue of {@code bufferSize} events; a logging thread only blocks when the
+ * queue is full. {@link #excerpt(String)} waits until the events queued so far are stored and
+ * reads the log of one test from the index, e.g. to attach it to the report of a failed test.
+ *
+ * <pre>{@code
+ * <SegmentedLog name="Segments" directory="test-results/logs/segments" segmentSize="16777216">
+ *   <PatternLayout pattern="..." />
+ * </SegmentedLog>
+ * }</pre>
+ */
+@Plugin(
+    name = "SegmentedLog",
+    category = Core.CATEGORY_NAME,
+    elementType = Appender.ELEMENT_TYPE,
+    printObject = true)
+public class SegmentedLogAppender extends AbstractAppender {
+
+  /** Maximum size of an excerpt returned by {@link #excerpt(String)}. */
+  public static final int MAX_EXCERPT_BYTES = 1024 * 1024;
+
+  private static final String TEST_NAME_KEY = "testName";
+
+  private static volatile SegmentedLogAppender active;
+
+  private record Entry(String testName, byte[] bytes) {}
+
+  private final Path directory;
+  private final int segmentSize;
+  private final BlockingQueue<Entry> queue;
+  private SegmentedLogStore store;
+  private Thread writer;
+
+  /** Events queued and stored so far and whether the store is closed, guarded by {@code this}. */
+  private long queued;
+
+  private long stored;
+
+  private boolean closed;
+
+  private SegmentedLogAppender(
+      String name,
+      Filter filter,
+      Layout<? extends Serializable> layout,
+      Path directory,
+      int segmentSize,
+      int bufferSize) {
+    super(name, filter, layout, true, Property.EMPTY_ARRAY);
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.queue = new ArrayBlockingQueue<>(bufferSize);
+  }
+
+  /**
+   * Creates the appender from its configuration.
+   *
+   * @param name the appender name
+   * @param directory the directory of the segment files
+   * @param segmentSize the size of each segment in bytes
+   * @param bufferSize the maximum number of events waiting to be stored
+   * @param layout the layout, a default pattern layout if none
+   * @param filter the filter, or null
+   * @return the appender
+   */
+  @PluginFactory
+  public static SegmentedLogAppender createAppender(
+      @PluginAttribute("name") String name,
+      @PluginAttribute(value = "directory", defaultString = "test-results/logs/segments")
+          String directory,
+      @PluginAttribute(value = "segmentSize", defaultInt = 16 * 1024 * 1024) int segmentSize,
+      @PluginAttribute(value = "bufferSize", defaultInt = 8192) int bufferSize,
+      @PluginElement("Layout") Layout<? extends Serializable> layout,
+      @PluginElement("Filter") Filter filter) {
+    if (layout == null) {
+      layout = PatternLayout.createDefaultLayout();
+    }
+    return new SegmentedLogAppender(
+        name, filter, layout, Path.of(directory), segmentSize, bufferSize);
+  }
+
+  @Override
+  public void start() {
+    try {
+      store = new SegmentedLogStore(directory, segmentSize);
+    } catch (IOException e) {
+      LOGGER.error("Cannot create the segmented log store in {}", directory, e);
+      return;
+    }
+    writer = Thread.ofPlatform().name("segmented-log-writer").daemon().start(this::drain);
+    active = this;
+    super.start();
+  }
+
+  @Override
+  public boolean stop(long timeout, TimeUnit timeUnit) {
+    setStopping();
+    if (active == this) {
+      active = null;
+    }
+    if (writer != null) {
+      awaitStored(timeUnit.toMillis(timeout) > 0 ? timeUnit.toMillis(timeout) : 5_000);
+      writer.interrupt();
+      try {
+        writer.join(1_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (this) {
+        closed = true;
+        try {
+          store.close();
+        } catch (IOException e) {
+          LOGGER.error("Cannot close the segmented log store in {}", directory, e);
+        }
+      }
+    }
+    setStopped();
+    return true;
+  }
+
+  @Override
+  public void append(LogEvent event) {
+    String testName = event.getContextData().getValue(TEST_NAME_KEY);
+    Entry entry = new Entry(testName == null ? "" : testName, getLayout().toByteArray(event));
+    synchronized (this) {
+      queued++;
+    }
+    try {
+      queue.put(entry);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      store(List.of(entry));
+    }
+  }
+
+  /**
+   * Returns the log of a test from the active appender, waiting for the events logged so far to be
+   * stored. At most the last {@value #MAX_EXCERPT_BYTES} bytes are returned.
+   *
+   * @param testName the test name as in the {@code testName} context value
+   * @return the log excerpt, or null if no segmented log appender is active or the test logged
+   *     nothing
+   */
+  public static String excerpt(String testName) {
+    SegmentedLogAppender appender = active;
+    if (appender == null) {
+      return null;
+    }
+    appender.awaitStored(5_000);
+    synchronized (appender) {
+      if (appender.closed) {
+        return null;
+      }
+      String excerpt = appender.store.excerpt(testName, MAX_EXCERPT_BYTES);
+      return excerpt.isEmpty() ? null : excerpt;
+    }
+  }
+
+  /**
+   * Waits until the events queued so far are stored.
+   *
+   * @param timeoutMillis the maximum time to wait
+   */
+  private synchronized void awaitStored(long timeoutMillis) {
+    long target = queued;
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    try {
+      while (stored < target && System.currentTimeMillis() < deadline) {
+        wait(Math.max(1, deadline - System.currentTimeMillis()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Background loop that stores the queued events in batches. */
+  private void drain() {
+    List<Entry> batch = new ArrayList<>();
+    while (true) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.drainTo(batch);
+      store(batch);
+      batch.clear();
+    }
+  }
+
+  private synchronized void store(List<Entry> batch) {
+    if (closed) {
+      return;
+    }
+    for (Entry entry : batch) {
+      try {
+        store.append(entry.testName(), entry.bytes());
+      } catch (IOException | RuntimeException e) {
+        LOGGER.error("Cannot append to the segmented log store in {}", directory, e);
+      }
+    }
+    stored += batch.size();
+    notifyAll();
+  }
+}
@@ -0,0 +1,205 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log store made of memory-mapped segment files, with an in-memory index from each
+ * test name to the byte ranges of its log events.
+ *
+ * <p>Events are appended to the current segment ({@code segment-00000.log}, ...) until it is full,
+ * then a new segment is mapped. Consecutive events of the same test are merged into one {@link
+ * Extent}, so the excerpt of a test is read with one copy per run of its events, without scanning
+ * the other tests' logs. Each segment starts with a {@value #HEADER_SIZE}-byte big-endian header
+ * holding the number of bytes used, header included, and is zero-filled after them; the segments
+ * keep their full size, since a file cannot be truncated safely while it is mapped. On {@link
+ * #close()} the segments are flushed and the index is written to {@value #INDEX_FILE_NAME} as {@code
+ * testName<TAB>segment<TAB>offset<TAB>length} lines for external tools, with offsets from the start
+ * of the file. The store is not thread-safe; {@link SegmentedLogAppender} serializes access to it.
+ */
+public class SegmentedLogStore implements AutoCloseable {
+
+  /** Name of the index file written on close. */
+  public static final String INDEX_FILE_NAME = "index.tsv";
+
+  /** Size of the header of each segment, which holds the number of bytes used. */
+  public static final int HEADER_SIZE = Integer.BYTES;
+
+  /**
+   * A contiguous byte range of one segment.
+   *
+   * @param segment the segment number
+   * @param offset the offset of the first byte in the segment
+   * @param length the number of bytes
+   */
+  public record Extent(int segment, int offset, int length) {}
+
+  private final Path directory;
+  private final int segmentSize;
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private final Map<String, List<Extent>> index = new HashMap<>();
+  private MappedByteBuffer current;
+  private String lastTestName;
+  private boolean closed;
+
+  /**
+   * Creates a store in a directory, replacing the segments and index of a previous store there.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentSize the size of each segment in bytes, header included
+   * @throws IOException if the directory or the first segment cannot be created
+   */
+  public SegmentedLogStore(Path directory, int segmentSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    Files.createDirectories(directory);
+    try (var files = Files.newDirectoryStream(directory, "segment-*.log")) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.deleteIfExists(directory.resolve(INDEX_FILE_NAME));
+    roll();
+  }
+
+  /**
+   * Appends the bytes of one log event. An event larger than a segment is cut to the space after
+   * the header.
+   *
+   * @param testName the test the event belongs to, or an empty string
+   * @param bytes the encoded event
+   * @throws IOException if a new segment cannot be mapped
+   * @throws IllegalStateException if the store is closed
+   */
+  public void append(String testName, byte[] bytes) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Segmented log store in " + directory + " is closed");
+    }
+    int length = Math.min(bytes.length, segmentSize - HEADER_SIZE);
+    if (current.remaining() < length) {
+      roll();
+    }
+    int segment = segments.size() - 1;
+    int offset = current.position();
+    current.put(bytes, 0, length);
+    current.putInt(0, current.position());
+
+    List<Extent> extents = index.computeIfAbsent(testName, key -> new ArrayList<>());
+    Extent last = extents.isEmpty() ? null : extents.get(extents.size() - 1);
+    if (testName.equals(lastTestName)
+        && last != null
+        && last.segment() == segment
+        && last.offset() + last.length() == offset) {
+      extents.set(extents.size() - 1, new Extent(segment, last.offset(), last.length() + length));
+    } else {
+      extents.add(new Extent(segment, offset, length));
+    }
+    lastTestName = testName;
+  }
+
+  /**
+   * Returns the byte ranges of a test's log events.
+   *
+   * @param testName the test name
+   * @return the extents in append order, empty if the test logged nothing
+   */
+  public List<Extent> extents(String testName) {
+    return List.copyOf(index.getOrDefault(testName, List.of()));
+  }
+
+  /**
+   * Reads the log events of a test, keeping the last bytes if they exceed a limit.
+   *
+   * @param testName the test name
+   * @param maxBytes the maximum number of bytes to return
+   * @return the log excerpt, empty if the test logged nothing
+   */
+  public String excerpt(String testName, int maxBytes) {
+    List<Extent> extents = index.getOrDefault(testName, List.of());
+    long total = 0;
+    int first = extents.size();
+    while (first > 0 && total < maxBytes) {
+      total += extents.get(--first).length();
+    }
+    byte[] excerpt = new byte[(int) Math.min(total, maxBytes)];
+    int position = excerpt.length;
+    for (int i = extents.size() - 1; i >= first && position > 0; i--) {
+      Extent extent = extents.get(i);
+      int length = Math.min(extent.length(), position);
+      position -= length;
+      segments
+          .get(extent.segment())
+          .get(extent.offset() + extent.length() - length, excerpt, position, length);
+    }
+    return new String(excerpt, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the names of the tests that logged events.
+   *
+   * @return the test names
+   */
+  public List<String> testNames() {
+    return List.copyOf(index.keySet());
+  }
+
+  /**
+   * Stops appends, flushes the segments and writes the index file. Excerpts can still be read.
+   *
+   * @throws IOException if the index cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(directory.resolve(INDEX_FILE_NAME), StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, List<Extent>> entry : index.entrySet()) {
+        for (Extent extent : entry.getValue()) {
+          writer.write(
+              entry.getKey()
+                  + "\t"
+                  + extent.segment()
+                  + "\t"
+                  + extent.offset()
+                  + "\t"
+                  + extent.length());
+          writer.newLine();
+        }
+      }
+    }
+  }
+
+  private void roll() throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            segmentPath(segments.size()),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+    current.putInt(HEADER_SIZE);
+    segments.add(current);
+  }
+
+  private Path segmentPath(int segment) {
+    return directory.resolve(String.format("segment-%05d.log", segment));
+  }
+}
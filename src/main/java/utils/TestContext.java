@@ -0,0 +1,108 @@
+package utils;
+
+import java.util.concurrent.Callable;
+import org.testng.ITestResult;
+
+/**
+ * The test a piece of work belongs to, bound for the duration of a scope and carried across
+ * threads explicitly.
+ *
+ * <p>Log4j's {@code ThreadContext} and TestNG's {@code Reporter.getCurrentTestResult()} are both
+ * thread-local, so requests sent from executor or virtual threads inside a test lose the link to
+ * their test. A {@code TestContext} is bound with {@link #run(Runnable)} or {@link
+ * #call(Callable)} and is visible to everything running in that scope; tasks handed to other
+ * threads keep it with {@link #wrap(Runnable)} or {@link #wrap(Callable)}, which capture a single
+ * reference instead of copying thread-local maps:
+ *
+ * <pre>{@code
+ * try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+ *   executor.submit(TestContext.wrap(() -> given().get("/{id}", id)));
+ * }
+ * }</pre>
+ *
+ * <p>The API mirrors {@code ScopedValue.where(...).run(...)}, which is only a preview feature on
+ * Java 21, so the binding is kept in a thread-local that is restored when a scope ends. {@link
+ * TestContextDataProvider} exposes the bound test name to log4j as {@code testName}.
+ *
+ * @param testName the test name, e.g. {@code TS01_CreateBook.testShouldCreateBook}
+ * @param testResult the TestNG result of the running test, or null outside a test method
+ */
+public record TestContext(String testName, ITestResult testResult) {
+
+  private static final ThreadLocal<TestContext> CURRENT = new ThreadLocal<>();
+
+  /**
+   * Returns the context bound to the current scope.
+   *
+   * @return the context, or null if none is bound
+   */
+  public static TestContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs an action with this context bound, restoring the previous binding afterwards.
+   *
+   * @param action the action
+   */
+  public void run(Runnable action) {
+    TestContext previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      action.run();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  /**
+   * Calls an action with this context bound, restoring the previous binding afterwards.
+   *
+   * @param action the action
+   * @param <T> the result type
+   * @return the result of the action
+   * @throws Exception if the action fails
+   */
+  public <T> T call(Callable<T> action) throws Exception {
+    TestContext previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return action.call();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  /**
+   * Wraps a task so that it runs with the context bound at the time of wrapping, on whatever
+   * thread executes it.
+   *
+   * @param task the task
+   * @return the wrapped task, or the task itself if no context is bound
+   */
+  public static Runnable wrap(Runnable task) {
+    TestContext context = current();
+    return context == null ? task : () -> context.run(task);
+  }
+
+  /**
+   * Wraps a task so that it runs with the context bound at the time of wrapping, on whatever
+   * thread executes it.
+   *
+   * @param task the task
+   * @param <T> the result type
+   * @return the wrapped task, or the task itself if no context is bound
+   */
+  public static <T> Callable<T> wrap(Callable<T> task) {
+    TestContext context = current();
+    return context == null ? task : () -> context.call(task);
+  }
+
+  private static void restore(TestContext previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package utils;
+
+import java.util.Map;
+import org.apache.logging.log4j.core.util.ContextDataProvider;
+
+/**
+ * Log4j context data provider that adds the {@code testName} of the bound {@link TestContext} to
+ * every log event, so that {@code %X{testName}} names the right test on any thread the test fans
+ * out to. It is registered through {@code META-INF/services} and takes precedence over a {@code
+ * testName} left in the {@code ThreadContext}.
+ */
+public class TestContextDataProvider implements ContextDataProvider {
+
+  private static final String TEST_NAME_KEY = "testName";
+
+  @Override
+  public Map<String, String> supplyContextData() {
+    TestContext context = TestContext.current();
+    return context == null ? Map.of() : Map.of(TEST_NAME_KEY, context.testName());
+  }
+
+  @Override
+  public Object getValue(String key) {
+    TestContext context = TestContext.current();
+    return context != null && key.equals(TEST_NAME_KEY) ? context.testName() : null;
+  }
+}
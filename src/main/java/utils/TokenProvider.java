@@ -0,0 +1,82 @@
+package utils;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Source of the bearer token of a role, shared by all test threads.
+ *
+ * <p>{@link #forRole(String)} returns one provider per role for the run. Without the {@code
+ * auth.tokenUrl} system property, the role's token is the static {@code auth.<role>.token} value
+ * ({@code <role>-token} by default), as accepted by the local Book API. With it, tokens are issued
+ * by that OAuth2 token endpoint with the client credentials grant for client {@code
+ * auth.<role>.clientId} (the role name by default) and secret {@code auth.<role>.clientSecret}, and
+ * are cached and refreshed in the background by a {@link ClientCredentialsTokenProvider}.
+ */
+@FunctionalInterface
+public interface TokenProvider {
+
+  /**
+   * Returns a token that is valid now. Implementations return a cached value without blocking
+   * unless no valid token has been issued yet.
+   *
+   * @return the bearer token
+   */
+  String token();
+
+  /**
+   * Returns a provider of a fixed token.
+   *
+   * @param token the token
+   * @return the provider
+   */
+  static TokenProvider of(String token) {
+    return () -> token;
+  }
+
+  /**
+   * Returns the provider of a role, configured from the system properties on first use.
+   *
+   * @param role the role, e.g. {@code user} or {@code admin}
+   * @return the provider, the same instance for every call with the same role
+   */
+  static TokenProvider forRole(String role) {
+    return Providers.BY_ROLE.computeIfAbsent(role, Providers::fromSystemProperties);
+  }
+
+  /**
+   * Stops the background refresh of the providers returned by {@link #forRole(String)} and forgets
+   * them, so that the next call configures them again. Called at the end of a suite.
+   */
+  static void resetRoles() {
+    Providers.BY_ROLE
+        .values()
+        .removeIf(
+            provider -> {
+              if (provider instanceof ClientCredentialsTokenProvider cached) {
+                cached.close();
+              }
+              return true;
+            });
+  }
+
+  /** Holder of the providers returned by {@link #forRole(String)}. */
+  final class Providers {
+
+    private static final Map<String, TokenProvider> BY_ROLE = new ConcurrentHashMap<>();
+
+    private Providers() {}
+
+    private static TokenProvider fromSystemProperties(String role) {
+      String tokenUrl = System.getProperty("auth.tokenUrl", "").trim();
+      if (tokenUrl.isEmpty()) {
+        return of(System.getProperty("auth." + role + ".token", role + "-token"));
+      }
+      return new ClientCredentialsTokenProvider(
+          URI.create(tokenUrl),
+          System.getProperty("auth." + role + ".clientId", role),
+          System.getProperty("auth." + role + ".clientSecret", ""));
+    }
+  }
+}
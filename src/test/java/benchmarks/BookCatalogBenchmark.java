@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import pojos.Book;
+import testUtils.BookCatalog;
+import utils.LatencyHistogram;
+
+/**
+ * Measures how fast the {@link BookCatalog} computes expected results on a large catalogue.
+ *
+ * <p>The catalog is synced with {@code benchmark.books} books (default 1,000,000), a share of them
+ * is deleted and updated to fragment the indexes, and then paging and search queries are timed.
+ */
+public class BookCatalogBenchmark {
+
+  private static final int QUERIES = 10_000;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    int bookCount = Integer.getInteger("benchmark.books", 1_000_000);
+    List<Book> books = new ArrayList<>(bookCount);
+    for (int i = 1; i <= bookCount; i++) {
+      books.add(new Book(i, "Catalog Title " + i, "Catalog Author " + (i % 1000)));
+    }
+    BookCatalog catalog = new BookCatalog();
+    long start = System.nanoTime();
+    catalog.sync(books);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < bookCount / 10; i++) {
+      int id = random.nextInt(1, bookCount + 1);
+      if (i % 2 == 0) {
+        catalog.remove(id);
+      } else {
+        catalog.update(new Book(id, "Updated Title " + id, "Updated Author " + (id % 1000)));
+      }
+    }
+    System.out.printf(
+        "Loaded %d books, %d live, in %d ms%n",
+        bookCount, catalog.size(), (System.nanoTime() - start) / 1_000_000);
+
+    int pages = catalog.size() / 10;
+    time("page", i -> catalog.page(random.nextInt(1, pages + 1), 10));
+    time("page, negative", i -> catalog.page(-random.nextInt(1, 100), 10));
+    time("search title", i -> catalog.search("Title " + random.nextInt(1, bookCount + 1), null));
+    time("search author", i -> catalog.search(null, "Author " + random.nextInt(100, 1000)));
+    time(
+        "search both",
+        i ->
+            catalog.search(
+                "Title " + random.nextInt(1, bookCount + 1),
+                "Author " + random.nextInt(100, 1000)));
+  }
+
+  private static void time(String name, IntFunction<List<Book>> query) {
+    for (int i = 0; i < QUERIES; i++) {
+      query.apply(i);
+    }
+    LatencyHistogram histogram = new LatencyHistogram();
+    long results = 0;
+    for (int i = 0; i < QUERIES; i++) {
+      long start = System.nanoTime();
+      results += query.apply(i).size();
+      histogram.recordNanos(System.nanoTime() - start);
+    }
+    System.out.printf(
+        "%-16s p50 %8.3f ms  p99 %8.3f ms  %6.1f results/query%n",
+        name,
+        histogram.percentileMillis(50),
+        histogram.percentileMillis(99),
+        (double) results / QUERIES);
+  }
+}
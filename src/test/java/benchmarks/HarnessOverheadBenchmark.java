@@ -0,0 +1,178 @@
+package benchmarks;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.TestResult;
+import io.restassured.RestAssured;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+import testUtils.AsyncResultsWriter;
+import testUtils.BookApiStub;
+import utils.HarnessProfile;
+import utils.LatencyHistogram;
+
+/**
+ * Measures the client-side cost per request of every {@link HarnessProfile}.
+ *
+ * <p>A single caller sends reads by ID to an in-memory {@link BookApiStub} through the filters of
+ * each profile, after a warm-up of all profiles. The {@link HarnessProfile#FULL} profile runs
+ * inside Allure test cases of {@code benchmark.requestsPerTest} requests (default 10), whose
+ * results and attachments are written to a temporary directory as in a real run, once with
+ * Allure's synchronous writer and once with the {@link AsyncResultsWriter}, which is flushed after
+ * the measurement. Latency, CPU time and allocated bytes of the caller thread are printed per
+ * request, with the overhead over {@link HarnessProfile#BARE}. The run is tuned with {@code
+ * benchmark.requests} (default 3000) and {@code benchmark.warmup} (default 2000, per profile).
+ */
+public class HarnessOverheadBenchmark {
+
+  private static final int SEEDED_BOOKS = 50;
+  private static final Logger logger = LogManager.getLogger(HarnessOverheadBenchmark.class);
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /**
+   * Per-request cost of one profile.
+   *
+   * @param meanMillis the mean latency in milliseconds
+   * @param p99Millis the p99 latency in milliseconds
+   * @param cpuMicros the caller CPU time in microseconds
+   * @param allocatedBytes the bytes allocated by the caller
+   */
+  private record Cost(
+      double meanMillis, double p99Millis, double cpuMicros, double allocatedBytes) {}
+
+  /**
+   * A profile and the Allure lifecycle its requests run in.
+   *
+   * @param name the name printed in the results
+   * @param profile the profile whose filters are installed
+   * @param allure the Allure lifecycle, or null to run outside Allure test cases
+   */
+  private record Variant(String name, HarnessProfile profile, AllureLifecycle allure) {
+
+    void install() {
+      RestAssured.replaceFiltersWith(profile.filters());
+      if (allure != null) {
+        Allure.setLifecycle(allure);
+      }
+    }
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   * @throws Exception if the stub cannot be started or a request fails
+   */
+  public static void main(String[] args) throws Exception {
+    int requests = Integer.getInteger("benchmark.requests", 3000);
+    int warmup = Integer.getInteger("benchmark.warmup", 2000);
+    int requestsPerTest = Integer.getInteger("benchmark.requestsPerTest", 10);
+    Path allureResults = Files.createTempDirectory("allure-results");
+    AsyncResultsWriter asyncWriter =
+        new AsyncResultsWriter(new FileSystemResultsWriter(allureResults), 1024);
+    List<Variant> variants =
+        List.of(
+            new Variant("bare", HarnessProfile.BARE, null),
+            new Variant("lean", HarnessProfile.LEAN, null),
+            new Variant(
+                "full",
+                HarnessProfile.FULL,
+                new AllureLifecycle(new FileSystemResultsWriter(allureResults))),
+            new Variant("full async", HarnessProfile.FULL, new AllureLifecycle(asyncWriter)));
+
+    try (BookApiStub stub = new BookApiStub(0)) {
+      RestAssured.baseURI = stub.baseUri();
+      RestAssured.basePath = "/api/books";
+      for (int i = 1; i <= SEEDED_BOOKS; i++) {
+        RestAssured.given()
+            .auth()
+            .oauth2("user-token")
+            .contentType("application/json")
+            .body(new Book("Overhead Book " + i, "Overhead Author"))
+            .post()
+            .then()
+            .statusCode(201);
+      }
+      logger.info(
+          "Benchmarking {} requests per profile against {}, Allure results in {}",
+          requests,
+          stub.baseUri(),
+          allureResults);
+
+      System.out.printf(
+          "%-10s %9s %9s %10s %12s %12s%n",
+          "profile", "mean ms", "p99 ms", "CPU us", "alloc bytes", "overhead ms");
+      for (Variant variant : variants) {
+        variant.install();
+        run(warmup, requestsPerTest, variant.allure() != null);
+      }
+      asyncWriter.flush();
+      Cost bare = null;
+      for (Variant variant : variants) {
+        variant.install();
+        Cost cost = run(requests, requestsPerTest, variant.allure() != null);
+        asyncWriter.flush();
+        if (bare == null) {
+          bare = cost;
+        }
+        System.out.printf(
+            "%-10s %9.3f %9.3f %10.1f %12.0f %+12.3f%n",
+            variant.name(),
+            cost.meanMillis(),
+            cost.p99Millis(),
+            cost.cpuMicros(),
+            cost.allocatedBytes(),
+            cost.meanMillis() - bare.meanMillis());
+      }
+      RestAssured.reset();
+    }
+  }
+
+  /**
+   * Sends reads by ID through the installed filters and measures them.
+   *
+   * @param requests the number of requests
+   * @param requestsPerTest the requests per Allure test case
+   * @param allure whether to run the requests inside Allure test cases
+   * @return the cost per request
+   */
+  private static Cost run(int requests, int requestsPerTest, boolean allure) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    long cpuStart = threads.getCurrentThreadCpuTime();
+    long allocatedStart = threads.getCurrentThreadAllocatedBytes();
+    for (int sent = 0; sent < requests; sent += requestsPerTest) {
+      String uuid = UUID.randomUUID().toString();
+      if (allure) {
+        Allure.getLifecycle().scheduleTestCase(new TestResult().setUuid(uuid).setName("overhead"));
+        Allure.getLifecycle().startTestCase(uuid);
+      }
+      for (int i = sent; i < Math.min(requests, sent + requestsPerTest); i++) {
+        long start = System.nanoTime();
+        RestAssured.given()
+            .auth()
+            .oauth2("user-token")
+            .get("/{id}", i % SEEDED_BOOKS + 1)
+            .then()
+            .statusCode(200);
+        histogram.recordNanos(System.nanoTime() - start);
+      }
+      if (allure) {
+        Allure.getLifecycle().stopTestCase(uuid);
+        Allure.getLifecycle().writeTestCase(uuid);
+      }
+    }
+    return new Cost(
+        histogram.meanMillis(),
+        histogram.percentileMillis(99),
+        (threads.getCurrentThreadCpuTime() - cpuStart) / 1e3 / requests,
+        (double) (threads.getCurrentThreadAllocatedBytes() - allocatedStart) / requests);
+  }
+}
@@ -0,0 +1,386 @@
+package benchmarks;
+
+import static testUtils.BookApi.ADMIN;
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+import testUtils.BookApiStub;
+import testUtils.OperationHistory;
+import testUtils.OperationHistory.Operation;
+import testUtils.OperationHistory.Outcome;
+import testUtils.OperationHistory.Type;
+import utils.LatencyHistogram;
+
+/**
+ * Measures how paging through {@code GET /api/books} behaves while other workers create and delete
+ * books at a controlled rate.
+ *
+ * <p>Readers scan the whole catalogue page by page with {@code page} and {@code limit} until an
+ * empty page, while writers create and delete books at each write rate of {@code
+ * benchmark.writeRates} (writes per second, default {@code 0,25,100,400}) in turn, keeping the
+ * books they created near {@code benchmark.books} (default 500). The writes are recorded in an
+ * {@link OperationHistory}, and every scan is checked for:
+ *
+ * <ul>
+ *   <li>duplicated items: a book returned on more than one page of the scan
+ *   <li>skipped items: a book created before the scan started and not deleted before it ended,
+ *       that no page of the scan returned
+ *   <li>short pages: a page with fewer than {@code limit} books that is not the last one
+ * </ul>
+ *
+ * <p>The page latency and the anomalies are printed per write rate, with the achieved write rate
+ * and the number of writes during an average scan. The run is tuned with {@code benchmark.limit}
+ * (default 20), {@code benchmark.readers} (default 4), {@code benchmark.writers} (default 8) and
+ * {@code benchmark.seconds} per write rate (default 10).
+ *
+ * <p>The API is {@code api.baseUri} (default {@code http://localhost:3000}), or an in-memory {@link
+ * BookApiStub} with {@code -Dpagination.stub=true}. Requests are sent as the {@link
+ * testUtils.BookApi} roles, so tokens come from the configured token providers, and the books are
+ * reset at the end. Against the Node.js app, the readers and writers together must stay below its
+ * {@code APP_MAX_REQUESTS} per minute, or pages fail with 429.
+ */
+public class PaginationBenchmark {
+
+  private static final Logger logger = LogManager.getLogger(PaginationBenchmark.class);
+  private static final AtomicLong titles = new AtomicLong();
+
+  /**
+   * A scan of the catalogue.
+   *
+   * @param startNanos when the first page was requested, on the clock of the write history
+   * @param endNanos when the last page was received, on the clock of the write history
+   * @param pages the book IDs of every non-empty page, in page order
+   */
+  private record Scan(long startNanos, long endNanos, List<List<Integer>> pages) {}
+
+  /**
+   * The anomalies of the scans at a write rate.
+   *
+   * @param duplicated the books returned on more than one page of a scan
+   * @param skipped the books that existed during a whole scan and were not returned
+   * @param shortPages the pages with fewer than {@code limit} books that were not the last one
+   * @param badScans the scans with any anomaly
+   */
+  private record Anomalies(long duplicated, long skipped, long shortPages, long badScans) {}
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   * @throws Exception if the stub cannot be started or a request fails
+   */
+  public static void main(String[] args) throws Exception {
+    int books = Integer.getInteger("benchmark.books", 500);
+    int limit = Integer.getInteger("benchmark.limit", 20);
+    int readers = Integer.getInteger("benchmark.readers", 4);
+    int writers = Integer.getInteger("benchmark.writers", 8);
+    int seconds = Integer.getInteger("benchmark.seconds", 10);
+    int[] writeRates =
+        Arrays.stream(System.getProperty("benchmark.writeRates", "0,25,100,400").split(","))
+            .mapToInt(rate -> Integer.parseInt(rate.strip()))
+            .toArray();
+
+    BookApiStub stub = Boolean.getBoolean("pagination.stub") ? new BookApiStub(0) : null;
+    try {
+      String baseUri =
+          stub != null
+              ? stub.baseUri()
+              : System.getProperty("api.baseUri", "http://localhost:3000");
+      RestAssured.baseURI = baseUri;
+      RestAssured.basePath = "/api/books";
+      List<Integer> pool = new ArrayList<>();
+      for (int i = 0; i < books; i++) {
+        pool.add(create().getId());
+      }
+      logger.info(
+          "Paging {} books by {} with {} readers against {}",
+          books,
+          limit,
+          readers,
+          baseUri);
+
+      List<String> rows = new ArrayList<>();
+      for (int writeRate : writeRates) {
+        rows.add(runPhase(pool, books, limit, readers, writers, writeRate, seconds));
+      }
+      System.out.printf(
+          "%8s %8s %7s %7s %8s %8s %8s %8s %7s %7s %7s %9s%n",
+          "target/s",
+          "writes/s",
+          "scans",
+          "pages",
+          "p50 ms",
+          "p99 ms",
+          "max ms",
+          "w/scan",
+          "dups",
+          "skips",
+          "short",
+          "bad scans");
+      rows.forEach(System.out::println);
+    } finally {
+      try {
+        ADMIN.given().when().delete("/reset");
+      } finally {
+        RestAssured.reset();
+        if (stub != null) {
+          stub.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Scans the catalogue with the readers while the writers write at a given rate, and formats the
+   * result row of the rate.
+   *
+   * @param pool the IDs of the books in the catalogue, updated by the writers
+   * @param books the catalogue size the writers keep near
+   * @param limit the page size
+   * @param readers the number of reader threads
+   * @param writers the number of writer threads
+   * @param writeRate the writes per second, 0 for none
+   * @param seconds how long the readers start new scans
+   * @return the result row
+   * @throws Exception if a reader or writer fails
+   */
+  private static String runPhase(
+      List<Integer> pool,
+      int books,
+      int limit,
+      int readers,
+      int writers,
+      int writeRate,
+      int seconds)
+      throws Exception {
+    Set<Integer> initial;
+    synchronized (pool) {
+      initial = new HashSet<>(pool);
+    }
+    OperationHistory history = new OperationHistory();
+    LatencyHistogram pageLatency = new LatencyHistogram();
+    ConcurrentLinkedQueue<Scan> scans = new ConcurrentLinkedQueue<>();
+    int maxPages = 10 * (books / limit + 1);
+    long start = System.nanoTime();
+    long deadline = start + seconds * 1_000_000_000L;
+    AtomicLong slots = new AtomicLong();
+    int writerCount = writeRate > 0 ? writers : 0;
+
+    ExecutorService workers = Executors.newFixedThreadPool(readers + writerCount);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < readers; i++) {
+        futures.add(
+            workers.submit(
+                () -> {
+                  while (System.nanoTime() < deadline) {
+                    scans.add(scan(limit, maxPages, history, pageLatency));
+                  }
+                }));
+      }
+      for (int i = 0; i < writerCount; i++) {
+        futures.add(
+            workers.submit(
+                () -> {
+                  // Writers share one schedule, so the rate does not depend on their number
+                  long interval = 1_000_000_000L / writeRate;
+                  long slot;
+                  while ((slot = start + slots.getAndIncrement() * interval) < deadline) {
+                    LockSupport.parkNanos(slot - System.nanoTime());
+                    write(pool, books, history);
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      workers.shutdown();
+    }
+
+    double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+    List<Operation> writes = history.operations();
+    Anomalies anomalies = check(initial, writes, scans, limit);
+    long pages = scans.stream().mapToLong(scan -> scan.pages().size()).sum();
+    double meanScanSeconds =
+        scans.stream().mapToLong(scan -> scan.endNanos() - scan.startNanos()).average().orElse(0)
+            / 1e9;
+    double achievedRate = writes.size() / elapsedSeconds;
+    logger.info(
+        "{} writes/s: {} scans, {} duplicated, {} skipped, {} short pages",
+        writeRate,
+        scans.size(),
+        anomalies.duplicated(),
+        anomalies.skipped(),
+        anomalies.shortPages());
+    return String.format(
+        "%8d %8.1f %7d %7d %8.3f %8.3f %8.3f %8.1f %7d %7d %7d %8.1f%%",
+        writeRate,
+        achievedRate,
+        scans.size(),
+        pages,
+        pageLatency.percentileMillis(50),
+        pageLatency.percentileMillis(99),
+        pageLatency.maxMicros() / 1000.0,
+        achievedRate * meanScanSeconds,
+        anomalies.duplicated(),
+        anomalies.skipped(),
+        anomalies.shortPages(),
+        scans.isEmpty() ? 0 : anomalies.badScans() * 100.0 / scans.size());
+  }
+
+  /**
+   * Scans the catalogue page by page until an empty page.
+   *
+   * @param limit the page size
+   * @param maxPages the number of pages after which the scan is cut short
+   * @param history the write history, whose clock times the scan
+   * @param pageLatency records the latency of every page
+   * @return the scan
+   */
+  private static Scan scan(
+      int limit, int maxPages, OperationHistory history, LatencyHistogram pageLatency) {
+    long startNanos = history.nanosSinceStart();
+    List<List<Integer>> pages = new ArrayList<>();
+    for (int page = 1; page <= maxPages; page++) {
+      long start = System.nanoTime();
+      Response response = ANONYMOUS.list(page, limit);
+      pageLatency.recordNanos(System.nanoTime() - start);
+      List<Integer> ids =
+          response.then().statusCode(200).extract().jsonPath().getList("id", Integer.class);
+      if (ids.isEmpty()) {
+        break;
+      }
+      pages.add(ids);
+    }
+    return new Scan(startNanos, history.nanosSinceStart(), pages);
+  }
+
+  /**
+   * Creates or deletes a random book, creating more often while the catalogue is smaller than its
+   * target size.
+   *
+   * @param pool the IDs of the books in the catalogue
+   * @param books the target catalogue size
+   * @param history records the write
+   */
+  private static void write(List<Integer> pool, int books, OperationHistory history) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Integer id = null;
+    synchronized (pool) {
+      if (random.nextInt(2 * books) < pool.size()) {
+        // Swap-remove a random book, so that deletes hit every page
+        int index = random.nextInt(pool.size());
+        id = pool.get(index);
+        pool.set(index, pool.get(pool.size() - 1));
+        pool.remove(pool.size() - 1);
+      }
+    }
+    if (id != null) {
+      int bookId = id;
+      history.record(
+          Type.DELETE,
+          bookId,
+          null,
+          () -> {
+            Response response = ADMIN.delete(bookId);
+            return new Outcome(response.then().statusCode(204).extract().statusCode(), List.of());
+          });
+      return;
+    }
+    Outcome outcome =
+        history.record(Type.CREATE, 0, null, () -> new Outcome(201, List.of(create())));
+    synchronized (pool) {
+      pool.add(outcome.observed().get(0).getId());
+    }
+  }
+
+  /**
+   * Creates a book with a unique title.
+   *
+   * @return the created book
+   */
+  private static Book create() {
+    return USER.create(new Book("Page Book " + titles.incrementAndGet(), "Page Author"))
+        .then()
+        .statusCode(201)
+        .extract()
+        .as(Book.class);
+  }
+
+  /**
+   * Counts the anomalies of the scans of a phase.
+   *
+   * @param initial the IDs of the books in the catalogue when the phase started
+   * @param writes the writes of the phase
+   * @param scans the scans of the phase
+   * @param limit the page size
+   * @return the anomalies
+   */
+  private static Anomalies check(
+      Set<Integer> initial, List<Operation> writes, Iterable<Scan> scans, int limit) {
+    Map<Integer, Long> createdAt = new HashMap<>();
+    Map<Integer, Long> deletedAt = new HashMap<>();
+    initial.forEach(id -> createdAt.put(id, Long.MIN_VALUE));
+    for (Operation write : writes) {
+      if (write.type() == Type.CREATE && write.hasResponse()) {
+        createdAt.put(write.observed().get(0).getId(), write.completedNanos());
+      } else if (write.type() == Type.DELETE) {
+        // A delete may take effect as soon as it is sent
+        deletedAt.merge(write.bookId(), write.invokedNanos(), Math::min);
+      }
+    }
+    long duplicated = 0;
+    long skipped = 0;
+    long shortPages = 0;
+    long badScans = 0;
+    for (Scan scan : scans) {
+      Set<Integer> seen = new HashSet<>();
+      long scanAnomalies = 0;
+      List<List<Integer>> pages = scan.pages();
+      for (int i = 0; i < pages.size(); i++) {
+        for (Integer id : pages.get(i)) {
+          if (!seen.add(id)) {
+            duplicated++;
+            scanAnomalies++;
+          }
+        }
+        if (i < pages.size() - 1 && pages.get(i).size() < limit) {
+          shortPages++;
+          scanAnomalies++;
+        }
+      }
+      for (Map.Entry<Integer, Long> book : createdAt.entrySet()) {
+        if (book.getValue() < scan.startNanos()
+            && deletedAt.getOrDefault(book.getKey(), Long.MAX_VALUE) > scan.endNanos()
+            && !seen.contains(book.getKey())) {
+          skipped++;
+          scanAnomalies++;
+        }
+      }
+      if (scanAnomalies > 0) {
+        badScans++;
+      }
+    }
+    return new Anomalies(duplicated, skipped, shortPages, badScans);
+  }
+}
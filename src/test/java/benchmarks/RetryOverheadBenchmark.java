@@ -0,0 +1,230 @@
+package benchmarks;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.Reporter;
+import org.testng.internal.TestResult;
+import pojos.Book;
+import testUtils.BookApiStub;
+import testUtils.FaultInjectionProxy;
+import testUtils.FaultScenario;
+import testUtils.RetryAnalyzer;
+import tests.BaseTest;
+import utils.LatencyHistogram;
+import utils.HarnessMetricsFilter;
+import utils.RestAssuredLogFilter;
+
+/**
+ * Measures how much wall time and throughput the harness loses to injected faults, and whether its
+ * retry handling holds up.
+ *
+ * <p>Requests go through the {@link RestAssuredLogFilter} and a {@link FaultInjectionProxy} in
+ * front of a {@link BookApiStub}. Every scenario of the scenario file ({@code fault.scenarios},
+ * default {@value FaultScenario#DEFAULT_FILE}) is run twice: once with {@link
+ * BaseTest#retryRequest} around each request and once with a {@link RetryAnalyzer} per simulated
+ * test, which re-runs the test the way TestNG does when the analyzer asks for a retry. Each mode
+ * is warmed up without faults first, and the wall time of each run is compared with the first
+ * scenario, which should inject no faults. The run is tuned with {@code benchmark.requests}
+ * (default 200) and {@code benchmark.concurrency} (default 8).
+ */
+public class RetryOverheadBenchmark {
+
+  private static final int SEEDED_BOOKS = 20;
+  private static final String TOKEN = "user-token";
+  private static final Logger logger = LogManager.getLogger(RetryOverheadBenchmark.class);
+
+  /** How a request is retried. */
+  private enum RetryMode {
+    RETRY_REQUEST,
+    RETRY_ANALYZER
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   * @throws Exception if the stub or proxy cannot be started or the scenarios cannot be loaded
+   */
+  public static void main(String[] args) throws Exception {
+    int requests = Integer.getInteger("benchmark.requests", 200);
+    int concurrency = Integer.getInteger("benchmark.concurrency", 8);
+    List<FaultScenario> scenarios =
+        FaultScenario.load(System.getProperty("fault.scenarios", FaultScenario.DEFAULT_FILE));
+
+    try (BookApiStub stub = new BookApiStub(0);
+        FaultInjectionProxy proxy = new FaultInjectionProxy(0, stub.baseUri())) {
+      RestAssured.basePath = "/api/books";
+      for (int i = 1; i <= SEEDED_BOOKS; i++) {
+        RestAssured.given()
+            .baseUri(stub.baseUri())
+            .auth()
+            .oauth2(TOKEN)
+            .contentType("application/json")
+            .body(new Book("Retry Book " + i, "Retry Author"))
+            .post()
+            .then()
+            .statusCode(201);
+      }
+      RestAssured.baseURI = proxy.baseUri();
+      RestAssured.filters(new RestAssuredLogFilter(), new HarnessMetricsFilter());
+
+      List<String> rows = new ArrayList<>();
+      for (RetryMode mode : RetryMode.values()) {
+        proxy.setScenario(FaultScenario.NONE);
+        run(mode, requests, concurrency, new LatencyHistogram(), new AtomicInteger());
+        double baselineSeconds = 0;
+        for (FaultScenario scenario : scenarios) {
+          proxy.setScenario(scenario);
+          LatencyHistogram histogram = new LatencyHistogram();
+          AtomicInteger failed = new AtomicInteger();
+          long start = System.nanoTime();
+          run(mode, requests, concurrency, histogram, failed);
+          double seconds = (System.nanoTime() - start) / 1e9;
+          if (baselineSeconds == 0) {
+            baselineSeconds = seconds;
+          }
+          Map<String, Long> faults = proxy.faultCounts();
+          rows.add(
+              String.format(
+                  "%-18s %-15s %6d %6d %7d %6d %6d %8.2f %8.1f %8.1f %8.1f %+9.0f%%",
+                  scenario.name(),
+                  mode,
+                  requests - failed.get(),
+                  failed.get(),
+                  faults.get("latencySpikes"),
+                  faults.get("resets"),
+                  faults.get("tooManyRequests"),
+                  seconds,
+                  requests / seconds,
+                  histogram.percentileMillis(50),
+                  histogram.percentileMillis(99),
+                  (seconds / baselineSeconds - 1) * 100));
+        }
+      }
+      System.out.printf(
+          "%-18s %-15s %6s %6s %7s %6s %6s %8s %8s %8s %8s %10s%n",
+          "scenario",
+          "retry",
+          "passed",
+          "failed",
+          "spikes",
+          "resets",
+          "429s",
+          "wall s",
+          "tests/s",
+          "p50 ms",
+          "p99 ms",
+          "overhead");
+      rows.forEach(System.out::println);
+    } finally {
+      RestAssured.reset();
+    }
+  }
+
+  /**
+   * Runs simulated tests from a fixed number of caller threads.
+   *
+   * @param mode how requests are retried
+   * @param tests the number of simulated tests
+   * @param concurrency the number of caller threads
+   * @param histogram records the duration of every test including its retries
+   * @param failed counts the tests that did not end with a 200 response
+   * @throws Exception if a caller thread fails unexpectedly
+   */
+  private static void run(
+      RetryMode mode,
+      int tests,
+      int concurrency,
+      LatencyHistogram histogram,
+      AtomicInteger failed)
+      throws Exception {
+    BaseTest harness = new BaseTest();
+    AtomicInteger remaining = new AtomicInteger(tests);
+    ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < concurrency; i++) {
+        futures.add(
+            callers.submit(
+                () -> {
+                  while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    boolean passed =
+                        mode == RetryMode.RETRY_REQUEST
+                            ? runWithRetryRequest(harness)
+                            : runWithRetryAnalyzer();
+                    histogram.recordNanos(System.nanoTime() - start);
+                    if (!passed) {
+                      failed.incrementAndGet();
+                    }
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      callers.shutdown();
+    }
+  }
+
+  /**
+   * Runs one simulated test that wraps its request in {@link BaseTest#retryRequest}.
+   *
+   * @param harness the test instance providing the retry helper
+   * @return true if the test passed
+   */
+  private static boolean runWithRetryRequest(BaseTest harness) {
+    try {
+      return harness.retryRequest(randomRead()).getStatusCode() == 200;
+    } catch (RuntimeException e) {
+      logger.debug("Request failed: {}", e.toString());
+      return false;
+    }
+  }
+
+  /**
+   * Runs one simulated test and re-runs it while a {@link RetryAnalyzer} asks for a retry, with a
+   * new test result per attempt as in TestNG.
+   *
+   * @return true if the test passed
+   */
+  private static boolean runWithRetryAnalyzer() {
+    RetryAnalyzer analyzer = new RetryAnalyzer();
+    Supplier<Response> request = randomRead();
+    try {
+      while (true) {
+        TestResult result = TestResult.newEmptyTestResult();
+        Reporter.setCurrentTestResult(result);
+        try {
+          if (request.get().getStatusCode() == 200) {
+            return true;
+          }
+        } catch (RuntimeException e) {
+          logger.debug("Request failed: {}", e.toString());
+        }
+        if (!analyzer.retry(result)) {
+          return false;
+        }
+      }
+    } finally {
+      Reporter.setCurrentTestResult(null);
+    }
+  }
+
+  private static Supplier<Response> randomRead() {
+    int id = ThreadLocalRandom.current().nextInt(1, SEEDED_BOOKS + 1);
+    return () -> RestAssured.given().auth().oauth2(TOKEN).get("/{id}", id);
+  }
+}
@@ -0,0 +1,179 @@
+package benchmarks;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import io.restassured.specification.RequestSpecification;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+import testUtils.BookApiStub;
+import utils.JdkHttpTransportFilter;
+import utils.LatencyHistogram;
+
+/**
+ * Side-by-side benchmark of RestAssured's default transport and the {@link JdkHttpTransportFilter}
+ * asking for HTTP/1.1 and for HTTP/2.
+ *
+ * <p>Every transport sends the same mix of reads (by ID, paged list and search) to an in-memory
+ * {@link BookApiStub} from the same number of caller threads, after a warm-up. Throughput and the
+ * p50/p99 latency are printed per transport, together with the HTTP version the server actually
+ * negotiated: the stub does not accept the h2c upgrade, so the client asking for HTTP/2 falls back
+ * to HTTP/1.1 and only measures the cost of offering the upgrade. The run is tuned with {@code
+ * benchmark.requests} (default 5000), {@code benchmark.warmup} (default 1000) and {@code
+ * benchmark.concurrency} (default 16).
+ */
+public class TransportBenchmark {
+
+  private static final int SEEDED_BOOKS = 50;
+  private static final Logger logger = LogManager.getLogger(TransportBenchmark.class);
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   * @throws Exception if the stub cannot be started or a request fails
+   */
+  public static void main(String[] args) throws Exception {
+    int requests = Integer.getInteger("benchmark.requests", 5000);
+    int warmup = Integer.getInteger("benchmark.warmup", 1000);
+    int concurrency = Integer.getInteger("benchmark.concurrency", 16);
+
+    Map<String, Filter> transports = new LinkedHashMap<>();
+    transports.put("default", null);
+    transports.put("jdk, asks 1.1", new JdkHttpTransportFilter(HttpClient.Version.HTTP_1_1));
+    transports.put("jdk, asks 2", new JdkHttpTransportFilter(HttpClient.Version.HTTP_2));
+
+    try (BookApiStub stub = new BookApiStub(0)) {
+      RestAssured.baseURI = stub.baseUri();
+      RestAssured.basePath = "/api/books";
+      for (int i = 1; i <= SEEDED_BOOKS; i++) {
+        RestAssured.given()
+            .auth()
+            .oauth2("user-token")
+            .contentType("application/json")
+            .body(new Book("Benchmark Book " + i, "Benchmark Author " + (i % 5)))
+            .post()
+            .then()
+            .statusCode(201);
+      }
+      logger.info(
+          "Benchmarking {} requests with {} callers against {}",
+          requests,
+          concurrency,
+          stub.baseUri());
+
+      System.out.printf(
+          "%-14s %-10s %12s %10s %10s%n", "transport", "protocol", "req/s", "p50 ms", "p99 ms");
+      for (Map.Entry<String, Filter> transport : transports.entrySet()) {
+        run(transport.getValue(), warmup, concurrency);
+        String protocol = negotiatedProtocol(transport.getValue());
+        LatencyHistogram histogram = new LatencyHistogram();
+        long start = System.nanoTime();
+        run(transport.getValue(), requests, concurrency, histogram);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(
+            "%-14s %-10s %12.0f %10.3f %10.3f%n",
+            transport.getKey(),
+            protocol,
+            requests / seconds,
+            histogram.percentileMillis(50),
+            histogram.percentileMillis(99));
+      }
+    }
+  }
+
+  /**
+   * Sends requests without recording them, to warm up the transport.
+   *
+   * @param transport the transport filter, or null for the default transport
+   * @param requests the number of requests
+   * @param concurrency the number of caller threads
+   * @throws Exception if a request fails
+   */
+  private static void run(Filter transport, int requests, int concurrency) throws Exception {
+    run(transport, requests, concurrency, new LatencyHistogram());
+  }
+
+  /**
+   * Sends requests from a fixed number of caller threads and records their latency.
+   *
+   * @param transport the transport filter, or null for the default transport
+   * @param requests the number of requests
+   * @param concurrency the number of caller threads
+   * @param histogram the histogram to record the latencies in
+   * @throws Exception if a request fails
+   */
+  private static void run(
+      Filter transport, int requests, int concurrency, LatencyHistogram histogram)
+      throws Exception {
+    AtomicInteger remaining = new AtomicInteger(requests);
+    ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < concurrency; i++) {
+        futures.add(
+            callers.submit(
+                () -> {
+                  while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    sendRandomRead(transport);
+                    histogram.recordNanos(System.nanoTime() - start);
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      callers.shutdown();
+    }
+  }
+
+  /**
+   * Returns the HTTP version a transport actually uses with the stub, from the status line of a
+   * response.
+   *
+   * @param transport the transport filter, or null for the default transport
+   * @return the version, e.g. {@code HTTP/1.1}
+   */
+  private static String negotiatedProtocol(Filter transport) {
+    RequestSpecification request = RestAssured.given().auth().oauth2("user-token");
+    if (transport != null) {
+      request.filter(transport);
+    }
+    return request.get("/{id}", 1).getStatusLine().split(" ", 2)[0];
+  }
+
+  /**
+   * Sends one read request of the benchmark mix and verifies its status.
+   *
+   * @param transport the transport filter, or null for the default transport
+   */
+  private static void sendRandomRead(Filter transport) {
+    RequestSpecification request = RestAssured.given().auth().oauth2("user-token");
+    if (transport != null) {
+      request.filter(transport);
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    switch (random.nextInt(3)) {
+      case 0 -> request.get("/{id}", random.nextInt(1, SEEDED_BOOKS + 1)).then().statusCode(200);
+      case 1 -> request.queryParam("page", random.nextInt(1, 6)).get().then().statusCode(200);
+      default ->
+          request
+              .queryParam("author", "Author " + random.nextInt(5))
+              .get("/search")
+              .then()
+              .statusCode(200);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package testUtils;
+
+import io.qameta.allure.AllureResultsWriteException;
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Allure results writer that moves result, container and attachment writes off the test threads.
+ *
+ * <p>Writes are queued in a bounded queue and written by a single background thread in batches of
+ * up to the queue capacity, through the wrapped writer. A test thread only blocks when the queue is
+ * full, which bounds the memory held by pending results. Attachment streams are read into memory on
+ * the calling thread, because Allure may reuse them once the write returns. {@link #flush()} waits
+ * until every queued write is on disk; it is called at the end of every suite by {@link
+ * HarnessProfileListener} and from a shutdown hook.
+ */
+public final class AsyncResultsWriter implements AllureResultsWriter {
+
+  private static final Logger logger = LogManager.getLogger(AsyncResultsWriter.class);
+
+  private final AllureResultsWriter delegate;
+  private final BlockingQueue<Consumer<AllureResultsWriter>> queue;
+  private final int batchSize;
+  private final Thread worker;
+
+  /** Writes submitted and completed so far, guarded by {@code this}. */
+  private long submitted;
+
+  private long completed;
+  private long failed;
+
+  /**
+   * Creates a writer and starts its background thread.
+   *
+   * @param delegate the writer that performs the writes
+   * @param capacity the maximum number of pending writes, also the maximum batch size
+   */
+  public AsyncResultsWriter(AllureResultsWriter delegate, int capacity) {
+    this.delegate = delegate;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = capacity;
+    this.worker = Thread.ofPlatform().name("allure-results-writer").daemon().start(this::drain);
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(() -> flush(10, TimeUnit.SECONDS), "allure-results-flush"));
+  }
+
+  @Override
+  public void write(TestResult testResult) {
+    submit(writer -> writer.write(testResult));
+  }
+
+  @Override
+  public void write(TestResultContainer testResultContainer) {
+    submit(writer -> writer.write(testResultContainer));
+  }
+
+  @Override
+  public void write(String source, InputStream attachment) {
+    byte[] content;
+    try (attachment) {
+      content = attachment.readAllBytes();
+    } catch (IOException e) {
+      throw new AllureResultsWriteException("Could not read attachment " + source, e);
+    }
+    submit(writer -> writer.write(source, new ByteArrayInputStream(content)));
+  }
+
+  /**
+   * Waits until every write submitted so far has completed.
+   *
+   * @return true if all writes completed, false if the thread was interrupted
+   */
+  public boolean flush() {
+    return flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Waits until every write submitted so far has completed, or the timeout elapses.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if all writes completed
+   */
+  public synchronized boolean flush(long timeout, TimeUnit unit) {
+    long target = submitted;
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    try {
+      while (completed < target) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          logger.warn("Timed out with {} Allure writes pending", target - completed);
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    if (failed > 0) {
+      logger.warn("{} Allure writes failed", failed);
+    }
+    return true;
+  }
+
+  /**
+   * Queues a write, or performs it on the calling thread if the background thread is gone or the
+   * caller is interrupted while the queue is full.
+   *
+   * @param write the write
+   */
+  private void submit(Consumer<AllureResultsWriter> write) {
+    if (!worker.isAlive()) {
+      write.accept(delegate);
+      return;
+    }
+    synchronized (this) {
+      submitted++;
+    }
+    try {
+      queue.put(write);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      run(List.of(write));
+    }
+  }
+
+  /** Background loop that takes the pending writes in batches and performs them. */
+  private void drain() {
+    List<Consumer<AllureResultsWriter>> batch = new ArrayList<>(batchSize);
+    while (true) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.drainTo(batch, batchSize - 1);
+      run(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Performs a batch of writes and records their completion.
+   *
+   * @param batch the writes
+   */
+  private void run(List<Consumer<AllureResultsWriter>> batch) {
+    int failures = 0;
+    for (Consumer<AllureResultsWriter> write : batch) {
+      try {
+        write.accept(delegate);
+      } catch (RuntimeException e) {
+        failures++;
+        logger.error("Failed to write Allure results", e);
+      }
+    }
+    synchronized (this) {
+      completed += batch.size();
+      failed += failures;
+      notifyAll();
+    }
+  }
+}
@@ -0,0 +1,306 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+
+/**
+ * In-memory stand-in for the Node.js Book API, for benchmarks and harness experiments that should
+ * not depend on the real service.
+ *
+ * <p>It serves {@code /api/books} with the same routes, tokens ({@code user-token}, {@code
+ * admin-token}), status codes and error messages the test classes expect, and pages like the real
+ * API with {@code Array.slice} semantics. There is no rate limiting. Requests are handled on
+ * virtual threads.
+ */
+public class BookApiStub implements AutoCloseable {
+
+  private static final String BASE_PATH = "/api/books";
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Logger logger = LogManager.getLogger(BookApiStub.class);
+
+  private final HttpServer server;
+  private final TreeMap<Integer, Book> books = new TreeMap<>();
+  private int nextId = 1;
+
+  static {
+    // Without TCP_NODELAY, small responses wait for the client's delayed ACK (~40 ms each)
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  /**
+   * Starts the stub on the loopback interface.
+   *
+   * @param port the port, or 0 for any free port
+   * @throws IOException if the server cannot be started
+   */
+  public BookApiStub(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext(BASE_PATH, this::handle);
+    server.start();
+  }
+
+  /**
+   * Returns the base URI of the stub, to be used as {@code RestAssured.baseURI}.
+   *
+   * @return the base URI
+   */
+  public String baseUri() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  /** Stops the stub. */
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * Routes a request.
+   *
+   * @param exchange the exchange
+   * @throws IOException if the response cannot be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String path = exchange.getRequestURI().getRawPath().substring(BASE_PATH.length());
+      String id = path.startsWith("/") ? path.substring(1) : path;
+      Map<String, String> query = parseQuery(exchange.getRequestURI());
+      String role = role(exchange);
+      Reply reply =
+          switch (exchange.getRequestMethod()) {
+            case "GET" -> id.equals("search") ? search(query) : get(id, query);
+            case "POST" -> role == null ? unauthorized() : create(readBook(exchange));
+            case "PUT" -> role == null ? unauthorized() : update(id, readBook(exchange));
+            case "DELETE" -> delete(id, role);
+            default -> new Reply(405, Map.of("error", "Method not allowed"));
+          };
+      byte[] body =
+          reply.body() == null ? new byte[0] : objectMapper.writeValueAsBytes(reply.body());
+      if (body.length > 0) {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+      }
+      exchange.sendResponseHeaders(reply.status(), body.length == 0 ? -1 : body.length);
+      exchange.getResponseBody().write(body);
+    } catch (RuntimeException e) {
+      logger.error("Book API stub failed on {}", exchange.getRequestURI(), e);
+      throw e;
+    }
+  }
+
+  private synchronized Reply get(String id, Map<String, String> query) {
+    if (id.isEmpty()) {
+      int page = parseIntOr(query.get("page"), 1);
+      int limit = parseIntOr(query.get("limit"), 10);
+      List<Book> all = new ArrayList<>(books.values());
+      return new Reply(200, slice(all, (page - 1) * limit, page * limit));
+    }
+    Book book = books.get(parseIntOr(id, -1));
+    return book == null ? notFound() : new Reply(200, book);
+  }
+
+  private synchronized Reply search(Map<String, String> query) {
+    String title = query.getOrDefault("title", "").toLowerCase();
+    String author = query.getOrDefault("author", "").toLowerCase();
+    if (title.isEmpty() && author.isEmpty()) {
+      return new Reply(
+          400, Map.of("error", "Please provide at least a title or author for search"));
+    }
+    List<Book> found =
+        books.values().stream()
+            .filter(book -> title.isEmpty() || book.getTitle().toLowerCase().contains(title))
+            .filter(book -> author.isEmpty() || book.getAuthor().toLowerCase().contains(author))
+            .toList();
+    return found.isEmpty()
+        ? new Reply(404, Map.of("error", "Books not found for search"))
+        : new Reply(200, found);
+  }
+
+  private synchronized Reply create(Book book) {
+    if (book == null || isBlank(book.getTitle()) || isBlank(book.getAuthor())) {
+      return new Reply(400, Map.of("error", "Both title and author are required."));
+    }
+    if (book.getId() != 0) {
+      return new Reply(400, Map.of("error", "ID must not be provided when creating a book"));
+    }
+    boolean duplicate =
+        books.values().stream()
+            .anyMatch(
+                existing ->
+                    existing.getTitle().equals(book.getTitle())
+                        && existing.getAuthor().equals(book.getAuthor()));
+    if (duplicate) {
+      return new Reply(
+          409, Map.of("error", "A book with the same title and author already exists"));
+    }
+    Book created = new Book(nextId++, book.getTitle(), book.getAuthor());
+    books.put(created.getId(), created);
+    return new Reply(201, created);
+  }
+
+  private synchronized Reply update(String id, Book changes) {
+    Book book = books.get(parseIntOr(id, -1));
+    if (book == null) {
+      return notFound();
+    }
+    if (changes != null && changes.getId() != 0 && changes.getId() != book.getId()) {
+      return new Reply(400, Map.of("error", "Updating book ID is not allowed."));
+    }
+    if (changes != null && !isBlank(changes.getTitle())) {
+      book.setTitle(changes.getTitle());
+    }
+    if (changes != null && !isBlank(changes.getAuthor())) {
+      book.setAuthor(changes.getAuthor());
+    }
+    return new Reply(200, book);
+  }
+
+  private synchronized Reply delete(String id, String role) {
+    if (role == null) {
+      return unauthorized();
+    }
+    if (!role.equals("admin")) {
+      return new Reply(403, Map.of("error", "Forbidden. Admin access required."));
+    }
+    if (id.equals("reset")) {
+      books.clear();
+      nextId = 1;
+      return new Reply(204, null);
+    }
+    return books.remove(parseIntOr(id, -1)) == null ? notFound() : new Reply(204, null);
+  }
+
+  /**
+   * Returns the role of the bearer token of a request.
+   *
+   * @param exchange the exchange
+   * @return {@code user}, {@code admin} or null when no valid token is given
+   */
+  private static String role(HttpExchange exchange) {
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null) {
+      return null;
+    }
+    return switch (authorization.replaceFirst("^Bearer ", "")) {
+      case "user-token" -> "user";
+      case "admin-token" -> "admin";
+      default -> null;
+    };
+  }
+
+  /**
+   * Reads the request body as a book.
+   *
+   * @param exchange the exchange
+   * @return the book, or null if the body is empty or not a book
+   * @throws IOException if the body cannot be read
+   */
+  private static Book readBook(HttpExchange exchange) throws IOException {
+    byte[] body = exchange.getRequestBody().readAllBytes();
+    if (body.length == 0) {
+      return null;
+    }
+    try {
+      Map<String, Object> fields = objectMapper.readValue(body, new TypeReference<>() {});
+      if (fields == null) {
+        return null;
+      }
+      // An ID of 0 is no ID, as sent by Book; any other non-int ID is a provided ID of no book
+      Object id = fields.get("id");
+      return new Book(
+          id instanceof Integer number ? number : id == null ? 0 : -1,
+          (String) fields.get("title"),
+          (String) fields.get("author"));
+    } catch (JsonProcessingException | ClassCastException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Slices a list like JavaScript's {@code Array.prototype.slice}, where negative indexes count
+   * from the end.
+   *
+   * @param list the list
+   * @param start the start index
+   * @param end the exclusive end index
+   * @return the slice
+   */
+  static <T> List<T> slice(List<T> list, int start, int end) {
+    int size = list.size();
+    int from = start < 0 ? Math.max(size + start, 0) : Math.min(start, size);
+    int to = end < 0 ? Math.max(size + end, 0) : Math.min(end, size);
+    return from < to ? new ArrayList<>(list.subList(from, to)) : List.of();
+  }
+
+  private static Map<String, String> parseQuery(URI uri) {
+    Map<String, String> query = new HashMap<>();
+    if (uri.getRawQuery() != null) {
+      for (String pair : uri.getRawQuery().split("&")) {
+        String[] parts = pair.split("=", 2);
+        query.put(
+            URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+            parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+      }
+    }
+    return query;
+  }
+
+  private static int parseIntOr(String value, int fallback) {
+    try {
+      return value == null ? fallback : Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  private static Reply notFound() {
+    return new Reply(404, Map.of("error", "Book not found"));
+  }
+
+  private static Reply unauthorized() {
+    return new Reply(401, Map.of("error", "Unauthorized. No token provided."));
+  }
+
+  /**
+   * Runs the stub in place of the Book API.
+   *
+   * @param args the port, default 3000
+   * @throws IOException if the server cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    BookApiStub stub = new BookApiStub(args.length > 0 ? Integer.parseInt(args[0]) : 3000);
+    logger.info("Book API stub listening on {}{}", stub.baseUri(), BASE_PATH);
+  }
+
+  /**
+   * A response of the stub.
+   *
+   * @param status the HTTP status
+   * @param body the body to serialize as JSON, or null for none
+   */
+  private record Reply(int status, Object body) {}
+}
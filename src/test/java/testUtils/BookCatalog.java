@@ -0,0 +1,534 @@
+package testUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import pojos.Book;
+
+/**
+ * In-memory mirror of the books in the Book API, used to compute the exact expected result of any
+ * pagination or search query.
+ *
+ * <p>{@link BookCatalogFilter} records every book the harness creates, updates or deletes. The
+ * mirror is <em>complete</em> once it has seen a reset of the API or has been {@linkplain
+ * #sync(List) synced} with the full list of books; from then on {@link #page(int, int)} and {@link
+ * #search(String, String)} return exactly what the API should return. Before that, search results
+ * are a subset of the API's results and paging is not available.
+ *
+ * <p>Books are stored in insertion order, the order of the API's list. Lookups by ID go through a
+ * primitive int-keyed hash map, a page is found by rank in a Fenwick tree over the live entries,
+ * and searches only verify the books on the shortest posting list of a lowercase trigram index of
+ * titles and authors, so queries on catalogues of millions of books take microseconds.
+ */
+public class BookCatalog {
+
+  private static final BookCatalog INSTANCE = new BookCatalog();
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final IntIntMap positionsById = new IntIntMap();
+  private final Map<Long, IntList> titleTrigrams = new HashMap<>();
+  private final Map<Long, IntList> authorTrigrams = new HashMap<>();
+
+  // Books by insertion position; deleted positions hold null
+  private Book[] books = new Book[INITIAL_CAPACITY];
+  private String[] lowerTitles = new String[INITIAL_CAPACITY];
+  private String[] lowerAuthors = new String[INITIAL_CAPACITY];
+  private int positions;
+  private int size;
+  private FenwickTree live = new FenwickTree(INITIAL_CAPACITY);
+  private boolean complete;
+
+  /**
+   * Returns the catalog shared by the harness.
+   *
+   * @return the catalog
+   */
+  public static BookCatalog get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns whether the catalog mirrors every book of the API.
+   *
+   * @return true after a reset or sync has been seen
+   */
+  public boolean isComplete() {
+    lock.readLock().lock();
+    try {
+      return complete;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of mirrored books.
+   *
+   * @return the number of books
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Records a created book, appended to the end of the list.
+   *
+   * @param book the book as returned by the API
+   */
+  public void add(Book book) {
+    lock.writeLock().lock();
+    try {
+      if (positionsById.get(book.getId()) >= 0) {
+        remove(book.getId());
+      }
+      append(book);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Records an updated book, which keeps its position in the list.
+   *
+   * @param book the book as returned by the API
+   */
+  public void update(Book book) {
+    lock.writeLock().lock();
+    try {
+      int position = positionsById.get(book.getId());
+      if (position < 0) {
+        append(book);
+        return;
+      }
+      books[position] = copy(book);
+      index(position);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Records a deleted book.
+   *
+   * @param id the book ID
+   */
+  public void remove(int id) {
+    lock.writeLock().lock();
+    try {
+      int position = positionsById.remove(id);
+      if (position >= 0) {
+        books[position] = null;
+        lowerTitles[position] = null;
+        lowerAuthors[position] = null;
+        live.add(position, -1);
+        size--;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Records a reset of the API, after which the catalog is empty and complete. */
+  public void clear() {
+    sync(List.of());
+  }
+
+  /**
+   * Replaces the mirror with the full list of books of the API and marks it complete.
+   *
+   * @param allBooks all books in API order
+   */
+  public void sync(List<Book> allBooks) {
+    lock.writeLock().lock();
+    try {
+      int capacity = INITIAL_CAPACITY;
+      while (capacity < allBooks.size()) {
+        capacity *= 2;
+      }
+      books = new Book[capacity];
+      lowerTitles = new String[capacity];
+      lowerAuthors = new String[capacity];
+      live = new FenwickTree(capacity);
+      positionsById.clear();
+      titleTrigrams.clear();
+      authorTrigrams.clear();
+      positions = 0;
+      size = 0;
+      allBooks.forEach(this::append);
+      complete = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a mirrored book.
+   *
+   * @param id the book ID
+   * @return a copy of the book, or null if it is not mirrored
+   */
+  public Book find(int id) {
+    lock.readLock().lock();
+    try {
+      int position = positionsById.get(id);
+      return position < 0 ? null : copy(books[position]);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns all mirrored books in API order.
+   *
+   * @return copies of the books
+   */
+  public List<Book> all() {
+    return page(1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the books the API lists for a page, i.e. {@code books.slice((page - 1) * limit, page *
+   * limit)} with JavaScript's {@code slice} semantics for negative and out-of-range values.
+   *
+   * @param page the page number
+   * @param limit the page size
+   * @return copies of the books on the page
+   * @throws IllegalStateException if the catalog is not complete
+   */
+  public List<Book> page(int page, int limit) {
+    lock.readLock().lock();
+    try {
+      if (!complete) {
+        throw new IllegalStateException("Book catalog is not complete, sync it first");
+      }
+      long start = ((long) page - 1) * limit;
+      long end = (long) page * limit;
+      int from = (int) (start < 0 ? Math.max(size + start, 0) : Math.min(start, size));
+      int to = (int) (end < 0 ? Math.max(size + end, 0) : Math.min(end, size));
+      List<Book> result = new ArrayList<>(Math.max(0, to - from));
+      for (int rank = from; rank < to; rank++) {
+        result.add(copy(books[live.select(rank)]));
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the books the API finds for a search: books whose title and author contain the given
+   * values, ignoring case, in API order.
+   *
+   * @param title the title to search for, or null
+   * @param author the author to search for, or null
+   * @return copies of the matching books; a subset of the API's result if the catalog is not
+   *     complete
+   * @throws IllegalArgumentException if neither title nor author is given
+   */
+  public List<Book> search(String title, String author) {
+    String titleQuery = title == null ? "" : title.toLowerCase(Locale.ROOT);
+    String authorQuery = author == null ? "" : author.toLowerCase(Locale.ROOT);
+    if (titleQuery.isEmpty() && authorQuery.isEmpty()) {
+      throw new IllegalArgumentException("Provide at least a title or author for search");
+    }
+    lock.readLock().lock();
+    try {
+      IntList titleCandidates = candidates(titleTrigrams, titleQuery);
+      IntList authorCandidates = candidates(authorTrigrams, authorQuery);
+      IntList candidates =
+          titleCandidates == null
+                  || (authorCandidates != null && authorCandidates.size < titleCandidates.size)
+              ? authorCandidates
+              : titleCandidates;
+
+      int[] matches;
+      int count = 0;
+      if (candidates == null) {
+        matches = new int[size];
+        for (int position = 0; position < positions; position++) {
+          if (matches(position, titleQuery, authorQuery)) {
+            matches[count++] = position;
+          }
+        }
+      } else {
+        matches = new int[candidates.size];
+        for (int i = 0; i < candidates.size; i++) {
+          if (matches(candidates.values[i], titleQuery, authorQuery)) {
+            matches[count++] = candidates.values[i];
+          }
+        }
+        // Postings of updated books are out of order and may repeat
+        Arrays.sort(matches, 0, count);
+      }
+      List<Book> result = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        if (i == 0 || matches[i] != matches[i - 1]) {
+          result.add(copy(books[matches[i]]));
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean matches(int position, String titleQuery, String authorQuery) {
+    return books[position] != null
+        && lowerTitles[position].contains(titleQuery)
+        && lowerAuthors[position].contains(authorQuery);
+  }
+
+  /**
+   * Returns the shortest posting list of the trigrams of a query.
+   *
+   * @param index the trigram index
+   * @param query the lowercase query
+   * @return the postings, an empty list if a trigram is unknown, or null if the query is too short
+   *     to use the index
+   */
+  private static IntList candidates(Map<Long, IntList> index, String query) {
+    if (query.length() < 3) {
+      return null;
+    }
+    IntList shortest = null;
+    for (int i = 0; i + 3 <= query.length(); i++) {
+      IntList postings = index.get(trigram(query, i));
+      if (postings == null) {
+        return new IntList();
+      }
+      if (shortest == null || postings.size < shortest.size) {
+        shortest = postings;
+      }
+    }
+    return shortest;
+  }
+
+  private void append(Book book) {
+    if (positions == books.length) {
+      int capacity = books.length * 2;
+      books = Arrays.copyOf(books, capacity);
+      lowerTitles = Arrays.copyOf(lowerTitles, capacity);
+      lowerAuthors = Arrays.copyOf(lowerAuthors, capacity);
+      live = live.grow(capacity);
+    }
+    int position = positions++;
+    books[position] = copy(book);
+    positionsById.put(book.getId(), position);
+    live.add(position, 1);
+    size++;
+    index(position);
+  }
+
+  /**
+   * Indexes the title and author of the book at a position. Postings of previous values are left
+   * in place and filtered out when searching.
+   *
+   * @param position the position
+   */
+  private void index(int position) {
+    Book book = books[position];
+    lowerTitles[position] = lower(book.getTitle());
+    lowerAuthors[position] = lower(book.getAuthor());
+    addTrigrams(titleTrigrams, lowerTitles[position], position);
+    addTrigrams(authorTrigrams, lowerAuthors[position], position);
+  }
+
+  private static void addTrigrams(Map<Long, IntList> index, String value, int position) {
+    for (int i = 0; i + 3 <= value.length(); i++) {
+      IntList postings = index.computeIfAbsent(trigram(value, i), key -> new IntList());
+      if (postings.size == 0 || postings.values[postings.size - 1] != position) {
+        postings.add(position);
+      }
+    }
+  }
+
+  private static long trigram(String value, int offset) {
+    return ((long) value.charAt(offset) << 32)
+        | ((long) value.charAt(offset + 1) << 16)
+        | value.charAt(offset + 2);
+  }
+
+  private static String lower(String value) {
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+
+  private static Book copy(Book book) {
+    return new Book(book.getId(), book.getTitle(), book.getAuthor());
+  }
+
+  /** Growable list of ints. */
+  private static class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+  /** Open-addressing hash map from int keys to non-negative int values. */
+  private static class IntIntMap {
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int DELETED = Integer.MIN_VALUE + 1;
+
+    private int[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int used;
+
+    private static int[] newKeys(int capacity) {
+      int[] keys = new int[capacity];
+      Arrays.fill(keys, FREE);
+      return keys;
+    }
+
+    private int slot(int key) {
+      return (key * 0x9E3779B9) & (keys.length - 1);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value, or -1 if absent
+     */
+    private int get(int key) {
+      for (int slot = slot(key); keys[slot] != FREE; slot = (slot + 1) & (keys.length - 1)) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return -1;
+    }
+
+    private void put(int key, int value) {
+      if ((used + 1) * 2 > keys.length) {
+        rehash(keys.length * 2);
+      }
+      int target = -1;
+      int slot = slot(key);
+      for (; keys[slot] != FREE; slot = (slot + 1) & (keys.length - 1)) {
+        if (keys[slot] == key) {
+          values[slot] = value;
+          return;
+        }
+        if (keys[slot] == DELETED && target < 0) {
+          target = slot;
+        }
+      }
+      if (target < 0) {
+        target = slot;
+        used++;
+      }
+      keys[target] = key;
+      values[target] = value;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @return the removed value, or -1 if absent
+     */
+    private int remove(int key) {
+      for (int slot = slot(key); keys[slot] != FREE; slot = (slot + 1) & (keys.length - 1)) {
+        if (keys[slot] == key) {
+          keys[slot] = DELETED;
+          return values[slot];
+        }
+      }
+      return -1;
+    }
+
+    private void clear() {
+      keys = newKeys(INITIAL_CAPACITY);
+      values = new int[INITIAL_CAPACITY];
+      used = 0;
+    }
+
+    private void rehash(int capacity) {
+      int[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = newKeys(capacity);
+      values = new int[capacity];
+      used = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != FREE && oldKeys[i] != DELETED) {
+          put(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+  }
+
+  /** Fenwick tree of 0/1 liveness flags, answering "position of the k-th live entry". */
+  private static class FenwickTree {
+    private final int[] tree;
+
+    private FenwickTree(int capacity) {
+      tree = new int[capacity + 1];
+    }
+
+    private void add(int position, int delta) {
+      for (int i = position + 1; i < tree.length; i += i & -i) {
+        tree[i] += delta;
+      }
+    }
+
+    /**
+     * Finds the position of a live entry by rank.
+     *
+     * @param rank the 0-based rank among live entries
+     * @return the position
+     */
+    private int select(int rank) {
+      int position = 0;
+      int remaining = rank + 1;
+      for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+        int next = position + step;
+        if (next < tree.length && tree[next] < remaining) {
+          position = next;
+          remaining -= tree[next];
+        }
+      }
+      return position;
+    }
+
+    /**
+     * Returns a tree with more capacity and the same counts.
+     *
+     * @param capacity the new capacity
+     * @return the new tree
+     */
+    private FenwickTree grow(int capacity) {
+      FenwickTree grown = new FenwickTree(capacity);
+      for (int position = 0; position + 1 < tree.length; position++) {
+        int count = prefix(position) - (position == 0 ? 0 : prefix(position - 1));
+        if (count != 0) {
+          grown.add(position, count);
+        }
+      }
+      return grown;
+    }
+
+    private int prefix(int position) {
+      int sum = 0;
+      for (int i = position + 1; i > 0; i -= i & -i) {
+        sum += tree[i];
+      }
+      return sum;
+    }
+  }
+}
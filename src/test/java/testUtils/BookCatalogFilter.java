@@ -0,0 +1,77 @@
+package testUtils;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import java.net.URI;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+
+/**
+ * RestAssured filter that records the successful writes of the harness in the {@link BookCatalog}:
+ * created books (201), updated books (200), deleted books (204) and resets (204).
+ */
+public class BookCatalogFilter implements Filter {
+
+  private static final Logger logger = LogManager.getLogger(BookCatalogFilter.class);
+
+  private final BookCatalog catalog;
+
+  /**
+   * Creates a filter that records into the given catalog.
+   *
+   * @param catalog the catalog
+   */
+  public BookCatalogFilter(BookCatalog catalog) {
+    this.catalog = catalog;
+  }
+
+  @Override
+  public Response filter(
+      FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec,
+      FilterContext filterContext) {
+    Response response = filterContext.next(requestSpec, responseSpec);
+    int status = response.getStatusCode();
+    try {
+      switch (requestSpec.getMethod()) {
+        case "POST" -> {
+          if (status == 201) {
+            catalog.add(response.as(Book.class));
+          }
+        }
+        case "PUT" -> {
+          if (status == 200) {
+            catalog.update(response.as(Book.class));
+          }
+        }
+        case "DELETE" -> {
+          if (status == 204) {
+            recordDelete(requestSpec);
+          }
+        }
+        default -> {}
+      }
+    } catch (RuntimeException e) {
+      logger.warn(
+          "Failed to record {} {} in the book catalog",
+          requestSpec.getMethod(),
+          requestSpec.getURI(),
+          e);
+    }
+    return response;
+  }
+
+  private void recordDelete(FilterableRequestSpecification requestSpec) {
+    String path = URI.create(requestSpec.getURI()).getPath();
+    String lastSegment = path.substring(path.lastIndexOf('/') + 1);
+    if (lastSegment.equals("reset")) {
+      catalog.clear();
+    } else {
+      catalog.remove(Integer.parseInt(lastSegment));
+    }
+  }
+}
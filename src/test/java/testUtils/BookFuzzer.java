@@ -0,0 +1,653 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.TestContext;
+
+/**
+ * Property-based fuzzer of Book API requests.
+ *
+ * <p>It generates create, get, update and delete requests with fuzzed path IDs and {@code Book}
+ * payloads: oversized and Unicode strings, wrong JSON types, missing and extra fields, boundary
+ * integers and malformed JSON. Every case is derived from the seed and its index alone, so that
+ * the cases can be generated on many threads at once and any case can be reproduced with {@link
+ * #generate(long)}. {@link #run} sends the cases in parallel through a property that returns the
+ * violated invariant, if any, and shrinks the first failing case of each kind of violation to a
+ * minimal case that still violates it: fields are removed, strings cut down, numbers moved towards
+ * zero and nested values emptied for as long as the violation persists.
+ *
+ * <pre>{@code
+ * BookFuzzer fuzzer = new BookFuzzer(seed, existingBookIds);
+ * BookFuzzer.Result result = fuzzer.run(2000, 16, this::check);
+ * }</pre>
+ */
+public class BookFuzzer {
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Logger logger = LogManager.getLogger(BookFuzzer.class);
+
+  /** Maximum number of property runs spent shrinking one failing case. */
+  private static final int SHRINK_BUDGET = 300;
+
+  /** Maximum number of failing cases shrunk in a run, one per kind of violation. */
+  private static final int MAX_SHRUNK_FAILURES = 10;
+
+  /** Maximum length of the oversized strings. */
+  private static final int MAX_STRING_LENGTH = 65_536;
+
+  private static final String[] TRICKY_STRINGS = {
+    "",
+    " ",
+    "\t\n",
+    "null",
+    "undefined",
+    "NaN",
+    "0",
+    "-1",
+    "true",
+    "[]",
+    "{}",
+    "<script>alert(1)</script>",
+    "' OR '1'='1' --",
+    "\"; DROP TABLE books; --",
+    "../../../../etc/passwd",
+    "%00%2F%5C",
+    "${jndi:ldap://localhost/a}",
+    "{{7*7}}",
+    "\\u0000\\",
+  };
+
+  private static final String[] UNICODE_STRINGS = {
+    "\u03A9mega \u00DCn\u00EFc\u00F6d\u00E9",
+    "\u65E5\u672C\u8A9E\u306E\u30BF\u30A4\u30C8\u30EB",
+    "\u0645\u0631\u062D\u0628\u0627 \u202Eevil",
+    "e\u0301\u0301\u0301",
+    "\u200B\u200D\uFEFF",
+    "\uD83D\uDE00\uD83D\uDCDA\uD83D\uDD25",
+    "\uD83D",
+    "\u0000",
+  };
+
+  private static final Object[] BOUNDARY_NUMBERS = {
+    0,
+    1,
+    -1,
+    Integer.MAX_VALUE,
+    Integer.MIN_VALUE,
+    Long.MAX_VALUE,
+    Long.MIN_VALUE,
+    9007199254740993L,
+    new BigInteger("123456789012345678901234567890"),
+    0.5,
+    -0.0,
+    1e308,
+    4.9e-324,
+  };
+
+  private static final String[] NUMERIC_ID_STRINGS = {
+    "007",
+    "+1",
+    "1e3",
+    "0x10",
+    "1.5",
+    "-0",
+    " 1",
+    "1 ",
+    "1,2",
+    "\u0661\u0662\u0663",
+    "99999999999999999999",
+  };
+
+  private static final String[] EXTRA_FIELD_NAMES = {"__proto__", "constructor", "ID", "isbn"};
+
+  /** The operations that cases exercise. */
+  public enum Operation {
+    CREATE,
+    GET,
+    UPDATE,
+    DELETE
+  }
+
+  /**
+   * A request body that is not valid JSON.
+   *
+   * @param text the body text
+   */
+  public record RawBody(String text) {}
+
+  /**
+   * A fuzzed request.
+   *
+   * @param index the index of the case in the run, with the seed enough to generate it again
+   * @param operation the operation
+   * @param id the path ID, or null for a create
+   * @param body the JSON value of the body, a {@link RawBody}, or null to send no body
+   */
+  public record FuzzCase(long index, Operation operation, Object id, Object body) {
+
+    /**
+     * Returns the body to send.
+     *
+     * @return the body text, or null to send no body
+     */
+    public String bodyText() {
+      if (body == null) {
+        return null;
+      }
+      if (body instanceof RawBody raw) {
+        return raw.text();
+      }
+      try {
+        return objectMapper.writeValueAsString(body);
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Cannot serialize the body of case " + index, e);
+      }
+    }
+
+    /**
+     * Returns a one-line description of the case, with long values abbreviated.
+     *
+     * @return the description
+     */
+    public String describe() {
+      StringBuilder description = new StringBuilder(operation.name());
+      if (id != null) {
+        description.append(" id=").append(abbreviate(quote(id)));
+      }
+      String text = bodyText();
+      description.append(" body=").append(text == null ? "<none>" : abbreviate(text));
+      return description.toString();
+    }
+
+    private FuzzCase withId(Object newId) {
+      return new FuzzCase(index, operation, newId, body);
+    }
+
+    private FuzzCase withBody(Object newBody) {
+      return new FuzzCase(index, operation, id, newBody);
+    }
+  }
+
+  /**
+   * An invariant violated by a case.
+   *
+   * @param kind the kind of violation, the same for failures with the same cause
+   * @param detail what was observed
+   */
+  public record Violation(String kind, String detail) {}
+
+  /**
+   * A failing case, and the minimal case it was shrunk to.
+   *
+   * @param original the generated case
+   * @param shrunk the minimal case that still violates the invariant, the original if not shrunk
+   * @param violation the violation of the shrunk case
+   * @param shrinkRuns the number of property runs spent shrinking
+   */
+  public record Failure(FuzzCase original, FuzzCase shrunk, Violation violation, int shrinkRuns) {}
+
+  /**
+   * The outcome of a run.
+   *
+   * @param seed the seed of the run
+   * @param cases the number of cases run
+   * @param elapsedNanos the duration of the parallel phase, without shrinking
+   * @param failuresByKind the number of failing cases by kind of violation
+   * @param failures the shrunk failures, one per kind of violation and operation
+   */
+  public record Result(
+      long seed,
+      long cases,
+      long elapsedNanos,
+      Map<String, Long> failuresByKind,
+      List<Failure> failures) {
+
+    /**
+     * Returns the number of cases run per minute in the parallel phase.
+     *
+     * @return the throughput
+     */
+    public long casesPerMinute() {
+      return elapsedNanos == 0 ? 0 : cases * 60_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * Returns a report of the run for logs and attachments.
+     *
+     * @return the report
+     */
+    public String report() {
+      StringBuilder report =
+          new StringBuilder(
+              String.format(
+                  "%d cases with seed %d in %d ms (%d cases/min), failures by kind: %s%n",
+                  cases,
+                  seed,
+                  elapsedNanos / 1_000_000,
+                  casesPerMinute(),
+                  failuresByKind));
+      for (Failure failure : failures) {
+        report
+            .append(failure.violation().kind())
+            .append(": ")
+            .append(failure.violation().detail())
+            .append(System.lineSeparator())
+            .append("  minimal case:  ")
+            .append(failure.shrunk().describe())
+            .append(System.lineSeparator())
+            .append("  original case: #")
+            .append(failure.original().index())
+            .append(" ")
+            .append(failure.original().describe())
+            .append(" (shrunk in ")
+            .append(failure.shrinkRuns())
+            .append(" runs)")
+            .append(System.lineSeparator());
+      }
+      return report.toString();
+    }
+  }
+
+  private final long seed;
+  private final List<Integer> existingIds;
+
+  /**
+   * Creates a fuzzer.
+   *
+   * @param seed the seed the cases are derived from
+   * @param existingIds IDs of existing books, used as the path ID of some get and update cases so
+   *     that payloads also reach the validation of existing books
+   */
+  public BookFuzzer(long seed, List<Integer> existingIds) {
+    this.seed = seed;
+    this.existingIds = List.copyOf(existingIds);
+  }
+
+  /**
+   * Generates a case. The same seed and index always give the same case.
+   *
+   * @param index the index of the case
+   * @return the case
+   */
+  public FuzzCase generate(long index) {
+    SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+    Operation operation = Operation.values()[random.nextInt(Operation.values().length)];
+    return switch (operation) {
+      case CREATE -> new FuzzCase(index, operation, null, body(random));
+      case GET -> new FuzzCase(index, operation, id(random, true), null);
+      case UPDATE -> new FuzzCase(index, operation, id(random, true), body(random));
+      case DELETE -> new FuzzCase(index, operation, id(random, false), null);
+    };
+  }
+
+  /**
+   * Runs cases in parallel on virtual threads and shrinks the first failing case of each kind of
+   * violation and operation.
+   *
+   * @param cases the number of cases
+   * @param threads the number of cases run at a time
+   * @param property returns the invariant a case violates, or null if it holds
+   * @return the result
+   * @throws InterruptedException if interrupted while waiting for the cases
+   */
+  public Result run(long cases, int threads, Function<FuzzCase, Violation> property)
+      throws InterruptedException {
+    AtomicLong next = new AtomicLong();
+    Map<String, LongAdder> failuresByKind = new ConcurrentHashMap<>();
+    Map<String, FuzzCase> firstFailures = new ConcurrentHashMap<>();
+    Map<String, Violation> firstViolations = new ConcurrentHashMap<>();
+    ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        workers.add(
+            executor.submit(
+                TestContext.wrap(
+                    () -> {
+                      long index;
+                      while ((index = next.getAndIncrement()) < cases) {
+                        FuzzCase fuzzCase = generate(index);
+                        Violation violation = property.apply(fuzzCase);
+                        if (violation != null) {
+                          failuresByKind
+                              .computeIfAbsent(violation.kind(), kind -> new LongAdder())
+                              .increment();
+                          String signature = violation.kind() + " " + fuzzCase.operation();
+                          if (firstFailures.putIfAbsent(signature, fuzzCase) == null) {
+                            firstViolations.put(signature, violation);
+                          }
+                        }
+                      }
+                    })));
+      }
+      for (Future<?> worker : workers) {
+        try {
+          worker.get();
+        } catch (ExecutionException e) {
+          errors.add(e.getCause());
+        }
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    if (!errors.isEmpty()) {
+      throw new IllegalStateException("Fuzzing property failed to run", errors.peek());
+    }
+
+    List<Failure> failures = new ArrayList<>();
+    new TreeMap<>(firstFailures)
+        .entrySet().stream()
+            .limit(MAX_SHRUNK_FAILURES)
+            .forEach(
+                entry ->
+                    failures.add(
+                        shrink(entry.getValue(), firstViolations.get(entry.getKey()), property)));
+    Map<String, Long> counts =
+        failuresByKind.entrySet().stream()
+            .collect(
+                Collectors.toMap(
+                    Map.Entry::getKey, entry -> entry.getValue().sum(), Long::sum, TreeMap::new));
+    return new Result(seed, cases, elapsedNanos, counts, failures);
+  }
+
+  /**
+   * Shrinks a failing case: repeatedly replaces it with the first simpler candidate that violates
+   * the same kind of invariant, until no candidate does or the budget is spent.
+   *
+   * @param failing the failing case
+   * @param violation its violation
+   * @param property the property
+   * @return the failure with the minimal case found
+   */
+  public Failure shrink(
+      FuzzCase failing, Violation violation, Function<FuzzCase, Violation> property) {
+    FuzzCase current = failing;
+    Violation currentViolation = violation;
+    int runs = 0;
+    boolean shrunk = true;
+    while (shrunk && runs < SHRINK_BUDGET) {
+      shrunk = false;
+      for (FuzzCase candidate : candidates(current)) {
+        if (runs++ >= SHRINK_BUDGET) {
+          break;
+        }
+        Violation candidateViolation = property.apply(candidate);
+        if (candidateViolation != null && candidateViolation.kind().equals(violation.kind())) {
+          current = candidate;
+          currentViolation = candidateViolation;
+          shrunk = true;
+          break;
+        }
+      }
+    }
+    logger.info(
+        "Shrunk case #{} ({}) in {} runs to {}",
+        failing.index(),
+        violation.kind(),
+        runs,
+        current.describe());
+    return new Failure(failing, current, currentViolation, runs);
+  }
+
+  /**
+   * Returns the simpler variants of a case, simplest first.
+   *
+   * @param fuzzCase the case
+   * @return the candidates
+   */
+  static List<FuzzCase> candidates(FuzzCase fuzzCase) {
+    List<FuzzCase> candidates = new ArrayList<>();
+    if (fuzzCase.body() != null) {
+      for (Object body : simpler(fuzzCase.body())) {
+        candidates.add(fuzzCase.withBody(body));
+      }
+    }
+    if (fuzzCase.id() != null) {
+      for (Object id : simpler(fuzzCase.id())) {
+        if (id instanceof String || id instanceof Number) {
+          candidates.add(fuzzCase.withId(id));
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Returns the simpler variants of a JSON value, simplest first. The variants of a value are
+   * strictly smaller, so that shrinking terminates.
+   *
+   * @param value the value
+   * @return the variants
+   */
+  static List<Object> simpler(Object value) {
+    Set<Object> variants = new LinkedHashSet<>();
+    if (value instanceof Map<?, ?> map) {
+      if (!map.isEmpty()) {
+        variants.add(Map.of());
+      }
+      for (Object key : map.keySet()) {
+        Map<Object, Object> without = new LinkedHashMap<>(map);
+        without.remove(key);
+        variants.add(without);
+      }
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        for (Object simpler : simpler(entry.getValue())) {
+          Map<Object, Object> replaced = new LinkedHashMap<>(map);
+          replaced.put(entry.getKey(), simpler);
+          variants.add(replaced);
+        }
+      }
+    } else if (value instanceof List<?> list) {
+      if (!list.isEmpty()) {
+        variants.add(List.of());
+      }
+      for (int i = 0; i < list.size(); i++) {
+        List<Object> without = new ArrayList<>(list);
+        without.remove(i);
+        variants.add(without);
+      }
+    } else if (value instanceof String text) {
+      if (!text.isEmpty()) {
+        variants.add("");
+        variants.add(text.substring(0, text.length() / 2));
+        variants.add(text.substring(text.length() / 2 + (text.length() == 1 ? 1 : 0)));
+        variants.add(text.substring(0, text.length() - 1));
+        String ascii = text.replaceAll("[^\\x20-\\x7E]", "a");
+        if (!ascii.equals(text)) {
+          variants.add(ascii);
+        }
+      }
+    } else if (value instanceof RawBody raw) {
+      for (Object text : simpler(raw.text())) {
+        variants.add(new RawBody((String) text));
+      }
+    } else if (value instanceof BigInteger number) {
+      variants.add(0);
+      variants.add(number.longValue());
+    } else if (value instanceof Double number) {
+      if (number != 0.0 || 1 / number < 0) {
+        variants.add(0);
+        variants.add((long) number.doubleValue());
+      }
+    } else if (value instanceof Number number) {
+      long longValue = number.longValue();
+      if (longValue != 0) {
+        variants.add(0);
+        variants.add(longValue / 2);
+        if (longValue < 0 && longValue != Long.MIN_VALUE) {
+          variants.add(-longValue);
+        }
+      }
+    } else if (Boolean.TRUE.equals(value)) {
+      variants.add(false);
+    }
+    variants.remove(value);
+    return new ArrayList<>(variants);
+  }
+
+  /**
+   * Generates a path ID.
+   *
+   * @param random the random source of the case
+   * @param existing whether the ID of an existing book may be returned
+   * @return the ID, a string or a number
+   */
+  private Object id(SplittableRandom random, boolean existing) {
+    int choice = random.nextInt(100);
+    if (existing && !existingIds.isEmpty() && choice < 30) {
+      return existingIds.get(random.nextInt(existingIds.size()));
+    } else if (choice < 50) {
+      Object number = BOUNDARY_NUMBERS[random.nextInt(BOUNDARY_NUMBERS.length)];
+      return number instanceof Double ? number.toString() : number;
+    } else if (choice < 65) {
+      return NUMERIC_ID_STRINGS[random.nextInt(NUMERIC_ID_STRINGS.length)];
+    } else {
+      return string(random);
+    }
+  }
+
+  /**
+   * Generates a request body: usually a book with some fuzzed, missing or extra fields, sometimes
+   * a JSON value of another type or malformed JSON.
+   *
+   * @param random the random source of the case
+   * @return the body
+   */
+  private Object body(SplittableRandom random) {
+    int choice = random.nextInt(100);
+    if (choice < 4) {
+      return null;
+    } else if (choice < 10) {
+      Object book = book(random);
+      String text;
+      try {
+        text = objectMapper.writeValueAsString(book);
+      } catch (JsonProcessingException e) {
+        text = "{";
+      }
+      return new RawBody(text.substring(0, random.nextInt(Math.max(1, text.length()))));
+    } else if (choice < 16) {
+      return value(random, 1);
+    }
+    return book(random);
+  }
+
+  private Map<String, Object> book(SplittableRandom random) {
+    Map<String, Object> book = new LinkedHashMap<>();
+    if (random.nextInt(100) < 12) {
+      book.put("id", value(random, 0));
+    }
+    for (String field : new String[] {"title", "author"}) {
+      int choice = random.nextInt(100);
+      if (choice < 45) {
+        book.put(field, "Fuzz " + field + " " + Long.toString(random.nextLong(Long.MAX_VALUE), 36));
+      } else if (choice < 88) {
+        book.put(field, value(random, 1));
+      }
+    }
+    int extraFields = random.nextInt(100) < 25 ? 1 + random.nextInt(3) : 0;
+    for (int i = 0; i < extraFields; i++) {
+      String name =
+          random.nextBoolean()
+              ? string(random)
+              : EXTRA_FIELD_NAMES[random.nextInt(EXTRA_FIELD_NAMES.length)];
+      book.put(name, value(random, 1));
+    }
+    return book;
+  }
+
+  /**
+   * Generates a JSON value of any type.
+   *
+   * @param random the random source of the case
+   * @param depth how many more levels of arrays and objects may be nested
+   * @return the value
+   */
+  private Object value(SplittableRandom random, int depth) {
+    int choice = random.nextInt(depth > 0 ? 100 : 80);
+    if (choice < 45) {
+      return string(random);
+    } else if (choice < 65) {
+      return BOUNDARY_NUMBERS[random.nextInt(BOUNDARY_NUMBERS.length)];
+    } else if (choice < 72) {
+      return random.nextBoolean();
+    } else if (choice < 80) {
+      return null;
+    } else if (choice < 90) {
+      List<Object> list = new ArrayList<>();
+      for (int i = random.nextInt(4); i > 0; i--) {
+        list.add(value(random, depth - 1));
+      }
+      return list;
+    } else {
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (int i = random.nextInt(4); i > 0; i--) {
+        map.put(string(random), value(random, depth - 1));
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Generates a string: a tricky or Unicode string, an oversized string of up to {@value
+   * #MAX_STRING_LENGTH} characters, or random code points from all planes.
+   *
+   * @param random the random source of the case
+   * @return the string
+   */
+  private static String string(SplittableRandom random) {
+    int choice = random.nextInt(100);
+    if (choice < 35) {
+      return TRICKY_STRINGS[random.nextInt(TRICKY_STRINGS.length)];
+    } else if (choice < 55) {
+      return UNICODE_STRINGS[random.nextInt(UNICODE_STRINGS.length)];
+    } else if (choice < 67) {
+      String unit = random.nextBoolean() ? "x" : UNICODE_STRINGS[random.nextInt(3)];
+      return unit.repeat(1 + random.nextInt(MAX_STRING_LENGTH / unit.length()));
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = random.nextInt(1, 40); i > 0; i--) {
+      int codePoint =
+          random.nextBoolean() ? random.nextInt(0x20, 0x7F) : random.nextInt(0x80, 0x10FFFF);
+      if (Character.isDefined(codePoint) && Character.getType(codePoint) != Character.SURROGATE) {
+        text.appendCodePoint(codePoint);
+      }
+    }
+    return text.toString();
+  }
+
+  private static String quote(Object value) {
+    return value instanceof String ? "\"" + value + "\"" : String.valueOf(value);
+  }
+
+  private static String abbreviate(String text) {
+    return text.length() <= 200
+        ? text
+        : text.substring(0, 160)
+            + "...("
+            + text.length()
+            + " chars)..."
+            + text.substring(text.length() - 20);
+  }
+}
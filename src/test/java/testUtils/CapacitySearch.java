@@ -0,0 +1,301 @@
+package testUtils;
+
+import static testUtils.BookApi.ADMIN;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.restassured.RestAssured;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import testUtils.LoadGenerator.Mix;
+import testUtils.LoadGenerator.Operation;
+import testUtils.LoadGenerator.Sample;
+
+/**
+ * Finds the highest request rate the Book API sustains for each endpoint mix, the knee of its
+ * throughput/latency curve.
+ *
+ * <p>For every mix of {@code capacity.mixes}, requests are sent open-loop at a fixed rate for
+ * {@code capacity.stepSeconds} (default 10) per step, and the latency of each request is measured
+ * from its scheduled start, so that a saturated API shows up as latency instead of as a lower
+ * rate. A step is sustainable when its 429 rate is at most {@code capacity.max429Rate} (default
+ * 0.01), its p99 at most {@code capacity.maxP99Ms} (default 500), its rate of other errors at most
+ * {@code capacity.maxErrorRate} (default 0.01) and it achieved at least 90% of the target rate.
+ * The rate starts at {@code capacity.startRps} (default 5) and doubles until a step is not
+ * sustainable or {@code capacity.maxRps} (default 2000) is passed, then the knee is binary-searched
+ * between the last sustainable and the first unsustainable rate to within {@code
+ * capacity.precision} (default 5%).
+ *
+ * <p>A mix is written as {@code name:operation=weight,...} with the operations {@code get}, {@code
+ * list}, {@code search}, {@code create} and {@code update}, and mixes are separated by {@code ;}.
+ * The API is {@code api.baseUri} (default {@code http://localhost:3000}), or an in-memory {@link
+ * BookApiStub} with {@code -Dcapacity.stub=true}. The report, with every measured step of every
+ * mix, is printed and written to {@code capacity.report} (default {@value #DEFAULT_REPORT_PATH}).
+ * Against a rate limiter with a fixed window, such as the per-minute {@code APP_MAX_REQUESTS} of
+ * the Node.js app, the steps should be at least as long as the window.
+ */
+public class CapacitySearch {
+
+  static final String DEFAULT_REPORT_PATH = "test-results/capacity-report.json";
+  private static final String DEFAULT_MIXES =
+      "read:get=70,list=20,search=10;write:create=50,update=50;"
+          + "mixed:get=60,list=20,create=10,update=10";
+  private static final int SEEDED_BOOKS = 20;
+  private static final String TITLE_PREFIX = "Capacity";
+  private static final double MIN_ACHIEVED_SHARE = 0.9;
+  private static final ObjectMapper objectMapper =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private static final Logger logger = LogManager.getLogger(CapacitySearch.class);
+
+  /**
+   * The thresholds a sustainable step stays within.
+   *
+   * @param max429Rate the highest share of 429 responses
+   * @param maxP99Millis the highest p99 latency in milliseconds
+   * @param maxErrorRate the highest share of other failed requests
+   */
+  record Thresholds(double max429Rate, double maxP99Millis, double maxErrorRate) {}
+
+  /**
+   * A step of the search at a fixed target rate.
+   *
+   * @param targetRps the rate requests were scheduled at
+   * @param achievedRps the rate responses were received at
+   * @param requests the number of scheduled requests
+   * @param p50Millis the median latency from the scheduled start
+   * @param p99Millis the 99th percentile latency from the scheduled start
+   * @param tooManyRequestsRate the share of 429 responses
+   * @param errorRate the share of other 4xx and 5xx responses, failed requests and requests not
+   *     sent because too many were in flight
+   * @param sustainable whether the step stayed within the thresholds
+   */
+  record Step(
+      double targetRps,
+      double achievedRps,
+      long requests,
+      double p50Millis,
+      double p99Millis,
+      double tooManyRequestsRate,
+      double errorRate,
+      boolean sustainable) {}
+
+  /**
+   * The result of a mix.
+   *
+   * @param mix the mix name
+   * @param weights the weights of the mix
+   * @param kneeRps the highest sustainable target rate found, 0 if none
+   * @param maxRpsReached whether the highest rate tried was still sustainable, so that the knee
+   *     is above it
+   * @param curve the steps ordered by target rate
+   */
+  record MixReport(
+      String mix,
+      Map<Operation, Integer> weights,
+      double kneeRps,
+      boolean maxRpsReached,
+      List<Step> curve) {}
+
+  /**
+   * The capacity report.
+   *
+   * @param baseUri the API measured
+   * @param stepSeconds the duration of each step
+   * @param thresholds the thresholds of a sustainable step
+   * @param mixes the results per mix
+   */
+  record CapacityReport(
+      String baseUri, int stepSeconds, Thresholds thresholds, List<MixReport> mixes) {}
+
+  private final int stepSeconds;
+  private final Thresholds thresholds;
+  private final LoadGenerator generator;
+
+  /**
+   * Creates a search.
+   *
+   * @param stepSeconds the duration of each step
+   * @param thresholds the thresholds of a sustainable step
+   * @param generator sends the requests of the steps
+   */
+  CapacitySearch(int stepSeconds, Thresholds thresholds, LoadGenerator generator) {
+    this.stepSeconds = stepSeconds;
+    this.thresholds = thresholds;
+    this.generator = generator;
+  }
+
+  /**
+   * Runs the search and writes the report.
+   *
+   * @param args not used
+   * @throws IOException if the stub cannot be started or the report cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Thresholds thresholds =
+        new Thresholds(
+            Double.parseDouble(System.getProperty("capacity.max429Rate", "0.01")),
+            Double.parseDouble(System.getProperty("capacity.maxP99Ms", "500")),
+            Double.parseDouble(System.getProperty("capacity.maxErrorRate", "0.01")));
+    int stepSeconds = Integer.getInteger("capacity.stepSeconds", 10);
+    double startRps = Double.parseDouble(System.getProperty("capacity.startRps", "5"));
+    double maxRps = Double.parseDouble(System.getProperty("capacity.maxRps", "2000"));
+    double precision = Double.parseDouble(System.getProperty("capacity.precision", "0.05"));
+    List<Mix> mixes = new ArrayList<>();
+    for (String mix : System.getProperty("capacity.mixes", DEFAULT_MIXES).split(";")) {
+      mixes.add(Mix.parse(mix));
+    }
+    Path reportPath = Path.of(System.getProperty("capacity.report", DEFAULT_REPORT_PATH));
+
+    BookApiStub stub = Boolean.getBoolean("capacity.stub") ? new BookApiStub(0) : null;
+    try {
+      String baseUri =
+          stub != null
+              ? stub.baseUri()
+              : System.getProperty("api.baseUri", "http://localhost:3000");
+      RestAssured.baseURI = baseUri;
+      RestAssured.basePath = "/api/books";
+      List<Integer> bookIds = LoadGenerator.seedBooks(TITLE_PREFIX, SEEDED_BOOKS);
+      LoadGenerator generator =
+          new LoadGenerator(
+              bookIds, Integer.getInteger("capacity.maxInFlight", 1000), TITLE_PREFIX);
+      CapacitySearch search = new CapacitySearch(stepSeconds, thresholds, generator);
+      List<MixReport> results = new ArrayList<>();
+      for (Mix mix : mixes) {
+        results.add(search.search(mix, startRps, maxRps, precision));
+      }
+      CapacityReport report = new CapacityReport(baseUri, stepSeconds, thresholds, results);
+      Files.createDirectories(reportPath.toAbsolutePath().getParent());
+      objectMapper.writeValue(reportPath.toFile(), report);
+      System.out.print(format(report));
+      logger.info("Capacity report written to {}", reportPath);
+    } finally {
+      try {
+        ADMIN.given().when().delete("/reset");
+      } finally {
+        RestAssured.reset();
+        if (stub != null) {
+          stub.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Ramps the rate of a mix until it is not sustainable, then binary-searches the knee.
+   *
+   * @param mix the mix
+   * @param startRps the first rate
+   * @param maxRps the highest rate to ramp to
+   * @param precision the relative width of the final search interval
+   * @return the result of the mix
+   */
+  MixReport search(Mix mix, double startRps, double maxRps, double precision) {
+    logger.info("Searching the capacity of mix {} {}", mix.name(), mix.weights());
+    // Warm up connections and the JIT before the first measured step
+    measure(mix, startRps, Math.min(stepSeconds, 5));
+    List<Step> curve = new ArrayList<>();
+    double sustainable = 0;
+    double unsustainable = 0;
+    for (double rps = startRps; rps <= maxRps; rps *= 2) {
+      Step step = measure(mix, rps, stepSeconds);
+      curve.add(step);
+      if (!step.sustainable()) {
+        unsustainable = rps;
+        break;
+      }
+      sustainable = rps;
+    }
+    if (unsustainable > 0) {
+      while (unsustainable - sustainable > Math.max(1, sustainable * precision)) {
+        double rps = Math.round((sustainable + unsustainable) / 2);
+        Step step = measure(mix, rps, stepSeconds);
+        curve.add(step);
+        if (step.sustainable()) {
+          sustainable = rps;
+        } else {
+          unsustainable = rps;
+        }
+      }
+    }
+    curve.sort(Comparator.comparingDouble(Step::targetRps));
+    logger.info("Knee of mix {}: {} requests/s", mix.name(), sustainable);
+    return new MixReport(mix.name(), mix.weights(), sustainable, unsustainable == 0, curve);
+  }
+
+  /**
+   * Measures a step of a mix.
+   *
+   * @param mix the mix
+   * @param rps the target rate
+   * @param seconds the duration
+   * @return the step
+   */
+  Step measure(Mix mix, double rps, int seconds) {
+    Sample sample = generator.run(mix, rps, seconds);
+    double tooManyRequestsRate = sample.tooManyRequests() / (double) sample.requests();
+    double errorRate = sample.errors() / (double) sample.requests();
+    double p99Millis = sample.latency().percentileMillis(99);
+    boolean sustainable =
+        tooManyRequestsRate <= thresholds.max429Rate()
+            && p99Millis <= thresholds.maxP99Millis()
+            && errorRate <= thresholds.maxErrorRate()
+            && sample.achievedRps() >= rps * MIN_ACHIEVED_SHARE;
+    Step step =
+        new Step(
+            rps,
+            sample.achievedRps(),
+            sample.requests(),
+            sample.latency().percentileMillis(50),
+            p99Millis,
+            tooManyRequestsRate,
+            errorRate,
+            sustainable);
+    logger.info("{} at {} requests/s: {}", mix.name(), rps, step);
+    return step;
+  }
+
+  /**
+   * Formats the report as a table per mix.
+   *
+   * @param report the report
+   * @return the text
+   */
+  static String format(CapacityReport report) {
+    StringBuilder text = new StringBuilder();
+    for (MixReport mix : report.mixes()) {
+      text.append(
+          String.format(
+              "%nMix %s %s: knee %s%.1f requests/s (%.0f requests/minute)%n",
+              mix.mix(),
+              mix.weights(),
+              mix.maxRpsReached() ? ">= " : "",
+              mix.kneeRps(),
+              mix.kneeRps() * 60));
+      text.append(
+          String.format(
+              "%10s %10s %8s %9s %9s %7s %7s %4s%n",
+              "target/s", "achieved/s", "requests", "p50 ms", "p99 ms", "429 %", "error %", ""));
+      for (Step step : mix.curve()) {
+        text.append(
+            String.format(
+                "%10.1f %10.1f %8d %9.3f %9.3f %7.2f %7.2f %4s%n",
+                step.targetRps(),
+                step.achievedRps(),
+                step.requests(),
+                step.p50Millis(),
+                step.p99Millis(),
+                step.tooManyRequestsRate() * 100,
+                step.errorRate() * 100,
+                step.targetRps() == mix.kneeRps() ? "knee" : step.sustainable() ? "ok" : ""));
+      }
+    }
+    return text.toString();
+  }
+}
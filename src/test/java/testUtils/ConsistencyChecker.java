@@ -0,0 +1,305 @@
+package testUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import pojos.Book;
+import testUtils.OperationHistory.Operation;
+import testUtils.OperationHistory.Type;
+
+/**
+ * Flags observations in an {@link OperationHistory} that no sequential execution of the Book API
+ * could explain.
+ *
+ * <p>Two operations are ordered when one completed before the other was invoked; overlapping
+ * operations may take effect in either order. Requests rejected by the API (4xx, 429) are assumed
+ * to have no effect, while requests without a response may or may not have taken effect and are
+ * never used to flag an anomaly. The checker assumes every create and update writes a unique
+ * title.
+ */
+public class ConsistencyChecker {
+
+  /** Kind of an impossible observation. */
+  public enum AnomalyType {
+    /** Two successful creates returned the same ID. */
+    DUPLICATE_ID,
+    /** Two creates of the same title and author both succeeded instead of one 409. */
+    DUPLICATE_BOOK,
+    /** A read or search returned a book after its deletion had completed. */
+    READ_OF_DELETED_BOOK,
+    /** An update succeeded after the deletion of the book had completed. */
+    UPDATE_OF_DELETED_BOOK,
+    /** A read returned 404 for a book that was created and never deleted. */
+    MISSING_BOOK,
+    /** A read returned a title that had been overwritten before the read started. */
+    LOST_UPDATE,
+    /** A read returned a title that was never written. */
+    PHANTOM_VALUE
+  }
+
+  /**
+   * An impossible observation.
+   *
+   * @param type the anomaly type
+   * @param bookId the affected book
+   * @param description what was observed and which operations contradict it
+   */
+  public record Anomaly(AnomalyType type, int bookId, String description) {}
+
+  private final Map<Integer, List<Operation>> createsById = new HashMap<>();
+  private final Map<Integer, List<Operation>> writesById = new HashMap<>();
+  private final Map<Integer, List<Operation>> deletesById = new HashMap<>();
+  private final List<Anomaly> anomalies = new ArrayList<>();
+
+  private ConsistencyChecker(List<Operation> history) {
+    for (Operation operation : history) {
+      switch (operation.type()) {
+        case CREATE -> {
+          if (operation.status() == 201 && !operation.observed().isEmpty()) {
+            int id = operation.observed().get(0).getId();
+            createsById.computeIfAbsent(id, key -> new ArrayList<>()).add(operation);
+            writesById.computeIfAbsent(id, key -> new ArrayList<>()).add(operation);
+          }
+        }
+        case UPDATE -> {
+          if (operation.status() == 200 || !operation.hasResponse()) {
+            writesById
+                .computeIfAbsent(operation.bookId(), key -> new ArrayList<>())
+                .add(operation);
+          }
+        }
+        case DELETE -> {
+          if (operation.status() == 204 || !operation.hasResponse()) {
+            deletesById
+                .computeIfAbsent(operation.bookId(), key -> new ArrayList<>())
+                .add(operation);
+          }
+        }
+        default -> {}
+      }
+    }
+  }
+
+  /**
+   * Checks a history.
+   *
+   * @param history the operations
+   * @return the anomalies found, empty if the history is consistent
+   */
+  public static List<Anomaly> check(List<Operation> history) {
+    ConsistencyChecker checker = new ConsistencyChecker(history);
+    checker.checkCreates();
+    for (Operation operation : history) {
+      switch (operation.type()) {
+        case READ -> {
+          if (operation.status() == 200 && !operation.observed().isEmpty()) {
+            checker.checkObservation(operation, operation.observed().get(0));
+          } else if (operation.status() == 404) {
+            checker.checkMissing(operation);
+          }
+        }
+        case SEARCH -> {
+          if (operation.status() == 200) {
+            operation.observed().forEach(book -> checker.checkObservation(operation, book));
+          }
+        }
+        case UPDATE -> {
+          if (operation.status() == 200) {
+            checker.checkUpdate(operation);
+          }
+        }
+        default -> {}
+      }
+    }
+    return checker.anomalies;
+  }
+
+  /**
+   * Counts anomalies by type.
+   *
+   * @param anomalies the anomalies
+   * @return the counts of the types that occurred
+   */
+  public static Map<AnomalyType, Integer> countByType(List<Anomaly> anomalies) {
+    Map<AnomalyType, Integer> counts = new EnumMap<>(AnomalyType.class);
+    anomalies.forEach(anomaly -> counts.merge(anomaly.type(), 1, Integer::sum));
+    return counts;
+  }
+
+  private void checkCreates() {
+    Map<String, List<Operation>> createsByContent = new HashMap<>();
+    createsById.forEach(
+        (id, creates) -> {
+          if (creates.size() > 1) {
+            report(AnomalyType.DUPLICATE_ID, id, "Created more than once: " + creates);
+          }
+          for (Operation create : creates) {
+            Book book = create.observed().get(0);
+            String content = book.getTitle() + "\n" + book.getAuthor();
+            createsByContent.computeIfAbsent(content, key -> new ArrayList<>()).add(create);
+          }
+        });
+    createsByContent.forEach(
+        (content, creates) -> {
+          for (int i = 0; i < creates.size(); i++) {
+            for (int j = i + 1; j < creates.size(); j++) {
+              Operation first = creates.get(i);
+              Operation second = creates.get(j);
+              if (first.invokedNanos() > second.invokedNanos()) {
+                Operation swap = first;
+                first = second;
+                second = swap;
+              }
+              int firstId = first.observed().get(0).getId();
+              if (!changedBefore(firstId, first, second)) {
+                report(
+                    AnomalyType.DUPLICATE_BOOK,
+                    firstId,
+                    "Same book created twice without a delete in between: "
+                        + first
+                        + " and "
+                        + second);
+              }
+            }
+          }
+        });
+  }
+
+  private void checkObservation(Operation read, Book book) {
+    int id = book.getId();
+    Operation delete = deletedBefore(id, read);
+    if (delete != null) {
+      report(
+          AnomalyType.READ_OF_DELETED_BOOK,
+          id,
+          read + " returned '" + book.getTitle() + "' after " + delete);
+      return;
+    }
+    List<Operation> writes = writesById.getOrDefault(id, List.of());
+    List<Operation> sources =
+        writes.stream()
+            .filter(write -> Objects.equals(writtenTitle(write), book.getTitle()))
+            .filter(write -> write.invokedNanos() < read.completedNanos())
+            .toList();
+    if (sources.isEmpty()) {
+      if (!writes.isEmpty()) {
+        report(
+            AnomalyType.PHANTOM_VALUE,
+            id,
+            read + " returned '" + book.getTitle() + "', which was never written");
+      }
+      return;
+    }
+    if (sources.size() > 1) {
+      return;
+    }
+    Operation source = sources.get(0);
+    for (Operation write : writes) {
+      if (write.hasResponse() && source.precedes(write) && write.precedes(read)) {
+        report(
+            AnomalyType.LOST_UPDATE,
+            id,
+            read
+                + " returned '"
+                + book.getTitle()
+                + "' of "
+                + source
+                + ", overwritten by "
+                + write);
+        return;
+      }
+    }
+  }
+
+  private void checkMissing(Operation read) {
+    int id = read.bookId();
+    boolean created =
+        createsById.getOrDefault(id, List.of()).stream().anyMatch(create -> create.precedes(read));
+    if (created && definiteOrPossibleDeleteBefore(id, read) == null) {
+      report(
+          AnomalyType.MISSING_BOOK, id, read + " returned 404 for a book that was never deleted");
+    }
+  }
+
+  private void checkUpdate(Operation update) {
+    Operation delete = deletedBefore(update.bookId(), update);
+    if (delete != null) {
+      report(
+          AnomalyType.UPDATE_OF_DELETED_BOOK,
+          update.bookId(),
+          update + " succeeded after " + delete);
+    }
+  }
+
+  /**
+   * Finds a successful delete of a book that completed before an operation started, unless the ID
+   * may have been created again in between.
+   *
+   * @param id the book ID
+   * @param operation the operation
+   * @return the delete, or null
+   */
+  private Operation deletedBefore(int id, Operation operation) {
+    for (Operation delete : deletesById.getOrDefault(id, List.of())) {
+      if (delete.status() == 204 && delete.precedes(operation)) {
+        boolean recreated =
+            createsById.getOrDefault(id, List.of()).stream()
+                .anyMatch(
+                    create ->
+                        create.completedNanos() > delete.invokedNanos()
+                            && create.invokedNanos() < operation.completedNanos());
+        if (!recreated) {
+          return delete;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds a delete of a book, successful or without a response, that was invoked before an
+   * operation completed.
+   *
+   * @param id the book ID
+   * @param operation the operation
+   * @return the delete, or null
+   */
+  private Operation definiteOrPossibleDeleteBefore(int id, Operation operation) {
+    return deletesById.getOrDefault(id, List.of()).stream()
+        .filter(delete -> delete.invokedNanos() < operation.completedNanos())
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Returns whether a created book may have been deleted or renamed before another operation
+   * completed, which allows the API to accept a second book with the original title and author.
+   *
+   * @param id the book ID
+   * @param create the create of the book
+   * @param operation the other operation
+   * @return true if a delete or update of the book was invoked before the operation completed
+   */
+  private boolean changedBefore(int id, Operation create, Operation operation) {
+    if (definiteOrPossibleDeleteBefore(id, operation) != null) {
+      return true;
+    }
+    return writesById.getOrDefault(id, List.of()).stream()
+        .anyMatch(
+            write -> write != create && write.invokedNanos() < operation.completedNanos());
+  }
+
+  private static String writtenTitle(Operation write) {
+    if (write.type() == Type.CREATE) {
+      return write.observed().get(0).getTitle();
+    }
+    return write.written() == null ? null : write.written().getTitle();
+  }
+
+  private void report(AnomalyType type, int bookId, String description) {
+    anomalies.add(new Anomaly(type, bookId, description));
+  }
+}
@@ -0,0 +1,256 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lazy data providers that stream the rows of an NDJSON or CSV file, so that data-driven tests can
+ * run over files of any size without loading them.
+ *
+ * <p>{@link #rows(String)} reads the file {@code data/<name>} from the test class path, or from
+ * the directory of the {@code data.dir} system property when it is set, e.g. to run a campaign of
+ * 100k generated IDs without adding them to the repository. A {@code .ndjson} or {@code .jsonl}
+ * file has one JSON object per line; a {@code .csv} file has a header line naming the columns.
+ * Blank lines are skipped. Each row is passed to the test as a {@link DataRow}:
+ *
+ * <pre>{@code
+ * @DataProvider(name = "InvalidBookID", parallel = true)
+ * public Iterator<Object[]> getInvalidBookID() {
+ *   return DataFiles.rows("invalid-book-ids.csv");
+ * }
+ * }</pre>
+ *
+ * <p>TestNG reads the whole iterator of a parallel data provider up front and queues a task per
+ * row, so the iterator blocks once {@code data.maxInFlight} rows (default 256) are queued or
+ * running, until {@link DataRowListener} releases the rows whose tests have run. The number of
+ * threads running the rows is the suite's {@code data-provider-thread-count}, which {@code
+ * -Ddata.threads} overrides.
+ */
+public final class DataFiles {
+
+  /** Class path directory of the data files. */
+  public static final String DATA_DIRECTORY = "data";
+
+  private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+  private static final long ROW_WAIT_SECONDS = 60;
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Logger logger = LogManager.getLogger(DataFiles.class);
+
+  private DataFiles() {}
+
+  /**
+   * Streams the rows of a data file, each as the single parameter of a test invocation.
+   *
+   * @param name the file name, e.g. {@code invalid-book-ids.csv}
+   * @return the lazy iterator of rows
+   * @throws UncheckedIOException if the file cannot be opened
+   * @throws IllegalArgumentException if the file is not a {@code .ndjson}, {@code .jsonl} or {@code
+   *     .csv} file
+   */
+  public static Iterator<Object[]> rows(String name) {
+    boolean csv;
+    if (name.endsWith(".csv")) {
+      csv = true;
+    } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+      csv = false;
+    } else {
+      throw new IllegalArgumentException("Unsupported data file format: " + name);
+    }
+    int maxInFlight = Integer.getInteger("data.maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+    return new Rows(name, open(name), csv, maxInFlight);
+  }
+
+  /**
+   * Opens a data file from {@code data.dir} or the class path.
+   *
+   * @param name the file name
+   * @return the reader
+   */
+  private static BufferedReader open(String name) {
+    String directory = System.getProperty("data.dir", "");
+    try {
+      if (!directory.isBlank()) {
+        return Files.newBufferedReader(Path.of(directory, name), StandardCharsets.UTF_8);
+      }
+      String resource = DATA_DIRECTORY + "/" + name;
+      InputStream in = DataFiles.class.getClassLoader().getResourceAsStream(resource);
+      if (in == null) {
+        throw new IOException("Data file not found on the class path: " + resource);
+      }
+      return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open data file " + name, e);
+    }
+  }
+
+  /**
+   * Splits a CSV line into its fields. Fields may be quoted with {@code "}, with {@code ""} for a
+   * quote inside a quoted field; quoted fields cannot span lines.
+   *
+   * @param line the line
+   * @return the fields
+   */
+  static List<String> parseCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /** Iterator reading one row ahead of the caller, closing the file after the last row. */
+  private static final class Rows implements Iterator<Object[]> {
+
+    private final String name;
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final Semaphore inFlight;
+    private List<String> header;
+    private long lineNumber;
+    private long index;
+    private DataRow next;
+    private boolean done;
+    private volatile boolean bounded = true;
+
+    Rows(String name, BufferedReader reader, boolean csv, int maxInFlight) {
+      this.name = name;
+      this.reader = reader;
+      this.csv = csv;
+      this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+      if (next == null && !done) {
+        next = read();
+      }
+      return next != null;
+    }
+
+    @Override
+    public Object[] next() {
+      // Wait outside the lock: TestNG calls hasNext() from the threads running the rows
+      awaitPermit();
+      synchronized (this) {
+        if (!hasNext()) {
+          inFlight.release();
+          throw new NoSuchElementException(name);
+        }
+        DataRow row = next;
+        next = null;
+        return new Object[] {row};
+      }
+    }
+
+    /**
+     * Waits until fewer than {@code data.maxInFlight} rows are in flight. When no row is released
+     * for a minute, e.g. because {@link DataRowListener} is not registered, the rows of this file
+     * are no longer limited.
+     */
+    private void awaitPermit() {
+      if (!bounded) {
+        return;
+      }
+      try {
+        if (!inFlight.tryAcquire(ROW_WAIT_SECONDS, TimeUnit.SECONDS)) {
+          bounded = false;
+          logger.warn(
+              "No row of {} released for {} s, reading the rest without a limit",
+              name,
+              ROW_WAIT_SECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while reading " + name, e);
+      }
+    }
+
+    /**
+     * Reads the next data row.
+     *
+     * @return the row, or null at the end of the file
+     */
+    private DataRow read() {
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lineNumber++;
+          if (line.isBlank()) {
+            continue;
+          }
+          if (csv && header == null) {
+            header = parseCsvLine(line.strip());
+            continue;
+          }
+          return new DataRow(name, ++index, csv ? csvFields(line) : jsonFields(line), inFlight);
+        }
+        done = true;
+        reader.close();
+        logger.info("Read {} rows from {}", index, name);
+        return null;
+      } catch (IOException e) {
+        done = true;
+        throw new UncheckedIOException("Cannot read data file " + name, e);
+      }
+    }
+
+    private JsonNode csvFields(String line) {
+      List<String> values = parseCsvLine(line);
+      ObjectNode fields = objectMapper.createObjectNode();
+      for (int i = 0; i < header.size(); i++) {
+        fields.put(header.get(i), i < values.size() ? values.get(i) : null);
+      }
+      return fields;
+    }
+
+    private JsonNode jsonFields(String line) {
+      try {
+        JsonNode fields = objectMapper.readTree(line);
+        if (!fields.isObject()) {
+          throw new IllegalStateException(name + ":" + lineNumber + " is not a JSON object");
+        }
+        return fields;
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException(name + ":" + lineNumber + " is not valid JSON", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package testUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A row of a data file streamed by {@link DataFiles}, passed to a data-driven test as its single
+ * parameter.
+ *
+ * <p>The row is identified by its file and its 1-based index among the data rows of the file, so
+ * that reports reference it as {@code invalid-book-ids.csv#3} instead of printing its values. The
+ * fields are the parsed JSON object of an NDJSON line, or the text values of a CSV line keyed by
+ * the header.
+ */
+public final class DataRow {
+
+  private final String source;
+  private final long index;
+  private final JsonNode fields;
+  private final Semaphore inFlight;
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  DataRow(String source, long index, JsonNode fields, Semaphore inFlight) {
+    this.source = source;
+    this.index = index;
+    this.fields = fields;
+    this.inFlight = inFlight;
+  }
+
+  /**
+   * Returns the name of the data file.
+   *
+   * @return the file name
+   */
+  public String source() {
+    return source;
+  }
+
+  /**
+   * Returns the 1-based index of the row among the data rows of the file.
+   *
+   * @return the row index
+   */
+  public long index() {
+    return index;
+  }
+
+  /**
+   * Returns the fields of the row, e.g. to send an NDJSON row as a request body.
+   *
+   * @return the fields
+   */
+  public JsonNode fields() {
+    return fields;
+  }
+
+  /**
+   * Returns a field of the row.
+   *
+   * @param name the field name
+   * @return the field, a missing node if the row has no such field
+   */
+  public JsonNode get(String name) {
+    return fields.path(name);
+  }
+
+  /**
+   * Returns a field of the row as text.
+   *
+   * @param name the field name
+   * @return the text, or null if the row has no such field or it is null
+   */
+  public String text(String name) {
+    JsonNode field = fields.get(name);
+    return field == null || field.isNull() ? null : field.asText();
+  }
+
+  /**
+   * Lets {@link DataFiles} read one more row once the test of this row has run. Only the first call
+   * has an effect, so that retries of the row do not release it again.
+   */
+  void release() {
+    if (released.compareAndSet(false, true)) {
+      inFlight.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return source + "#" + index;
+  }
+}
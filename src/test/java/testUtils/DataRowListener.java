@@ -0,0 +1,50 @@
+package testUtils;
+
+import java.util.List;
+import org.testng.IAlterSuiteListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlSuite;
+
+/**
+ * TestNG listener for the data-driven tests fed by {@link DataFiles}.
+ *
+ * <p>It sets the {@code data-provider-thread-count} of every suite to {@code -Ddata.threads} when
+ * the property is given, and releases each {@link DataRow} once its test has run, so that the
+ * data file is read as fast as its rows are tested. It is registered as a TestNG service in {@code
+ * META-INF/services}, so that every run uses it.
+ */
+public class DataRowListener implements IAlterSuiteListener, IInvokedMethodListener {
+
+  /**
+   * Applies {@code data.threads} to the suites.
+   *
+   * @param suites the suites about to run
+   */
+  @Override
+  public void alter(List<XmlSuite> suites) {
+    Integer threads = Integer.getInteger("data.threads");
+    if (threads != null) {
+      suites.forEach(suite -> suite.setDataProviderThreadCount(threads));
+    }
+  }
+
+  /**
+   * Releases the data rows of a test invocation.
+   *
+   * @param method the invoked method
+   * @param testResult the result of the invocation
+   */
+  @Override
+  public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+    if (!method.isTestMethod() || testResult.getParameters() == null) {
+      return;
+    }
+    for (Object parameter : testResult.getParameters()) {
+      if (parameter instanceof DataRow row) {
+        row.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package testUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+/**
+ * TestNG listener that aborts the run once the number of failed tests reaches the {@code
+ * failfast.threshold} system property.
+ *
+ * <p>After the threshold is crossed every remaining test method is skipped, while configuration
+ * methods still run so that the suite cleans up after itself. Retried attempts are not counted as
+ * failures. Without the property the listener does nothing.
+ */
+public class FailFastListener implements IInvokedMethodListener, ITestListener {
+
+  private static final Logger logger = LogManager.getLogger(FailFastListener.class);
+
+  private final int threshold = Integer.getInteger("failfast.threshold", 0);
+  private final AtomicInteger failures = new AtomicInteger();
+
+  /**
+   * Counts a failed test and logs when the threshold is reached.
+   *
+   * @param result the test result
+   */
+  @Override
+  public void onTestFailure(ITestResult result) {
+    if (threshold > 0 && failures.incrementAndGet() == threshold) {
+      logger.error(
+          "Fail-fast threshold of {} failed tests reached at {}, skipping remaining tests",
+          threshold,
+          result.getMethod().getMethodName());
+    }
+  }
+
+  /**
+   * Skips the test method when the threshold has been reached.
+   *
+   * @param method the method about to be invoked
+   * @param testResult the result of the method
+   * @throws SkipException if the run has been aborted
+   */
+  @Override
+  public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+    if (threshold > 0 && method.isTestMethod() && failures.get() >= threshold) {
+      throw new SkipException(
+          "Skipped: fail-fast threshold of " + threshold + " failed tests reached");
+    }
+  }
+}
@@ -0,0 +1,422 @@
+package testUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * HTTP/1.1 proxy that sits between the harness and the Book API and injects the faults of a
+ * {@link FaultScenario}: latency spikes, a response bandwidth cap, TCP connection resets and bursts
+ * of 429 Too Many Requests with varying {@code Retry-After}.
+ *
+ * <p>The proxy works on plain sockets so that it can reset connections (an RST, not a clean close)
+ * and pace its writes. Every connection is served on its own virtual thread and requests are
+ * forwarded with the JDK {@link HttpClient}. The scenario can be switched while the proxy runs,
+ * which also restarts the request numbering and the fault counters.
+ */
+public class FaultInjectionProxy implements Closeable {
+
+  /** Headers managed by the proxy or by {@link HttpClient}, which are not forwarded. */
+  private static final Set<String> HOP_BY_HOP_HEADERS =
+      Set.of(
+          "connection",
+          "content-length",
+          "expect",
+          "host",
+          "keep-alive",
+          "transfer-encoding",
+          "upgrade");
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final Logger logger = LogManager.getLogger(FaultInjectionProxy.class);
+
+  private final ServerSocket server;
+  private final URI upstream;
+  private final HttpClient client;
+  private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+  private volatile FaultScenario scenario = FaultScenario.NONE;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final LongAdder latencySpikes = new LongAdder();
+  private final LongAdder throttled = new LongAdder();
+  private final LongAdder resets = new LongAdder();
+  private final LongAdder tooManyRequests = new LongAdder();
+
+  /**
+   * Starts the proxy on the loopback interface.
+   *
+   * @param port the port, or 0 for any free port
+   * @param upstream the base URI of the proxied API, e.g. {@code http://localhost:3000}
+   * @throws IOException if the server socket cannot be opened
+   */
+  public FaultInjectionProxy(int port, String upstream) throws IOException {
+    this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    this.upstream = URI.create(upstream);
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT)
+            .executor(connections)
+            .build();
+    Thread.ofPlatform().name("fault-proxy-accept").start(this::acceptConnections);
+  }
+
+  /**
+   * Returns the base URI of the proxy, to be used in place of the API's base URI.
+   *
+   * @return the base URI
+   */
+  public String baseUri() {
+    return "http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
+  }
+
+  /**
+   * Switches the injected faults and restarts the request numbering and the fault counters.
+   *
+   * @param scenario the scenario
+   */
+  public void setScenario(FaultScenario scenario) {
+    this.scenario = scenario;
+    requests.set(0);
+    latencySpikes.reset();
+    throttled.reset();
+    resets.reset();
+    tooManyRequests.reset();
+    logger.info("Fault injection proxy scenario: {}", scenario);
+  }
+
+  /**
+   * Returns how many requests were received and how many faults were injected since the scenario
+   * started.
+   *
+   * @return the counts by name, in a stable order
+   */
+  public Map<String, Long> faultCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    counts.put("requests", requests.get());
+    counts.put("latencySpikes", latencySpikes.sum());
+    counts.put("throttled", throttled.sum());
+    counts.put("resets", resets.sum());
+    counts.put("tooManyRequests", tooManyRequests.sum());
+    return counts;
+  }
+
+  /** Stops accepting connections and closes the open ones. */
+  @Override
+  public void close() throws IOException {
+    server.close();
+    connections.shutdownNow();
+  }
+
+  private void acceptConnections() {
+    while (!server.isClosed()) {
+      try {
+        Socket socket = server.accept();
+        connections.submit(() -> serve(socket));
+      } catch (IOException e) {
+        if (!server.isClosed()) {
+          logger.warn("Fault injection proxy failed to accept a connection", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Serves the requests of one keep-alive connection.
+   *
+   * @param socket the client connection
+   */
+  private void serve(Socket socket) {
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      InputStream in = new BufferedInputStream(socket.getInputStream());
+      OutputStream out = socket.getOutputStream();
+      ProxiedRequest request;
+      while ((request = ProxiedRequest.read(in)) != null) {
+        if (!handle(request, socket, out) || request.closeConnection()) {
+          return;
+        }
+      }
+    } catch (SocketException e) {
+      logger.debug("Fault injection proxy connection closed: {}", e.getMessage());
+    } catch (IOException e) {
+      logger.warn("Fault injection proxy failed to serve a connection", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Injects the faults of the current scenario into one request and forwards it.
+   *
+   * @param request the request
+   * @param socket the client connection
+   * @param out the client stream
+   * @return false if the connection was reset
+   * @throws IOException if the response cannot be written
+   * @throws InterruptedException if interrupted while delaying
+   */
+  private boolean handle(ProxiedRequest request, Socket socket, OutputStream out)
+      throws IOException, InterruptedException {
+    FaultScenario current = scenario;
+    long number = requests.incrementAndGet();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    if (current.resetProbability() > 0 && random.nextDouble() < current.resetProbability()) {
+      resets.increment();
+      socket.setSoLinger(true, 0);
+      socket.close();
+      return false;
+    }
+    FaultScenario.LatencySpike spike = current.latencySpike();
+    if (spike != null && random.nextDouble() < spike.probability()) {
+      latencySpikes.increment();
+      Thread.sleep(spike.delayMillis());
+    }
+    Integer retryAfter =
+        current.tooManyRequests() == null ? null : current.tooManyRequests().retryAfterFor(number);
+    if (retryAfter != null) {
+      tooManyRequests.increment();
+      Map<String, String> headers = new LinkedHashMap<>();
+      headers.put("Content-Type", "application/json; charset=utf-8");
+      if (retryAfter >= 0) {
+        headers.put("Retry-After", String.valueOf(retryAfter));
+      }
+      byte[] body =
+          "{\"error\":\"Too many requests, please try again later.\"}"
+              .getBytes(StandardCharsets.UTF_8);
+      writeResponse(out, 429, headers, body, current.bandwidthBytesPerSecond());
+      return true;
+    }
+
+    HttpResponse<byte[]> response;
+    try {
+      response = client.send(request.toHttpRequest(upstream), BodyHandlers.ofByteArray());
+    } catch (IOException e) {
+      logger.warn("Fault injection proxy failed to reach {}", upstream, e);
+      writeResponse(out, 502, Map.of(), new byte[0], 0);
+      return true;
+    }
+    Map<String, String> headers = new LinkedHashMap<>();
+    response
+        .headers()
+        .map()
+        .forEach(
+            (name, values) -> {
+              if (!name.startsWith(":") && !HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, String.join(", ", values));
+              }
+            });
+    writeResponse(
+        out, response.statusCode(), headers, response.body(), current.bandwidthBytesPerSecond());
+    return true;
+  }
+
+  /**
+   * Writes a response, paced to the bandwidth cap.
+   *
+   * @param out the client stream
+   * @param status the HTTP status
+   * @param headers the headers, without Content-Length
+   * @param body the body
+   * @param bytesPerSecond the bandwidth cap, or 0 for none
+   * @throws IOException if the response cannot be written
+   * @throws InterruptedException if interrupted while pacing
+   */
+  private void writeResponse(
+      OutputStream out, int status, Map<String, String> headers, byte[] body, int bytesPerSecond)
+      throws IOException, InterruptedException {
+    StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(' ');
+    head.append(reasonPhrase(status)).append("\r\n");
+    headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+    head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+    byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    byte[] bytes = new byte[headBytes.length + body.length];
+    System.arraycopy(headBytes, 0, bytes, 0, headBytes.length);
+    System.arraycopy(body, 0, bytes, headBytes.length, body.length);
+
+    if (bytesPerSecond <= 0) {
+      out.write(bytes);
+      out.flush();
+      return;
+    }
+    throttled.increment();
+    int chunk = Math.max(1, bytesPerSecond / 20);
+    long start = System.nanoTime();
+    for (int offset = 0; offset < bytes.length; offset += chunk) {
+      int length = Math.min(chunk, bytes.length - offset);
+      out.write(bytes, offset, length);
+      out.flush();
+      long dueNanos = (offset + length) * 1_000_000_000L / bytesPerSecond;
+      long waitNanos = dueNanos - (System.nanoTime() - start);
+      if (waitNanos > 0) {
+        Thread.sleep(Duration.ofNanos(waitNanos));
+      }
+    }
+  }
+
+  private static String reasonPhrase(int status) {
+    return switch (status) {
+      case 200 -> "OK";
+      case 201 -> "Created";
+      case 204 -> "No Content";
+      case 400 -> "Bad Request";
+      case 401 -> "Unauthorized";
+      case 403 -> "Forbidden";
+      case 404 -> "Not Found";
+      case 409 -> "Conflict";
+      case 429 -> "Too Many Requests";
+      case 500 -> "Internal Server Error";
+      case 502 -> "Bad Gateway";
+      default -> "";
+    };
+  }
+
+  /**
+   * An HTTP/1.1 request read from a client connection.
+   *
+   * @param method the request method
+   * @param target the request target, i.e. path and query
+   * @param headers the forwarded headers
+   * @param body the body, possibly empty
+   * @param closeConnection whether the client asked to close the connection
+   */
+  private record ProxiedRequest(
+      String method,
+      String target,
+      Map<String, String> headers,
+      byte[] body,
+      boolean closeConnection) {
+
+    /**
+     * Reads the next request of a connection.
+     *
+     * @param in the client stream
+     * @return the request, or null at the end of the stream
+     * @throws IOException if the request is malformed or cannot be read
+     */
+    static ProxiedRequest read(InputStream in) throws IOException {
+      String requestLine = readLine(in);
+      if (requestLine == null || requestLine.isEmpty()) {
+        return null;
+      }
+      String[] parts = requestLine.split(" ");
+      if (parts.length != 3) {
+        throw new IOException("Malformed request line: " + requestLine);
+      }
+      Map<String, String> headers = new LinkedHashMap<>();
+      int contentLength = 0;
+      boolean chunked = false;
+      boolean close = false;
+      String line;
+      while ((line = readLine(in)) != null && !line.isEmpty()) {
+        int colon = line.indexOf(':');
+        String name = line.substring(0, colon).trim();
+        String value = line.substring(colon + 1).trim();
+        switch (name.toLowerCase()) {
+          case "content-length" -> contentLength = Integer.parseInt(value);
+          case "transfer-encoding" -> chunked = value.equalsIgnoreCase("chunked");
+          case "connection" -> close = value.equalsIgnoreCase("close");
+          default -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+              headers.merge(name, value, (first, second) -> first + ", " + second);
+            }
+          }
+        }
+      }
+      byte[] body = chunked ? readChunked(in) : in.readNBytes(contentLength);
+      return new ProxiedRequest(parts[0], parts[1], headers, body, close);
+    }
+
+    /**
+     * Builds the request to the upstream API.
+     *
+     * @param upstream the upstream base URI
+     * @return the upstream request
+     */
+    HttpRequest toHttpRequest(URI upstream) {
+      HttpRequest.Builder builder =
+          HttpRequest.newBuilder(upstream.resolve(target))
+              .timeout(TIMEOUT)
+              .method(
+                  method,
+                  body.length == 0 ? BodyPublishers.noBody() : BodyPublishers.ofByteArray(body));
+      headers.forEach(builder::header);
+      return builder.build();
+    }
+
+    private static byte[] readChunked(InputStream in) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      String sizeLine;
+      while ((sizeLine = readLine(in)) != null) {
+        int size = Integer.parseInt(sizeLine.split(";")[0].trim(), 16);
+        if (size == 0) {
+          while ((sizeLine = readLine(in)) != null && !sizeLine.isEmpty()) {
+            // skip trailers
+          }
+          break;
+        }
+        body.write(in.readNBytes(size));
+        readLine(in);
+      }
+      return body.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      StringBuilder line = new StringBuilder();
+      int b;
+      while ((b = in.read()) != -1) {
+        if (b == '\n') {
+          int length = line.length();
+          return length > 0 && line.charAt(length - 1) == '\r'
+              ? line.substring(0, length - 1)
+              : line.toString();
+        }
+        line.append((char) b);
+      }
+      return line.isEmpty() ? null : line.toString();
+    }
+  }
+
+  /**
+   * Runs the proxy in front of the Book API.
+   *
+   * @param args the proxy port, the upstream base URI and the scenario name
+   * @throws IOException if the proxy cannot be started or the scenario cannot be loaded
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println("Usage: FaultInjectionProxy <port> <upstream base URI> <scenario>");
+      System.exit(2);
+    }
+    String file = System.getProperty("fault.scenarios", FaultScenario.DEFAULT_FILE);
+    FaultInjectionProxy proxy = new FaultInjectionProxy(Integer.parseInt(args[0]), args[1]);
+    proxy.setScenario(FaultScenario.load(file, args[2]));
+    logger.info("Fault injection proxy on {}, forwarding to {}", proxy.baseUri(), args[1]);
+  }
+}
@@ -0,0 +1,118 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of faults injected by the {@link FaultInjectionProxy}.
+ *
+ * <p>Scenarios are read from a JSON file of the form {@code {"scenarios": [...]}}, see {@code
+ * fault-scenarios.json}. Every fault is optional; a scenario without faults forwards requests
+ * unchanged and serves as the baseline.
+ *
+ * @param name the scenario name
+ * @param latencySpike delays a share of the requests, or null
+ * @param bandwidthBytesPerSecond caps the response bandwidth per connection, or 0 for no cap
+ * @param resetProbability share of the requests whose connection is reset instead of answered
+ * @param tooManyRequests answers bursts of requests with 429, or null
+ */
+public record FaultScenario(
+    String name,
+    LatencySpike latencySpike,
+    int bandwidthBytesPerSecond,
+    double resetProbability,
+    TooManyRequests tooManyRequests) {
+
+  /** Scenario without any faults. */
+  public static final FaultScenario NONE = new FaultScenario("none", null, 0, 0, null);
+
+  /** Default scenario file, looked up on the file system and then on the classpath. */
+  public static final String DEFAULT_FILE = "fault-scenarios.json";
+
+  private static final ObjectMapper objectMapper =
+      new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  /**
+   * Delays a share of the requests before they are forwarded.
+   *
+   * @param probability the share of delayed requests, between 0 and 1
+   * @param delayMillis the delay
+   */
+  public record LatencySpike(double probability, int delayMillis) {}
+
+  /**
+   * Answers the last {@code burstLength} requests of every {@code everyRequests} requests with 429
+   * Too Many Requests. The {@code Retry-After} value cycles through {@code retryAfterSeconds}, one
+   * value per burst.
+   *
+   * @param everyRequests the length of a period in requests
+   * @param burstLength the number of rejected requests at the end of each period
+   * @param retryAfterSeconds the Retry-After values, or empty to send no header
+   */
+  public record TooManyRequests(
+      int everyRequests, int burstLength, List<Integer> retryAfterSeconds) {
+
+    /**
+     * Returns the Retry-After value for a request, if it falls into a burst.
+     *
+     * @param requestNumber the 1-based number of the request since the scenario started
+     * @return the Retry-After seconds, -1 if no header is sent, or null if the request is not
+     *     rejected
+     */
+    Integer retryAfterFor(long requestNumber) {
+      long position = (requestNumber - 1) % everyRequests;
+      if (position < everyRequests - burstLength) {
+        return null;
+      }
+      if (retryAfterSeconds == null || retryAfterSeconds.isEmpty()) {
+        return -1;
+      }
+      long burst = (requestNumber - 1) / everyRequests;
+      return retryAfterSeconds.get((int) (burst % retryAfterSeconds.size()));
+    }
+  }
+
+  /**
+   * Loads the scenarios of a file.
+   *
+   * @param file the file path or classpath resource
+   * @return the scenarios in file order
+   * @throws IOException if the file cannot be read
+   */
+  public static List<FaultScenario> load(String file) throws IOException {
+    Path path = Path.of(file);
+    try (InputStream in =
+        Files.exists(path)
+            ? Files.newInputStream(path)
+            : FaultScenario.class.getClassLoader().getResourceAsStream(file)) {
+      if (in == null) {
+        throw new IOException("Fault scenario file not found: " + file);
+      }
+      Map<String, List<FaultScenario>> scenarios =
+          objectMapper.readValue(in, new TypeReference<>() {});
+      return scenarios.getOrDefault("scenarios", List.of());
+    }
+  }
+
+  /**
+   * Finds a scenario by name.
+   *
+   * @param file the file path or classpath resource
+   * @param name the scenario name
+   * @return the scenario
+   * @throws IOException if the file cannot be read or has no such scenario
+   */
+  public static FaultScenario load(String file, String name) throws IOException {
+    return load(file).stream()
+        .filter(scenario -> scenario.name().equals(name))
+        .findFirst()
+        .orElseThrow(() -> new IOException("No fault scenario '" + name + "' in " + file));
+  }
+}
@@ -0,0 +1,98 @@
+package testUtils;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.util.PropertiesUtils;
+import java.io.InputStream;
+import java.nio.file.Path;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IExecutionListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import utils.HarnessProfile;
+
+/**
+ * TestNG listener that applies the {@link HarnessProfile} to Allure: unless the profile writes
+ * Allure results, the global Allure lifecycle is replaced with one that discards them. Otherwise
+ * the results are written off the test threads by an {@link AsyncResultsWriter}, which is flushed
+ * at the end of every suite and of the run; {@code -Dallure.async=false} keeps Allure's synchronous
+ * writer and {@code -Dallure.async.capacity} (default 1024) bounds the pending writes.
+ *
+ * <p>The listener is registered as a TestNG service in {@code META-INF/services}, so that TestNG
+ * loads it before the {@code AllureTestNg} service of the Allure jar (test classes come first on
+ * the class path) and the Allure listener picks up the replaced lifecycle when it is created.
+ */
+public class HarnessProfileListener implements ISuiteListener, IExecutionListener {
+
+  private static final Logger logger = LogManager.getLogger(HarnessProfileListener.class);
+
+  private static AsyncResultsWriter asyncWriter;
+
+  private static final HarnessProfile profile = applyProfile();
+
+  /**
+   * Logs the profile the suite runs with.
+   *
+   * @param suite the suite
+   */
+  @Override
+  public void onStart(ISuite suite) {
+    logger.info("Running suite {} with the {} harness profile", suite.getName(), profile);
+  }
+
+  /**
+   * Waits until the Allure results of the suite are written.
+   *
+   * @param suite the suite
+   */
+  @Override
+  public void onFinish(ISuite suite) {
+    if (asyncWriter != null && !asyncWriter.flush()) {
+      logger.warn("Allure results of suite {} may be incomplete", suite.getName());
+    }
+  }
+
+  /** Waits until the Allure results written after the last suite, such as containers, are done. */
+  @Override
+  public void onExecutionFinish() {
+    if (asyncWriter != null) {
+      asyncWriter.flush();
+    }
+  }
+
+  private static HarnessProfile applyProfile() {
+    HarnessProfile profile = HarnessProfile.current();
+    if (!profile.writesAllureResults()) {
+      Allure.setLifecycle(new AllureLifecycle(new DiscardingResultsWriter()));
+    } else if (Boolean.parseBoolean(System.getProperty("allure.async", "true"))) {
+      Path resultsDirectory =
+          Path.of(
+              PropertiesUtils.loadAllureProperties()
+                  .getProperty("allure.results.directory", "allure-results"));
+      asyncWriter =
+          new AsyncResultsWriter(
+              new FileSystemResultsWriter(resultsDirectory),
+              Integer.getInteger("allure.async.capacity", 1024));
+      Allure.setLifecycle(new AllureLifecycle(asyncWriter));
+    }
+    return profile;
+  }
+
+  /** Allure results writer that drops all results and attachments. */
+  private static class DiscardingResultsWriter implements AllureResultsWriter {
+
+    @Override
+    public void write(TestResult testResult) {}
+
+    @Override
+    public void write(TestResultContainer testResultContainer) {}
+
+    @Override
+    public void write(String source, InputStream attachment) {}
+  }
+}
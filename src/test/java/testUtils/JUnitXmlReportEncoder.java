@@ -0,0 +1,280 @@
+package testUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import testUtils.TestResultsRecords.TestIterationResult;
+import testUtils.TestResultsRecords.TestResult;
+import testUtils.TestResultsRecords.TestResultReport;
+
+/**
+ * Writes the report as JUnit XML, the format understood by most CI test result viewers.
+ *
+ * <p>The document is streamed element by element with {@link XMLStreamWriter}. Every iteration of
+ * a data-driven test kept in the report becomes its own {@code <testcase>}, and the iterations left
+ * out of it are summed up in one more; the test case ID is kept as a property.
+ * Outcomes map to {@code <failure>} for {@code Failed} and {@code <skipped>} for {@code Error}
+ * (TestNG skips). Additional report sections are not part of the JUnit schema and are left out.
+ */
+public class JUnitXmlReportEncoder implements ReportEncoder {
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+  @Override
+  public String fileExtension() {
+    return ".junit.xml";
+  }
+
+  @Override
+  public void encode(TestResultReport report, Map<String, Object> sections, OutputStream out)
+      throws IOException {
+    try {
+      XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+      int[] totals = countOutcomes(report.testResults());
+      long durationInMs =
+          report.testResults().values().stream().mapToLong(TestResult::durationInMs).sum();
+
+      xml.writeStartDocument("UTF-8", "1.0");
+      xml.writeStartElement("testsuites");
+      xml.writeAttribute("name", report.testPlanName());
+      writeTotals(xml, totals, durationInMs);
+      xml.writeStartElement("testsuite");
+      xml.writeAttribute("name", report.testSuiteName());
+      writeTotals(xml, totals, durationInMs);
+      for (Map.Entry<String, TestResult> entry : report.testResults().entrySet()) {
+        writeTestCase(xml, report.testSuiteName(), entry.getKey(), entry.getValue());
+      }
+      xml.writeEndElement();
+      xml.writeEndElement();
+      xml.writeEndDocument();
+      xml.flush();
+      xml.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Failed to write JUnit XML report", e);
+    }
+  }
+
+  /**
+   * Writes the test cases of one test result, one per iteration for data-driven tests.
+   *
+   * @param xml the XML writer
+   * @param suiteName the test suite name, used as class name
+   * @param testCaseId the test case ID
+   * @param result the test result
+   * @throws XMLStreamException if writing fails
+   */
+  private void writeTestCase(
+      XMLStreamWriter xml, String suiteName, String testCaseId, TestResult result)
+      throws XMLStreamException {
+    List<TestIterationResult> iterations = result.iterationDetails();
+    if (iterations.isEmpty()) {
+      writeTestCase(
+          xml,
+          suiteName,
+          testCaseId,
+          result.comment(),
+          result.outcome(),
+          result.durationInMs(),
+          result.errorMessage());
+      return;
+    }
+    for (TestIterationResult iteration : iterations) {
+      writeTestCase(
+          xml,
+          suiteName,
+          testCaseId,
+          result.comment() + " [" + iteration.id() + "] " + iteration.comment(),
+          iteration.outcome(),
+          iteration.durationInMs(),
+          iteration.errorMessage());
+    }
+    Map<String, Integer> omitted = omittedOutcomes(result);
+    if (!omitted.isEmpty()) {
+      long keptDurationInMs =
+          iterations.stream().mapToLong(TestIterationResult::durationInMs).sum();
+      writeTestCase(
+          xml,
+          suiteName,
+          testCaseId,
+          result.comment() + " [" + describe(omitted) + "]",
+          worstOutcome(omitted),
+          result.durationInMs() - keptDurationInMs,
+          "");
+    }
+  }
+
+  /**
+   * Counts by outcome the iterations of a test result that are not kept in its details.
+   *
+   * @param result the test result
+   * @return the omitted iteration count by outcome, empty when every iteration is kept
+   */
+  private Map<String, Integer> omittedOutcomes(TestResult result) {
+    Map<String, Integer> omitted = new LinkedHashMap<>(result.iterationOutcomes());
+    result
+        .iterationDetails()
+        .forEach(iteration -> omitted.merge(iteration.outcome(), -1, Integer::sum));
+    omitted.values().removeIf(count -> count <= 0);
+    return omitted;
+  }
+
+  /**
+   * Describes omitted iterations, such as {@code 900 more iterations: 890 Passed, 10 Failed}.
+   *
+   * @param omitted the omitted iteration count by outcome
+   * @return the description
+   */
+  private String describe(Map<String, Integer> omitted) {
+    int total = omitted.values().stream().mapToInt(Integer::intValue).sum();
+    return total
+        + " more iterations: "
+        + omitted.entrySet().stream()
+            .map(entry -> entry.getValue() + " " + entry.getKey())
+            .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Returns the outcome reported for omitted iterations: {@code Failed} if any failed, otherwise
+   * {@code Error} if any was skipped, otherwise {@code Passed}.
+   *
+   * @param omitted the omitted iteration count by outcome
+   * @return the outcome
+   */
+  private String worstOutcome(Map<String, Integer> omitted) {
+    if (omitted.containsKey("Failed")) {
+      return "Failed";
+    }
+    return omitted.containsKey("Error") ? "Error" : "Passed";
+  }
+
+  /**
+   * Writes a single {@code <testcase>} element.
+   *
+   * @param xml the XML writer
+   * @param suiteName the test suite name, used as class name
+   * @param testCaseId the test case ID
+   * @param name the test name
+   * @param outcome the outcome
+   * @param durationInMs the duration in milliseconds
+   * @param errorMessage the error message, may be empty
+   * @throws XMLStreamException if writing fails
+   */
+  private void writeTestCase(
+      XMLStreamWriter xml,
+      String suiteName,
+      String testCaseId,
+      String name,
+      String outcome,
+      long durationInMs,
+      String errorMessage)
+      throws XMLStreamException {
+    xml.writeStartElement("testcase");
+    xml.writeAttribute("name", name);
+    xml.writeAttribute("classname", suiteName);
+    xml.writeAttribute("time", toSeconds(durationInMs));
+    xml.writeStartElement("properties");
+    xml.writeEmptyElement("property");
+    xml.writeAttribute("name", "testCaseId");
+    xml.writeAttribute("value", testCaseId);
+    xml.writeEndElement();
+    switch (outcome) {
+      case "Failed" -> {
+        xml.writeStartElement("failure");
+        xml.writeAttribute("message", firstLine(errorMessage));
+        xml.writeCharacters(errorMessage == null ? "" : errorMessage);
+        xml.writeEndElement();
+      }
+      case "Error" -> {
+        xml.writeEmptyElement("skipped");
+        xml.writeAttribute("message", firstLine(errorMessage));
+      }
+      default -> {}
+    }
+    xml.writeEndElement();
+  }
+
+  /**
+   * Writes the {@code tests}, {@code failures}, {@code skipped} and {@code time} attributes.
+   *
+   * @param xml the XML writer
+   * @param totals the test, failure and skip counts
+   * @param durationInMs the total duration in milliseconds
+   * @throws XMLStreamException if writing fails
+   */
+  private void writeTotals(XMLStreamWriter xml, int[] totals, long durationInMs)
+      throws XMLStreamException {
+    xml.writeAttribute("tests", String.valueOf(totals[0]));
+    xml.writeAttribute("failures", String.valueOf(totals[1]));
+    xml.writeAttribute("errors", "0");
+    xml.writeAttribute("skipped", String.valueOf(totals[2]));
+    xml.writeAttribute("time", toSeconds(durationInMs));
+  }
+
+  /**
+   * Counts the test cases, failures and skips as written by {@link #writeTestCase}.
+   *
+   * @param testResults the test results
+   * @return the test, failure and skip counts
+   */
+  private int[] countOutcomes(Map<String, TestResult> testResults) {
+    int[] totals = new int[3];
+    for (TestResult result : testResults.values()) {
+      if (result.iterationDetails().isEmpty()) {
+        count(totals, result.outcome());
+      } else {
+        result.iterationDetails().forEach(iteration -> count(totals, iteration.outcome()));
+        Map<String, Integer> omitted = omittedOutcomes(result);
+        if (!omitted.isEmpty()) {
+          count(totals, worstOutcome(omitted));
+        }
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Adds one outcome to the totals.
+   *
+   * @param totals the test, failure and skip counts
+   * @param outcome the outcome
+   */
+  private void count(int[] totals, String outcome) {
+    totals[0]++;
+    if ("Failed".equals(outcome)) {
+      totals[1]++;
+    } else if ("Error".equals(outcome)) {
+      totals[2]++;
+    }
+  }
+
+  /**
+   * Formats a duration in seconds as JUnit XML expects.
+   *
+   * @param durationInMs the duration in milliseconds
+   * @return the duration in seconds with millisecond precision
+   */
+  private String toSeconds(long durationInMs) {
+    return String.format(Locale.ROOT, "%.3f", durationInMs / 1_000.0);
+  }
+
+  /**
+   * Returns the first line of a message, used for the {@code message} attribute.
+   *
+   * @param message the message
+   * @return the first line, or an empty string
+   */
+  private String firstLine(String message) {
+    if (message == null) {
+      return "";
+    }
+    int newline = message.indexOf('\n');
+    return newline < 0 ? message : message.substring(0, newline);
+  }
+}
@@ -0,0 +1,85 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import testUtils.TestResultsRecords.TestResultReport;
+
+/**
+ * Report encoder backed by a Jackson data format: pretty-printed JSON for people and the existing
+ * integrations, or the binary Smile and CBOR formats for compact and fast machine-to-machine
+ * transfer. All three produce the same document tree and can be read back with {@link
+ * #read(Path)}.
+ */
+public class JacksonReportEncoder implements ReportEncoder {
+
+  /** Pretty-printed JSON, the default format. */
+  public static final JacksonReportEncoder JSON =
+      new JacksonReportEncoder(new JsonFactory(), ".json", true);
+
+  /** Binary Jackson Smile. */
+  public static final JacksonReportEncoder SMILE =
+      new JacksonReportEncoder(new SmileFactory(), ".smile", false);
+
+  /** Binary CBOR (RFC 8949). */
+  public static final JacksonReportEncoder CBOR =
+      new JacksonReportEncoder(new CBORFactory(), ".cbor", false);
+
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter writer;
+  private final String fileExtension;
+
+  /**
+   * Creates an encoder.
+   *
+   * @param factory the Jackson factory of the format
+   * @param fileExtension the file name suffix
+   * @param prettyPrint whether to indent the output
+   */
+  private JacksonReportEncoder(JsonFactory factory, String fileExtension, boolean prettyPrint) {
+    this.objectMapper =
+        new ObjectMapper(factory).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.writer =
+        prettyPrint ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer();
+    this.fileExtension = fileExtension;
+  }
+
+  @Override
+  public String fileExtension() {
+    return fileExtension;
+  }
+
+  @Override
+  public void encode(TestResultReport report, Map<String, Object> sections, OutputStream out)
+      throws IOException {
+    writer.writeValue(out, ReportEncoder.toDocument(report, sections));
+  }
+
+  /**
+   * Reads a report written by any of the Jackson encoders, choosing the format by file extension.
+   *
+   * @param path the report file
+   * @return the report document
+   * @throws IOException if the file cannot be read
+   */
+  public static Map<String, Object> read(Path path) throws IOException {
+    String fileName = path.getFileName().toString();
+    JacksonReportEncoder encoder =
+        fileName.endsWith(SMILE.fileExtension)
+            ? SMILE
+            : fileName.endsWith(CBOR.fileExtension) ? CBOR : JSON;
+    try (InputStream in = Files.newInputStream(path)) {
+      return encoder.objectMapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package testUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.hamcrest.TypeSafeMatcher;
+
+/**
+ * Hamcrest matcher that parses a JSON response body once and evaluates several checks against it.
+ *
+ * <p>Every {@code .body(path, matcher)} call of RestAssured evaluates its path with the Groovy
+ * GPath engine. This matcher is passed to RestAssured's whole-body {@code .body(matcher)} instead,
+ * parses the body once with Jackson and then evaluates all checks on the parsed tree:
+ *
+ * <pre>{@code
+ * .then()
+ * .statusCode(201)
+ * .body(
+ *     json()
+ *         .path("id", log(logger, Matchers.notNullValue()))
+ *         .path("title", log(logger, Matchers.equalTo(book.getTitle()))));
+ * }</pre>
+ *
+ * <p>Paths support the GPath subset used by the tests: dotted field names, {@code $} for the root,
+ * {@code [index]} and {@code size()}. A field of a list collects the field of every element, as in
+ * GPath. Numbers are parsed as {@code Integer}, {@code Long} or {@code Double}. Checks can also run
+ * against a typed object with {@link #as(Class, Matcher)}. All checks are evaluated, so the log of
+ * a {@link LoggingMatcher} looks the same as with separate {@code .body} calls.
+ */
+public class JsonBodyMatcher extends TypeSafeMatcher<String> {
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  /** Parsed paths, shared because the same paths are evaluated for every response. */
+  private static final Map<String, String[]> compiledPaths = new ConcurrentHashMap<>();
+
+  private final List<Check> checks = new ArrayList<>();
+
+  // Outcome of the last evaluation, reused to describe a mismatch without evaluating again
+  private String evaluatedBody;
+  private Object evaluatedRoot;
+  private Object[] actualValues;
+  private boolean[] results;
+
+  /**
+   * Creates an empty JSON body matcher.
+   *
+   * @return the matcher
+   */
+  public static JsonBodyMatcher json() {
+    return new JsonBodyMatcher();
+  }
+
+  /**
+   * Adds a check of the value at a path.
+   *
+   * @param path the path, e.g. {@code "id"} or {@code "$.size()"}
+   * @param matcher the matcher of the value
+   * @return this matcher
+   */
+  public JsonBodyMatcher path(String path, Matcher<?> matcher) {
+    checks.add(new Check("path \"" + path + "\"", root -> evaluate(root, path), matcher));
+    return this;
+  }
+
+  /**
+   * Adds a check of the body mapped to a type, e.g. {@code Book} or {@code Book[]}.
+   *
+   * @param type the type to map the parsed body to
+   * @param matcher the matcher of the typed body
+   * @param <T> the type
+   * @return this matcher
+   */
+  public <T> JsonBodyMatcher as(Class<T> type, Matcher<? super T> matcher) {
+    checks.add(
+        new Check(type.getSimpleName(), root -> objectMapper.convertValue(root, type), matcher));
+    return this;
+  }
+
+  /**
+   * Parses the body and evaluates all checks.
+   *
+   * @param body the response body
+   * @return true if every check matches
+   */
+  @Override
+  protected boolean matchesSafely(String body) {
+    evaluatedBody = body;
+    actualValues = new Object[checks.size()];
+    results = new boolean[checks.size()];
+    evaluatedRoot = parse(body);
+    if (evaluatedRoot == null) {
+      return false;
+    }
+    boolean matches = true;
+    for (int i = 0; i < checks.size(); i++) {
+      actualValues[i] = checks.get(i).extractor().apply(evaluatedRoot);
+      results[i] = checks.get(i).matcher().matches(actualValues[i]);
+      matches &= results[i];
+    }
+    return matches;
+  }
+
+  @Override
+  public void describeTo(Description description) {
+    description.appendText("JSON body with ");
+    for (int i = 0; i < checks.size(); i++) {
+      description
+          .appendText(i == 0 ? "" : ", ")
+          .appendText(checks.get(i).name())
+          .appendText(" ")
+          .appendDescriptionOf(checks.get(i).matcher());
+    }
+  }
+
+  @Override
+  protected void describeMismatchSafely(String body, Description description) {
+    // RestAssured may pass an equal copy of the body; evaluating again would log every check twice
+    if (!body.equals(evaluatedBody)) {
+      matchesSafely(body);
+    }
+    if (evaluatedRoot == null) {
+      description.appendText("body is not valid JSON: ").appendValue(body);
+      return;
+    }
+    boolean first = true;
+    for (int i = 0; i < checks.size(); i++) {
+      Check check = checks.get(i);
+      if (!results[i]) {
+        StringDescription mismatch = new StringDescription();
+        check.matcher().describeMismatch(actualValues[i], mismatch);
+        description
+            .appendText(first ? "" : "\n     and: ")
+            .appendText(check.name())
+            .appendText(" ")
+            .appendText(mismatch.toString());
+        first = false;
+      }
+    }
+  }
+
+  /**
+   * Parses a JSON body.
+   *
+   * @param body the body
+   * @return the parsed tree of maps, lists and values, or null if the body is not JSON
+   */
+  private static Object parse(String body) {
+    try {
+      return objectMapper.readValue(body, Object.class);
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Evaluates a path against a parsed body.
+   *
+   * @param root the parsed body
+   * @param path the path
+   * @return the value at the path, or null if absent
+   */
+  static Object evaluate(Object root, String path) {
+    Object value = root;
+    for (String segment : compiledPaths.computeIfAbsent(path, JsonBodyMatcher::compile)) {
+      value = step(value, segment);
+    }
+    return value;
+  }
+
+  /**
+   * Splits a path into segments, turning {@code a[0]} into {@code a} and {@code [0]}.
+   *
+   * @param path the path
+   * @return the segments without the root {@code $}
+   */
+  private static String[] compile(String path) {
+    List<String> segments = new ArrayList<>();
+    for (String part : path.replace("[", ".[").split("\\.")) {
+      if (!part.isEmpty() && !part.equals("$")) {
+        segments.add(part);
+      }
+    }
+    return segments.toArray(String[]::new);
+  }
+
+  /**
+   * Applies one path segment.
+   *
+   * @param value the current value
+   * @param segment the segment
+   * @return the resulting value
+   */
+  private static Object step(Object value, String segment) {
+    if (segment.equals("size()")) {
+      if (value instanceof List<?> list) {
+        return list.size();
+      }
+      return value instanceof Map<?, ?> map ? map.size() : null;
+    }
+    if (segment.startsWith("[")) {
+      int index = Integer.parseInt(segment.substring(1, segment.length() - 1));
+      if (value instanceof List<?> list) {
+        int position = index < 0 ? list.size() + index : index;
+        return position >= 0 && position < list.size() ? list.get(position) : null;
+      }
+      return null;
+    }
+    if (value instanceof Map<?, ?> map) {
+      return map.get(segment);
+    }
+    if (value instanceof List<?> list) {
+      List<Object> values = new ArrayList<>(list.size());
+      for (Object element : list) {
+        values.add(step(element, segment));
+      }
+      return values;
+    }
+    return null;
+  }
+
+  /**
+   * A single check of the body.
+   *
+   * @param name the name used in descriptions
+   * @param extractor extracts the checked value from the parsed body
+   * @param matcher the matcher of the value
+   */
+  private record Check(String name, Function<Object, Object> extractor, Matcher<?> matcher) {}
+}
@@ -0,0 +1,540 @@
+package testUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.restassured.RestAssured;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import testUtils.LoadGenerator.Mix;
+import utils.LatencyHistogram;
+
+/**
+ * Spreads an open-loop load over several worker JVMs, for rates one JVM cannot send.
+ *
+ * <p>The coordinator seeds {@code load.books} books (default 100), starts {@code load.workers}
+ * local {@link LoadWorker} JVMs (default 2) and waits for them and for {@code load.remoteWorkers}
+ * workers started by hand on other hosts (default 0) to connect on {@code load.port} (default any
+ * free port) of {@code load.bindAddress} (default the loopback interface). Each worker is assigned
+ * an equal share of the target rate {@code load.rps} (default 200) and every n-th seeded book.
+ * Once all workers have warmed up, they are given a common wall-clock start time, {@code
+ * load.startDelayMs} (default 1000) ahead, and send the mix {@code load.mix} (see {@link
+ * CapacitySearch}) for {@code load.seconds} (default 30).
+ *
+ * <p>The workers send back their counters and the raw bucket counts of their {@link
+ * LatencyHistogram}, which are merged losslessly by adding them, so that the percentiles of the
+ * report are those of all requests rather than an average of per-worker percentiles. The report
+ * is printed and written to {@code load.report} (default {@value #DEFAULT_REPORT_PATH}). The API
+ * is {@code api.baseUri} (default {@code http://localhost:3000}), or an in-memory {@link
+ * BookApiStub} with {@code -Dload.stub=true}. Each local worker runs in its own directory under
+ * {@value #WORKER_DIRECTORY}, so that its logs do not overwrite those of the coordinator.
+ */
+public class LoadCoordinator {
+
+  static final String DEFAULT_REPORT_PATH = "test-results/distributed-load-report.json";
+  static final String WORKER_DIRECTORY = "test-results/load";
+
+  /** Maps the JSON of the messages between coordinator and workers, one line per message. */
+  static final ObjectMapper MESSAGE_MAPPER = new ObjectMapper();
+
+  private static final String DEFAULT_MIX = "mixed:get=60,list=20,create=10,update=10";
+  private static final String TITLE_PREFIX = "Load";
+  private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+  private static final int RESULT_GRACE_MILLIS = 120_000;
+  private static final ObjectMapper objectMapper =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private static final Logger logger = LogManager.getLogger(LoadCoordinator.class);
+
+  /**
+   * The share of the load of a worker.
+   *
+   * @param worker the 0-based index of the worker
+   * @param workers the number of workers
+   * @param baseUri the API
+   * @param mix the mix, as parsed by {@link Mix#parse}
+   * @param rps the rate of the worker
+   * @param seconds the duration
+   * @param bookIds the seeded books the worker targets
+   * @param maxInFlight the requests in flight above which the worker counts requests as errors
+   */
+  record Assignment(
+      int worker,
+      int workers,
+      String baseUri,
+      String mix,
+      double rps,
+      int seconds,
+      List<Integer> bookIds,
+      int maxInFlight) {}
+
+  /**
+   * What a worker measured.
+   *
+   * @param worker the 0-based index of the worker
+   * @param host the host name of the worker
+   * @param requests the number of scheduled requests
+   * @param responses the number of responses received
+   * @param tooManyRequests the number of 429 responses
+   * @param errors the number of other failed requests
+   * @param startEpochMillis when the worker started sending
+   * @param endEpochMillis when the worker received its last response
+   * @param bucketCounts the raw bucket counts of the latency histogram
+   * @param sumMicros the sum of the latencies
+   * @param maxMicros the largest latency
+   */
+  record WorkerResult(
+      int worker,
+      String host,
+      long requests,
+      long responses,
+      long tooManyRequests,
+      long errors,
+      long startEpochMillis,
+      long endEpochMillis,
+      long[] bucketCounts,
+      long sumMicros,
+      long maxMicros) {
+
+    /**
+     * Returns the latency histogram of the worker.
+     *
+     * @return the histogram
+     */
+    LatencyHistogram latency() {
+      LatencyHistogram latency = new LatencyHistogram();
+      latency.merge(bucketCounts, sumMicros, maxMicros);
+      return latency;
+    }
+  }
+
+  /**
+   * The summary of a worker in the report.
+   *
+   * @param worker the 0-based index of the worker
+   * @param host the host name of the worker
+   * @param requests the number of scheduled requests
+   * @param achievedRps the rate responses were received at
+   * @param tooManyRequestsRate the share of 429 responses
+   * @param errorRate the share of other failed requests
+   * @param p50Millis the median latency
+   * @param p90Millis the 90th percentile latency
+   * @param p99Millis the 99th percentile latency
+   * @param startOffsetMillis when the worker started, after the first worker
+   */
+  record WorkerSummary(
+      int worker,
+      String host,
+      long requests,
+      double achievedRps,
+      double tooManyRequestsRate,
+      double errorRate,
+      double p50Millis,
+      double p90Millis,
+      double p99Millis,
+      long startOffsetMillis) {}
+
+  /**
+   * The merged report of a run.
+   *
+   * @param baseUri the API
+   * @param mix the mix
+   * @param targetRps the total target rate
+   * @param seconds the duration
+   * @param requests the scheduled requests of all workers
+   * @param responses the responses of all workers
+   * @param achievedRps the rate responses were received at, from the first start to the last end
+   * @param tooManyRequestsRate the share of 429 responses
+   * @param errorRate the share of other failed requests
+   * @param p50Millis the median latency of all requests
+   * @param p90Millis the 90th percentile latency of all requests
+   * @param p99Millis the 99th percentile latency of all requests
+   * @param maxMillis the largest latency
+   * @param startSkewMillis the time between the first and the last worker start
+   * @param workers the summaries of the workers
+   */
+  record LoadReport(
+      String baseUri,
+      String mix,
+      double targetRps,
+      int seconds,
+      long requests,
+      long responses,
+      double achievedRps,
+      double tooManyRequestsRate,
+      double errorRate,
+      double p50Millis,
+      double p90Millis,
+      double p99Millis,
+      double maxMillis,
+      long startSkewMillis,
+      List<WorkerSummary> workers) {}
+
+  /**
+   * A connected worker.
+   *
+   * @param socket the socket
+   * @param in reads the lines of the worker
+   * @param out writes lines to the worker
+   * @param host the host name the worker said hello with
+   */
+  private record Connection(Socket socket, BufferedReader in, PrintWriter out, String host) {}
+
+  /**
+   * Runs the distributed load and writes the report.
+   *
+   * @param args not used
+   * @throws IOException if a worker cannot be started or fails, or the report cannot be written
+   * @throws InterruptedException if interrupted while waiting for the workers to exit
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int localWorkers = Integer.getInteger("load.workers", 2);
+    int workers = localWorkers + Integer.getInteger("load.remoteWorkers", 0);
+    if (workers <= 0) {
+      throw new IllegalArgumentException("At least one worker is needed");
+    }
+    double rps = Double.parseDouble(System.getProperty("load.rps", "200"));
+    int seconds = Integer.getInteger("load.seconds", 30);
+    String mix = System.getProperty("load.mix", DEFAULT_MIX);
+    Mix.parse(mix);
+    int books = Math.max(workers, Integer.getInteger("load.books", 100));
+    String bindAddress = System.getProperty("load.bindAddress", "");
+    InetAddress address =
+        bindAddress.isBlank()
+            ? InetAddress.getLoopbackAddress()
+            : InetAddress.getByName(bindAddress);
+    Path reportPath = Path.of(System.getProperty("load.report", DEFAULT_REPORT_PATH));
+
+    BookApiStub stub = Boolean.getBoolean("load.stub") ? new BookApiStub(0) : null;
+    List<Process> processes = new ArrayList<>();
+    List<Connection> connections = new ArrayList<>();
+    try (ServerSocket server =
+        new ServerSocket(Integer.getInteger("load.port", 0), 50, address)) {
+      String baseUri =
+          stub != null
+              ? stub.baseUri()
+              : System.getProperty("api.baseUri", "http://localhost:3000");
+      RestAssured.baseURI = baseUri;
+      RestAssured.basePath = "/api/books";
+      List<Integer> bookIds = LoadGenerator.seedBooks(TITLE_PREFIX, books);
+
+      String coordinator =
+          (address.isAnyLocalAddress() ? InetAddress.getLoopbackAddress() : address)
+                  .getHostAddress()
+              + ":"
+              + server.getLocalPort();
+      logger.info(
+          "Load coordinator on {} waiting for {} workers ({} local)",
+          server.getLocalSocketAddress(),
+          workers,
+          localWorkers);
+      for (int i = 0; i < localWorkers; i++) {
+        processes.add(startLocalWorker(i, coordinator));
+      }
+      server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+      while (connections.size() < workers) {
+        connections.add(accept(server));
+      }
+
+      for (int i = 0; i < workers; i++) {
+        List<Integer> share = new ArrayList<>();
+        for (int j = i; j < bookIds.size(); j += workers) {
+          share.add(bookIds.get(j));
+        }
+        Assignment assignment =
+            new Assignment(
+                i,
+                workers,
+                baseUri,
+                mix,
+                rps / workers,
+                seconds,
+                share,
+                Integer.getInteger("load.maxInFlight", 1000));
+        connections.get(i).out().println("ASSIGN " + MESSAGE_MAPPER.writeValueAsString(assignment));
+      }
+      for (int i = 0; i < workers; i++) {
+        await(connections.get(i), i, "READY");
+      }
+      // Start once all workers are warmed up, leaving time for the start message to arrive
+      long startAt = System.currentTimeMillis() + Long.getLong("load.startDelayMs", 1000);
+      for (Connection connection : connections) {
+        connection.out().println("START " + startAt);
+      }
+
+      List<WorkerResult> results = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        results.add(result(connections.get(i), i, seconds));
+      }
+      LoadReport report = merge(baseUri, mix, rps, seconds, results);
+      Files.createDirectories(reportPath.toAbsolutePath().getParent());
+      objectMapper.writeValue(reportPath.toFile(), report);
+      System.out.print(format(report));
+      logger.info("Distributed load report written to {}", reportPath);
+    } finally {
+      for (Connection connection : connections) {
+        connection.socket().close();
+      }
+      for (Process process : processes) {
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+          process.destroyForcibly();
+        }
+      }
+      RestAssured.reset();
+      if (stub != null) {
+        stub.close();
+      }
+    }
+  }
+
+  /**
+   * Starts a local worker JVM with the class path of the coordinator, in its own directory.
+   *
+   * @param index the index of the local worker
+   * @param coordinator the {@code host:port} the worker connects to
+   * @return the worker process
+   * @throws IOException if the process cannot be started
+   */
+  private static Process startLocalWorker(int index, String coordinator) throws IOException {
+    Path directory = Path.of(WORKER_DIRECTORY, "worker-" + index).toAbsolutePath();
+    Files.createDirectories(directory);
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("-cp");
+    command.add(classPath());
+    command.add("-Dload.coordinator=" + coordinator);
+    // Tokens are obtained the same way as in the coordinator
+    System.getProperties().stringPropertyNames().stream()
+        .filter(name -> name.startsWith("auth."))
+        .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+    command.add(LoadWorker.class.getName());
+    return new ProcessBuilder(command)
+        .directory(directory.toFile())
+        .redirectErrorStream(true)
+        .redirectOutput(directory.resolve("worker.log").toFile())
+        .start();
+  }
+
+  /**
+   * Returns the absolute class path of the coordinator, which under {@code exec:java} is that of
+   * its class loader rather than {@code java.class.path}.
+   *
+   * @return the class path
+   */
+  private static String classPath() {
+    Stream<Path> entries;
+    if (LoadCoordinator.class.getClassLoader() instanceof URLClassLoader loader) {
+      List<Path> paths = new ArrayList<>();
+      for (URL url : loader.getURLs()) {
+        try {
+          paths.add(Path.of(url.toURI()));
+        } catch (URISyntaxException e) {
+          throw new IllegalStateException("Unexpected class path entry " + url, e);
+        }
+      }
+      entries = paths.stream();
+    } else {
+      entries =
+          Stream.of(System.getProperty("java.class.path").split(File.pathSeparator)).map(Path::of);
+    }
+    return entries
+        .map(path -> path.toAbsolutePath().toString())
+        .collect(Collectors.joining(File.pathSeparator));
+  }
+
+  /**
+   * Accepts a worker and reads its hello.
+   *
+   * @param server the server socket
+   * @return the connection
+   * @throws IOException if no worker connects in time or it does not say hello
+   */
+  private static Connection accept(ServerSocket server) throws IOException {
+    Socket socket = server.accept();
+    BufferedReader in =
+        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    String hello = in.readLine();
+    if (hello == null || !hello.startsWith("HELLO ")) {
+      socket.close();
+      throw new IOException("Expected a worker hello but got: " + hello);
+    }
+    logger.info("Worker connected from {} ({})", socket.getRemoteSocketAddress(), hello);
+    return new Connection(socket, in, out, hello.substring("HELLO ".length()));
+  }
+
+  /**
+   * Waits for a worker to answer a message.
+   *
+   * @param connection the worker
+   * @param index the index of the worker
+   * @param expected the expected answer
+   * @throws IOException if the worker answers anything else or does not answer in time
+   */
+  private static void await(Connection connection, int index, String expected)
+      throws IOException {
+    connection.socket().setSoTimeout(RESULT_GRACE_MILLIS);
+    String line = connection.in().readLine();
+    if (!expected.equals(line)) {
+      throw new IOException("Worker " + index + " on " + connection.host() + " failed: " + line);
+    }
+  }
+
+  /**
+   * Reads the result of a worker.
+   *
+   * @param connection the worker
+   * @param index the index of the worker
+   * @param seconds the duration of the load
+   * @return the result
+   * @throws IOException if the worker fails or does not answer in time
+   */
+  private static WorkerResult result(Connection connection, int index, int seconds)
+      throws IOException {
+    connection.socket().setSoTimeout(seconds * 1000 + RESULT_GRACE_MILLIS);
+    String line = connection.in().readLine();
+    if (line == null || !line.startsWith("RESULT ")) {
+      throw new IOException("Worker " + index + " on " + connection.host() + " failed: " + line);
+    }
+    return MESSAGE_MAPPER.readValue(line.substring("RESULT ".length()), WorkerResult.class);
+  }
+
+  /**
+   * Merges the results of the workers.
+   *
+   * @param baseUri the API
+   * @param mix the mix
+   * @param rps the total target rate
+   * @param seconds the duration
+   * @param results the results of the workers
+   * @return the report
+   */
+  static LoadReport merge(
+      String baseUri, String mix, double rps, int seconds, List<WorkerResult> results) {
+    LatencyHistogram latency = new LatencyHistogram();
+    long requests = 0;
+    long responses = 0;
+    long tooManyRequests = 0;
+    long errors = 0;
+    long firstStart = Long.MAX_VALUE;
+    long lastStart = Long.MIN_VALUE;
+    long lastEnd = Long.MIN_VALUE;
+    for (WorkerResult result : results) {
+      latency.merge(result.bucketCounts(), result.sumMicros(), result.maxMicros());
+      requests += result.requests();
+      responses += result.responses();
+      tooManyRequests += result.tooManyRequests();
+      errors += result.errors();
+      firstStart = Math.min(firstStart, result.startEpochMillis());
+      lastStart = Math.max(lastStart, result.startEpochMillis());
+      lastEnd = Math.max(lastEnd, result.endEpochMillis());
+    }
+    List<WorkerSummary> workers = new ArrayList<>();
+    for (WorkerResult result : results) {
+      LatencyHistogram workerLatency = result.latency();
+      workers.add(
+          new WorkerSummary(
+              result.worker(),
+              result.host(),
+              result.requests(),
+              result.responses()
+                  / ((result.endEpochMillis() - result.startEpochMillis()) / 1000.0),
+              result.tooManyRequests() / (double) result.requests(),
+              result.errors() / (double) result.requests(),
+              workerLatency.percentileMillis(50),
+              workerLatency.percentileMillis(90),
+              workerLatency.percentileMillis(99),
+              result.startEpochMillis() - firstStart));
+    }
+    return new LoadReport(
+        baseUri,
+        mix,
+        rps,
+        seconds,
+        requests,
+        responses,
+        responses / ((lastEnd - firstStart) / 1000.0),
+        tooManyRequests / (double) requests,
+        errors / (double) requests,
+        latency.percentileMillis(50),
+        latency.percentileMillis(90),
+        latency.percentileMillis(99),
+        latency.maxMicros() / 1000.0,
+        lastStart - firstStart,
+        workers);
+  }
+
+  /**
+   * Formats the report as a table.
+   *
+   * @param report the report
+   * @return the text
+   */
+  static String format(LoadReport report) {
+    StringBuilder text =
+        new StringBuilder(
+            String.format(
+                "%nMix %s at %.1f requests/s over %d workers (start skew %d ms)%n",
+                report.mix(),
+                report.targetRps(),
+                report.workers().size(),
+                report.startSkewMillis()));
+    text.append(
+        String.format(
+            "%-8s %-20s %9s %10s %9s %9s %9s %7s %7s%n",
+            "worker",
+            "host",
+            "requests",
+            "achieved/s",
+            "p50 ms",
+            "p90 ms",
+            "p99 ms",
+            "429 %",
+            "error %"));
+    String row = "%-8s %-20s %9d %10.1f %9.3f %9.3f %9.3f %7.2f %7.2f%n";
+    for (WorkerSummary worker : report.workers()) {
+      text.append(
+          String.format(
+              row,
+              worker.worker(),
+              worker.host(),
+              worker.requests(),
+              worker.achievedRps(),
+              worker.p50Millis(),
+              worker.p90Millis(),
+              worker.p99Millis(),
+              worker.tooManyRequestsRate() * 100,
+              worker.errorRate() * 100));
+    }
+    text.append(
+        String.format(
+            row,
+            "all",
+            "",
+            report.requests(),
+            report.achievedRps(),
+            report.p50Millis(),
+            report.p90Millis(),
+            report.p99Millis(),
+            report.tooManyRequestsRate() * 100,
+            report.errorRate() * 100));
+    return text.toString();
+  }
+}
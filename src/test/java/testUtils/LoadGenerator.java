@@ -0,0 +1,252 @@
+package testUtils;
+
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+
+import io.restassured.response.Response;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pojos.Book;
+import utils.LatencyHistogram;
+
+/**
+ * Open-loop load on the Book API: requests of an endpoint mix are started at a fixed rate, each on
+ * its own virtual thread, whether or not earlier ones have completed, and the latency of each
+ * request is measured from its scheduled start, so that a saturated API shows up as latency
+ * instead of as a lower rate. Used by {@link CapacitySearch} and {@link LoadWorker}.
+ *
+ * <p>Gets and updates target the given book IDs; creates and updates use titles with a given
+ * prefix, so that several generators do not create duplicates, and searches look the prefix up.
+ * RestAssured must already point at the API.
+ */
+public class LoadGenerator {
+
+  private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+
+  /** A request of a mix. */
+  public enum Operation {
+    GET,
+    LIST,
+    SEARCH,
+    CREATE,
+    UPDATE
+  }
+
+  /**
+   * A named endpoint mix.
+   *
+   * @param name the mix name
+   * @param weights the relative weight of each operation
+   */
+  public record Mix(String name, Map<Operation, Integer> weights) {
+
+    /**
+     * Parses a mix such as {@code read:get=70,list=30}.
+     *
+     * @param text the mix
+     * @return the mix
+     * @throws IllegalArgumentException if the mix is malformed or has no positive weight
+     */
+    public static Mix parse(String text) {
+      String[] nameAndWeights = text.strip().split(":", 2);
+      if (nameAndWeights.length != 2) {
+        throw new IllegalArgumentException("Mix without a name: " + text);
+      }
+      Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+      for (String weight : nameAndWeights[1].split(",")) {
+        String[] operationAndWeight = weight.strip().split("=", 2);
+        if (operationAndWeight.length != 2) {
+          throw new IllegalArgumentException("Malformed weight '" + weight + "' in mix " + text);
+        }
+        weights.put(
+            Operation.valueOf(operationAndWeight[0].strip().toUpperCase()),
+            Integer.parseInt(operationAndWeight[1].strip()));
+      }
+      if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+        throw new IllegalArgumentException("Mix without a positive weight: " + text);
+      }
+      return new Mix(nameAndWeights[0].strip(), weights);
+    }
+
+    /**
+     * Picks a random operation by weight.
+     *
+     * @param random the random source
+     * @return the operation
+     */
+    Operation pick(ThreadLocalRandom random) {
+      int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+      int point = random.nextInt(total);
+      for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+        point -= weight.getValue();
+        if (point < 0) {
+          return weight.getKey();
+        }
+      }
+      throw new IllegalStateException("No operation picked in mix " + name);
+    }
+  }
+
+  /**
+   * What a run of the generator measured.
+   *
+   * @param requests the number of scheduled requests
+   * @param responses the number of responses received
+   * @param tooManyRequests the number of 429 responses
+   * @param errors the number of other 4xx and 5xx responses, failed requests and requests not sent
+   *     because too many were in flight
+   * @param latency the latency of every sent request from its scheduled start
+   * @param elapsedNanos the time from the first scheduled request to the last response
+   */
+  public record Sample(
+      long requests,
+      long responses,
+      long tooManyRequests,
+      long errors,
+      LatencyHistogram latency,
+      long elapsedNanos) {
+
+    /**
+     * Returns the rate responses were received at.
+     *
+     * @return the responses per second
+     */
+    public double achievedRps() {
+      return responses / (elapsedNanos / 1e9);
+    }
+  }
+
+  private final List<Integer> bookIds;
+  private final int maxInFlight;
+  private final String titlePrefix;
+  private final AtomicLong titles = new AtomicLong();
+
+  /**
+   * Creates a generator.
+   *
+   * @param bookIds the IDs of the books that gets and updates target, not empty
+   * @param maxInFlight the number of requests in flight above which scheduled requests are counted
+   *     as errors instead of being sent
+   * @param titlePrefix the prefix of the titles of created and updated books
+   */
+  public LoadGenerator(List<Integer> bookIds, int maxInFlight, String titlePrefix) {
+    this.bookIds = List.copyOf(bookIds);
+    this.maxInFlight = maxInFlight;
+    this.titlePrefix = titlePrefix;
+  }
+
+  /**
+   * Creates books for gets and updates to target, with titles unique to this call.
+   *
+   * @param titlePrefix the prefix of the titles
+   * @param count the number of books
+   * @return the IDs of the created books
+   */
+  public static List<Integer> seedBooks(String titlePrefix, int count) {
+    String runToken = Long.toString(System.nanoTime(), 36);
+    List<Integer> bookIds = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Book book = new Book(titlePrefix + " " + runToken + " Seed " + i, "Load Author");
+      bookIds.add(USER.create(book).then().statusCode(201).extract().as(Book.class).getId());
+    }
+    return bookIds;
+  }
+
+  /**
+   * Sends gets one after the other, e.g. to load RestAssured's classes and open connections before
+   * a measured run.
+   *
+   * @param requests the number of requests
+   */
+  public void warmUp(int requests) {
+    for (int i = 0; i < requests; i++) {
+      ANONYMOUS.get(bookIds.get(i % bookIds.size()));
+    }
+  }
+
+  /**
+   * Sends the requests of a mix at a fixed rate, starting now, and waits for their responses.
+   *
+   * @param mix the mix
+   * @param rps the target rate
+   * @param seconds the duration
+   * @return the sample
+   */
+  public Sample run(Mix mix, double rps, int seconds) {
+    LatencyHistogram latency = new LatencyHistogram();
+    LongAdder responses = new LongAdder();
+    LongAdder tooManyRequests = new LongAdder();
+    LongAdder errors = new LongAdder();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    long requests = Math.max(1, Math.round(rps * seconds));
+    long interval = Math.round(1e9 / rps);
+    long start = System.nanoTime();
+    try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long i = 0; i < requests; i++) {
+        long scheduled = start + i * interval;
+        LockSupport.parkNanos(scheduled - System.nanoTime());
+        if (!inFlight.tryAcquire()) {
+          errors.increment();
+          continue;
+        }
+        Operation operation = mix.pick(ThreadLocalRandom.current());
+        senders.execute(
+            () -> {
+              try {
+                int status = send(operation).getStatusCode();
+                responses.increment();
+                if (status == 429) {
+                  tooManyRequests.increment();
+                } else if (status >= 400) {
+                  errors.increment();
+                }
+              } catch (RuntimeException e) {
+                logger.debug("{} failed: {}", operation, e.toString());
+                errors.increment();
+              } finally {
+                latency.recordNanos(System.nanoTime() - scheduled);
+                inFlight.release();
+              }
+            });
+      }
+    }
+    return new Sample(
+        requests,
+        responses.sum(),
+        tooManyRequests.sum(),
+        errors.sum(),
+        latency,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Sends one request of an operation.
+   *
+   * @param operation the operation
+   * @return the response
+   */
+  private Response send(Operation operation) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int bookId = bookIds.get(random.nextInt(bookIds.size()));
+    return switch (operation) {
+      case GET -> ANONYMOUS.get(bookId);
+      case LIST -> ANONYMOUS.list(random.nextInt(1, 4), 10);
+      case SEARCH -> ANONYMOUS.search(titlePrefix, null);
+      case CREATE ->
+          USER.create(new Book(titlePrefix + " Book " + titles.incrementAndGet(), "Load Author"));
+      case UPDATE ->
+          USER.update(bookId, Map.of("title", titlePrefix + " Update " + titles.incrementAndGet()));
+    };
+  }
+}
@@ -0,0 +1,145 @@
+package testUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.restassured.RestAssured;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import testUtils.LoadCoordinator.Assignment;
+import testUtils.LoadCoordinator.WorkerResult;
+import testUtils.LoadGenerator.Mix;
+import testUtils.LoadGenerator.Sample;
+
+/**
+ * Worker JVM of a distributed load run of the {@link LoadCoordinator}.
+ *
+ * <p>The coordinator starts local workers itself; on other hosts, start one per JVM with {@code
+ * -Dload.coordinator=<host>:<port>}. The worker connects to the coordinator and sends {@code
+ * HELLO <host>}, receives an {@code ASSIGN <json>} line with its share of the rate and of the
+ * seeded books, warms up with a few gets and answers {@code READY}. It then receives the common
+ * start time as a {@code START <epoch millis>} line, runs a {@link LoadGenerator} from that time
+ * and answers with a {@code RESULT <json>} line holding its counters and the raw bucket counts of
+ * its latency histogram, or an {@code ERROR <message>} line. The hosts' clocks must be
+ * synchronized, e.g. with NTP, for the common start time to hold.
+ */
+public class LoadWorker {
+
+  private static final int WARM_UP_REQUESTS = 20;
+  private static final Logger logger = LogManager.getLogger(LoadWorker.class);
+
+  /**
+   * Runs the worker.
+   *
+   * @param args not used
+   * @throws IOException if the coordinator cannot be reached
+   */
+  public static void main(String[] args) throws IOException {
+    String coordinator = System.getProperty("load.coordinator", "");
+    int separator = coordinator.lastIndexOf(':');
+    if (separator <= 0) {
+      throw new IllegalArgumentException(
+          "Expected -Dload.coordinator=<host>:<port> but got '" + coordinator + "'");
+    }
+    String host = InetAddress.getLocalHost().getHostName();
+    try (Socket socket =
+            new Socket(
+                coordinator.substring(0, separator),
+                Integer.parseInt(coordinator.substring(separator + 1)));
+        BufferedReader in =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out =
+            new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+      out.println("HELLO " + host);
+      String request = in.readLine();
+      if (request == null || !request.startsWith("ASSIGN ")) {
+        throw new IOException("Expected an assignment but got: " + request);
+      }
+      ObjectMapper mapper = LoadCoordinator.MESSAGE_MAPPER;
+      Assignment assignment =
+          mapper.readValue(request.substring("ASSIGN ".length()), Assignment.class);
+      try {
+        LoadGenerator generator = prepare(assignment);
+        out.println("READY");
+        String start = in.readLine();
+        if (start == null || !start.startsWith("START ")) {
+          throw new IOException("Expected a start time but got: " + start);
+        }
+        long startAt = Long.parseLong(start.substring("START ".length()));
+        out.println(
+            "RESULT " + mapper.writeValueAsString(run(assignment, generator, startAt, host)));
+      } catch (RuntimeException | InterruptedException e) {
+        logger.error("Worker {} failed", assignment.worker(), e);
+        out.println("ERROR " + e);
+      }
+    } finally {
+      RestAssured.reset();
+    }
+  }
+
+  /**
+   * Points RestAssured at the API of an assignment and warms up.
+   *
+   * @param assignment the assignment
+   * @return the generator of the assignment
+   */
+  static LoadGenerator prepare(Assignment assignment) {
+    RestAssured.baseURI = assignment.baseUri();
+    RestAssured.basePath = "/api/books";
+    LoadGenerator generator =
+        new LoadGenerator(
+            assignment.bookIds(), assignment.maxInFlight(), "Load W" + assignment.worker());
+    generator.warmUp(WARM_UP_REQUESTS);
+    return generator;
+  }
+
+  /**
+   * Runs the load of an assignment from the common start time.
+   *
+   * @param assignment the assignment
+   * @param generator the generator of the assignment
+   * @param startAtEpochMillis the common start time
+   * @param host the host name of the worker
+   * @return the result
+   * @throws InterruptedException if interrupted while waiting for the start time
+   */
+  static WorkerResult run(
+      Assignment assignment, LoadGenerator generator, long startAtEpochMillis, String host)
+      throws InterruptedException {
+    Mix mix = Mix.parse(assignment.mix());
+    long delay = startAtEpochMillis - System.currentTimeMillis();
+    if (delay > 0) {
+      Thread.sleep(delay);
+    } else {
+      logger.warn("Worker {} starts {} ms late", assignment.worker(), -delay);
+    }
+    logger.info(
+        "Worker {} of {} sending {} {} at {} requests/s for {} s",
+        assignment.worker(),
+        assignment.workers(),
+        mix.name(),
+        mix.weights(),
+        assignment.rps(),
+        assignment.seconds());
+    long start = System.currentTimeMillis();
+    Sample sample = generator.run(mix, assignment.rps(), assignment.seconds());
+    return new WorkerResult(
+        assignment.worker(),
+        host,
+        sample.requests(),
+        sample.responses(),
+        sample.tooManyRequests(),
+        sample.errors(),
+        start,
+        System.currentTimeMillis(),
+        sample.latency().bucketCounts(),
+        sample.latency().sumMicros(),
+        sample.latency().maxMicros());
+  }
+}
@@ -0,0 +1,149 @@
+package testUtils;
+
+import java.util.Arrays;
+
+/**
+ * One-sided Mann-Whitney U test, used to decide whether one set of durations is stochastically
+ * larger than another without assuming the durations are normally distributed.
+ *
+ * <p>Samples carry weights so that histogram buckets can be tested directly, a bucket with count
+ * {@code n} being equivalent to {@code n} identical samples. Ties are ranked by their mid-rank and
+ * the p-value uses the normal approximation with tie and continuity correction.
+ */
+public class MannWhitneyUTest {
+
+  /** Coefficients of the erfc approximation, lowest order first. */
+  private static final double[] ERFC_COEFFICIENTS = {
+    -1.26551223, 1.00002368, 0.37409196, 0.09678418, -0.18628806,
+    0.27886807, -1.13520398, 1.48851587, -0.82215223, 0.17087277
+  };
+
+  /**
+   * Result of a test.
+   *
+   * @param u the U statistic of the candidate sample
+   * @param z the standardized statistic
+   * @param pValue the one-sided p-value for "candidate is larger than baseline"
+   */
+  public record Result(double u, double z, double pValue) {}
+
+  /**
+   * Tests whether the candidate sample tends to be larger than the baseline sample.
+   *
+   * @param baseline the baseline values
+   * @param candidate the candidate values
+   * @return the test result
+   */
+  public static Result greater(double[] baseline, double[] candidate) {
+    long[] baselineWeights = new long[baseline.length];
+    long[] candidateWeights = new long[candidate.length];
+    Arrays.fill(baselineWeights, 1);
+    Arrays.fill(candidateWeights, 1);
+    return greater(baseline, baselineWeights, candidate, candidateWeights);
+  }
+
+  /**
+   * Tests whether the weighted candidate sample tends to be larger than the weighted baseline.
+   *
+   * @param baseline the baseline values
+   * @param baselineWeights the number of occurrences of each baseline value
+   * @param candidate the candidate values
+   * @param candidateWeights the number of occurrences of each candidate value
+   * @return the test result
+   */
+  public static Result greater(
+      double[] baseline, long[] baselineWeights, double[] candidate, long[] candidateWeights) {
+    int size = baseline.length + candidate.length;
+    double[] values = new double[size];
+    long[] weights = new long[size];
+    boolean[] isCandidate = new boolean[size];
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < baseline.length; i++) {
+      values[i] = baseline[i];
+      weights[i] = baselineWeights[i];
+    }
+    for (int i = 0; i < candidate.length; i++) {
+      values[baseline.length + i] = candidate[i];
+      weights[baseline.length + i] = candidateWeights[i];
+      isCandidate[baseline.length + i] = true;
+    }
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+    double n1 = sum(baselineWeights);
+    double n2 = sum(candidateWeights);
+    double candidateRankSum = 0;
+    double tieCorrection = 0;
+    double rank = 0;
+    int i = 0;
+    while (i < size) {
+      int j = i;
+      long tiedWeight = 0;
+      long tiedCandidateWeight = 0;
+      while (j < size && values[order[j]] == values[order[i]]) {
+        tiedWeight += weights[order[j]];
+        if (isCandidate[order[j]]) {
+          tiedCandidateWeight += weights[order[j]];
+        }
+        j++;
+      }
+      double midRank = rank + (tiedWeight + 1) / 2.0;
+      candidateRankSum += midRank * tiedCandidateWeight;
+      tieCorrection += Math.pow(tiedWeight, 3) - tiedWeight;
+      rank += tiedWeight;
+      i = j;
+    }
+
+    double u = candidateRankSum - n2 * (n2 + 1) / 2;
+    double n = n1 + n2;
+    double mean = n1 * n2 / 2;
+    double variance = n1 * n2 / 12 * ((n + 1) - tieCorrection / (n * (n - 1)));
+    if (n1 == 0 || n2 == 0 || variance <= 0) {
+      return new Result(u, 0, 1);
+    }
+    double z = (u - mean - 0.5) / Math.sqrt(variance);
+    return new Result(u, z, 1 - normalCdf(z));
+  }
+
+  /**
+   * Sums weights.
+   *
+   * @param weights the weights
+   * @return the total weight
+   */
+  private static long sum(long[] weights) {
+    long total = 0;
+    for (long weight : weights) {
+      total += weight;
+    }
+    return total;
+  }
+
+  /**
+   * Standard normal cumulative distribution function.
+   *
+   * @param z the standardized value
+   * @return the probability of a standard normal value being at most {@code z}
+   */
+  static double normalCdf(double z) {
+    return 0.5 * erfc(-z / Math.sqrt(2));
+  }
+
+  /**
+   * Complementary error function with a fractional error below 1.2e-7 (Chebyshev fit).
+   *
+   * @param x the argument
+   * @return erfc(x)
+   */
+  private static double erfc(double x) {
+    double t = 1 / (1 + 0.5 * Math.abs(x));
+    double polynomial = 0;
+    for (int i = ERFC_COEFFICIENTS.length - 1; i >= 0; i--) {
+      polynomial = polynomial * t + ERFC_COEFFICIENTS[i];
+    }
+    double y = t * Math.exp(-x * x + polynomial);
+    return x >= 0 ? y : 2 - y;
+  }
+}
@@ -0,0 +1,190 @@
+package testUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Local OAuth2 token endpoint for running the suite with {@link
+ * utils.ClientCredentialsTokenProvider} without a real issuer.
+ *
+ * <p>It serves {@code POST /oauth/token} with the client credentials grant, authenticating clients
+ * with HTTP Basic credentials. Each registered client is issued a fixed access token, so the
+ * default clients {@code user} and {@code admin} (empty secrets) receive the {@code user-token} and
+ * {@code admin-token} the Book API accepts. Tokens are declared valid for {@code expiresInSeconds}.
+ */
+public final class MockTokenIssuer implements AutoCloseable {
+
+  private static final String TOKEN_PATH = "/oauth/token";
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Logger logger = LogManager.getLogger(MockTokenIssuer.class);
+
+  /**
+   * A registered client.
+   *
+   * @param secret the client secret
+   * @param accessToken the access token issued to the client
+   */
+  private record Client(String secret, String accessToken) {}
+
+  private final HttpServer server;
+  private final long expiresInSeconds;
+  private final Map<String, Client> clients = new ConcurrentHashMap<>();
+  private final LongAdder issued = new LongAdder();
+
+  /**
+   * Starts the issuer on the loopback interface with the default {@code user} and {@code admin}
+   * clients.
+   *
+   * @param port the port, or 0 for any free port
+   * @param expiresInSeconds the lifetime of the issued tokens
+   * @throws IOException if the server cannot be started
+   */
+  public MockTokenIssuer(int port, long expiresInSeconds) throws IOException {
+    this.expiresInSeconds = expiresInSeconds;
+    register("user", "", "user-token");
+    register("admin", "", "admin-token");
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext(TOKEN_PATH, this::handle);
+    server.start();
+  }
+
+  /**
+   * Registers a client, replacing any client with the same ID.
+   *
+   * @param clientId the client ID
+   * @param secret the client secret
+   * @param accessToken the access token to issue to the client
+   */
+  public void register(String clientId, String secret, String accessToken) {
+    clients.put(clientId, new Client(secret, accessToken));
+  }
+
+  /**
+   * Returns the URL of the token endpoint, to be used as {@code auth.tokenUrl}.
+   *
+   * @return the token URL
+   */
+  public String tokenUrl() {
+    return "http://"
+        + server.getAddress().getHostString()
+        + ":"
+        + server.getAddress().getPort()
+        + TOKEN_PATH;
+  }
+
+  /**
+   * Returns the number of tokens issued so far.
+   *
+   * @return the number of tokens
+   */
+  public long issued() {
+    return issued.sum();
+  }
+
+  /** Stops the issuer. */
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * Issues a token if the request is a client credentials grant from a registered client.
+   *
+   * @param exchange the exchange
+   * @throws IOException if the response cannot be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+      int status;
+      Map<String, Object> body;
+      if (!exchange.getRequestMethod().equals("POST")) {
+        status = 405;
+        body = Map.of("error", "invalid_request");
+      } else if (!form.contains("grant_type=client_credentials")) {
+        status = 400;
+        body = Map.of("error", "unsupported_grant_type");
+      } else {
+        Client client = authenticate(exchange.getRequestHeaders().getFirst("Authorization"));
+        if (client == null) {
+          status = 401;
+          body = Map.of("error", "invalid_client");
+          exchange.getResponseHeaders().add("WWW-Authenticate", "Basic");
+        } else {
+          issued.increment();
+          status = 200;
+          body =
+              Map.of(
+                  "access_token",
+                  client.accessToken(),
+                  "token_type",
+                  "Bearer",
+                  "expires_in",
+                  expiresInSeconds);
+        }
+      }
+      byte[] bytes = objectMapper.writeValueAsBytes(body);
+      exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+      exchange.getResponseHeaders().add("Cache-Control", "no-store");
+      exchange.sendResponseHeaders(status, bytes.length);
+      exchange.getResponseBody().write(bytes);
+    }
+  }
+
+  /**
+   * Returns the client of HTTP Basic credentials.
+   *
+   * @param authorization the Authorization header, or null
+   * @return the client, or null if the credentials are missing or wrong
+   */
+  private Client authenticate(String authorization) {
+    if (authorization == null || !authorization.startsWith("Basic ")) {
+      return null;
+    }
+    String credentials;
+    try {
+      credentials =
+          new String(
+              Base64.getDecoder().decode(authorization.substring(6).trim()),
+              StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    int colon = credentials.indexOf(':');
+    if (colon < 0) {
+      return null;
+    }
+    String clientId = URLDecoder.decode(credentials.substring(0, colon), StandardCharsets.UTF_8);
+    String secret = URLDecoder.decode(credentials.substring(colon + 1), StandardCharsets.UTF_8);
+    Client client = clients.get(clientId);
+    return client != null && client.secret().equals(secret) ? client : null;
+  }
+
+  /**
+   * Runs the issuer until the JVM is stopped.
+   *
+   * @param args the port (default 3002) and the token lifetime in seconds (default 300)
+   * @throws IOException if the server cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    MockTokenIssuer issuer =
+        new MockTokenIssuer(
+            args.length > 0 ? Integer.parseInt(args[0]) : 3002,
+            args.length > 1 ? Long.parseLong(args[1]) : 300);
+    logger.info("Mock token issuer listening on {}", issuer.tokenUrl());
+  }
+}
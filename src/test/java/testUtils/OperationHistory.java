@@ -0,0 +1,145 @@
+package testUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import pojos.Book;
+
+/**
+ * Thread-safe log of the operations of a concurrent workload, with their real-time invocation and
+ * completion times and what they observed, for the {@link ConsistencyChecker}.
+ */
+public class OperationHistory {
+
+  /** Status recorded when a request failed without a response, so its effect is unknown. */
+  public static final int NO_RESPONSE = -1;
+
+  /** Kind of an operation. */
+  public enum Type {
+    CREATE,
+    READ,
+    SEARCH,
+    UPDATE,
+    DELETE
+  }
+
+  /**
+   * One completed operation.
+   *
+   * @param type the operation type
+   * @param threadId the ID of the thread that ran it
+   * @param invokedNanos nanoseconds since the history started when the request was sent
+   * @param completedNanos nanoseconds since the history started when the response was received
+   * @param bookId the targeted book ID, or 0 for create and search
+   * @param written the book sent by create and update, or null
+   * @param status the HTTP status, or {@link #NO_RESPONSE}
+   * @param observed the books returned by the API, empty if none
+   */
+  public record Operation(
+      Type type,
+      long threadId,
+      long invokedNanos,
+      long completedNanos,
+      int bookId,
+      Book written,
+      int status,
+      List<Book> observed) {
+
+    /**
+     * Returns whether this operation completed before another one was invoked.
+     *
+     * @param other the other operation
+     * @return true if this operation precedes the other in real time
+     */
+    public boolean precedes(Operation other) {
+      return completedNanos < other.invokedNanos;
+    }
+
+    /**
+     * Returns whether the outcome of this operation is known.
+     *
+     * @return false if no response was received
+     */
+    public boolean hasResponse() {
+      return status != NO_RESPONSE;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s%s book %d on thread #%d at %.3f..%.3f ms -> %d",
+          type,
+          written == null ? "" : " '" + written.getTitle() + "'",
+          bookId,
+          threadId,
+          invokedNanos / 1e6,
+          completedNanos / 1e6,
+          status);
+    }
+  }
+
+  /**
+   * The response of a recorded request.
+   *
+   * @param status the HTTP status
+   * @param observed the books in the response body, empty if none
+   */
+  public record Outcome(int status, List<Book> observed) {}
+
+  private final ConcurrentLinkedQueue<Operation> operations = new ConcurrentLinkedQueue<>();
+  private final long originNanos = System.nanoTime();
+
+  /**
+   * Runs a request and records it. A request that throws is recorded with {@link #NO_RESPONSE}
+   * and the exception is rethrown.
+   *
+   * @param type the operation type
+   * @param bookId the targeted book ID, or 0
+   * @param written the book sent, or null
+   * @param request sends the request and returns its outcome
+   * @return the outcome
+   */
+  public Outcome record(Type type, int bookId, Book written, Supplier<Outcome> request) {
+    long invoked = System.nanoTime() - originNanos;
+    Outcome outcome = null;
+    try {
+      outcome = request.get();
+      return outcome;
+    } finally {
+      long completed = System.nanoTime() - originNanos;
+      operations.add(
+          new Operation(
+              type,
+              Thread.currentThread().threadId(),
+              invoked,
+              completed,
+              bookId,
+              written,
+              outcome == null ? NO_RESPONSE : outcome.status(),
+              outcome == null ? List.of() : outcome.observed()));
+    }
+  }
+
+  /**
+   * Returns the current time on the clock of the recorded operations, e.g. to compare the window
+   * of a sequence of requests with them.
+   *
+   * @return nanoseconds since the history started
+   */
+  public long nanosSinceStart() {
+    return System.nanoTime() - originNanos;
+  }
+
+  /**
+   * Returns the recorded operations ordered by invocation time.
+   *
+   * @return the operations
+   */
+  public List<Operation> operations() {
+    List<Operation> sorted = new ArrayList<>(operations);
+    sorted.sort(Comparator.comparingLong(Operation::invokedNanos));
+    return sorted;
+  }
+}
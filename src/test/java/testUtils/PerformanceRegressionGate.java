@@ -0,0 +1,386 @@
+package testUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.JsonUtils;
+import utils.LatencyHistogram;
+
+/**
+ * Performance regression gate comparing the current run against a stored baseline run.
+ *
+ * <p>Both runs are read from {@code test-results-report.json} files. Durations are compared per
+ * {@code testCaseId}, using the durations of the passed iterations, and per endpoint, using the
+ * latency histograms in the {@code endpointLatency} section. Each comparison runs a one-sided
+ * {@link MannWhitneyUTest}; the family-wise error rate is controlled with the Holm-Bonferroni
+ * procedure, and a slowdown must also exceed a minimum relative change of the median to count as a
+ * regression. Comparisons with too few samples are reported but never fail the gate.
+ *
+ * <p><b>Configuration (system properties):</b>
+ *
+ * <ul>
+ *   <li>{@code perf.baseline}: baseline report path, default {@value #DEFAULT_BASELINE_PATH}
+ *   <li>{@code perf.alpha}: family-wise significance level, default 0.01
+ *   <li>{@code perf.minSlowdown}: minimum relative slowdown of the median, default 0.10
+ *   <li>{@code perf.minSamples}: minimum samples per side, default 5
+ *   <li>{@code perf.updateBaseline}: copy the current report over the baseline when the gate passes
+ * </ul>
+ *
+ * <p>Run it after the tests with {@code mvn exec:java@perf-gate}; the build fails when at least
+ * one regression is found.
+ */
+public class PerformanceRegressionGate {
+
+  /** Default location of the baseline report. */
+  static final String DEFAULT_BASELINE_PATH = "test-results/baseline/test-results-report.json";
+
+  private static final Logger logger = LogManager.getLogger(PerformanceRegressionGate.class);
+
+  private final double alpha;
+  private final double minSlowdown;
+  private final int minSamples;
+
+  /** Verdict of a single comparison. */
+  public enum Verdict {
+    REGRESSION,
+    NOT_SIGNIFICANT,
+    INSUFFICIENT_SAMPLES
+  }
+
+  /**
+   * Comparison of one test case or endpoint between the baseline and current run.
+   *
+   * @param key the test case ID or endpoint
+   * @param baselineSamples number of baseline samples
+   * @param currentSamples number of current samples
+   * @param baselineMedianMs baseline median in milliseconds
+   * @param currentMedianMs current median in milliseconds
+   * @param pValue one-sided p-value, 1 when not tested
+   * @param verdict the verdict
+   */
+  public record Comparison(
+      String key,
+      long baselineSamples,
+      long currentSamples,
+      double baselineMedianMs,
+      double currentMedianMs,
+      double pValue,
+      Verdict verdict) {
+
+    /**
+     * Returns the relative change of the median.
+     *
+     * @return the change, e.g. 0.25 for 25% slower
+     */
+    public double change() {
+      return baselineMedianMs == 0 ? 0 : currentMedianMs / baselineMedianMs - 1;
+    }
+  }
+
+  /** Weighted samples of one test case or endpoint. */
+  private record Samples(double[] values, long[] weights) {
+
+    private long count() {
+      long count = 0;
+      for (long weight : weights) {
+        count += weight;
+      }
+      return count;
+    }
+
+    private double median() {
+      long count = count();
+      if (count == 0) {
+        return 0;
+      }
+      Integer[] order = new Integer[values.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+      long seen = 0;
+      for (int index : order) {
+        seen += weights[index];
+        if (seen * 2 >= count) {
+          return values[index];
+        }
+      }
+      return values[order[order.length - 1]];
+    }
+  }
+
+  /**
+   * Creates a gate.
+   *
+   * @param alpha family-wise significance level
+   * @param minSlowdown minimum relative slowdown of the median
+   * @param minSamples minimum number of samples on each side
+   */
+  public PerformanceRegressionGate(double alpha, double minSlowdown, int minSamples) {
+    this.alpha = alpha;
+    this.minSlowdown = minSlowdown;
+    this.minSamples = minSamples;
+  }
+
+  /**
+   * Runs the gate against the configured baseline and the current results report.
+   *
+   * @param args unused
+   * @throws IOException if the baseline cannot be updated
+   */
+  public static void main(String[] args) throws IOException {
+    Path baselinePath = Path.of(System.getProperty("perf.baseline", DEFAULT_BASELINE_PATH));
+    Path currentPath = Path.of(TestResultsReporter.TEST_CASE_RESULTS_FILE_PATH);
+    PerformanceRegressionGate gate =
+        new PerformanceRegressionGate(
+            Double.parseDouble(System.getProperty("perf.alpha", "0.01")),
+            Double.parseDouble(System.getProperty("perf.minSlowdown", "0.10")),
+            Integer.parseInt(System.getProperty("perf.minSamples", "5")));
+
+    Map<String, Object> current = JsonUtils.jsonFileToMap(currentPath);
+    if (current.isEmpty()) {
+      throw new IllegalStateException("No current test results report at " + currentPath);
+    }
+    Map<String, Object> baseline = JsonUtils.jsonFileToMap(baselinePath);
+    List<Comparison> regressions = List.of();
+    if (baseline.isEmpty()) {
+      logger.warn("No baseline report at {}, skipping performance comparison", baselinePath);
+    } else {
+      List<Comparison> comparisons = gate.compare(baseline, current);
+      logTable(comparisons);
+      regressions =
+          comparisons.stream().filter(c -> c.verdict() == Verdict.REGRESSION).toList();
+    }
+
+    if (!regressions.isEmpty()) {
+      throw new IllegalStateException(
+          "Performance regression gate failed: "
+              + regressions.size()
+              + " significant slowdown(s) against "
+              + baselinePath);
+    }
+    if (Boolean.getBoolean("perf.updateBaseline")) {
+      Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+      Files.copy(currentPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+      logger.info("Baseline updated: {}", baselinePath);
+    }
+  }
+
+  /**
+   * Compares all test cases and endpoints present in both reports.
+   *
+   * @param baseline the baseline report
+   * @param current the current report
+   * @return the comparisons, regressions first ranked by relative slowdown
+   */
+  public List<Comparison> compare(Map<String, Object> baseline, Map<String, Object> current) {
+    List<Comparison> comparisons = new ArrayList<>();
+    Map<String, Object> baselineTests = section(baseline, "testResults");
+    section(current, "testResults")
+        .forEach(
+            (testCaseId, result) -> {
+              if (baselineTests.containsKey(testCaseId)) {
+                comparisons.add(
+                    compare(
+                        "TC " + testCaseId,
+                        iterationSamples(baselineTests.get(testCaseId)),
+                        iterationSamples(result)));
+              }
+            });
+    Map<String, Object> baselineEndpoints = section(baseline, "endpointLatency");
+    section(current, "endpointLatency")
+        .forEach(
+            (endpoint, latency) -> {
+              if (baselineEndpoints.containsKey(endpoint)) {
+                comparisons.add(
+                    compare(
+                        endpoint,
+                        histogramSamples(baselineEndpoints.get(endpoint)),
+                        histogramSamples(latency)));
+              }
+            });
+    return applyHolmCorrection(comparisons);
+  }
+
+  /**
+   * Runs the test for one key, before multiple-comparison correction.
+   *
+   * @param key the test case ID or endpoint
+   * @param baseline the baseline samples
+   * @param current the current samples
+   * @return the comparison; {@code REGRESSION} here only marks a candidate
+   */
+  private Comparison compare(String key, Samples baseline, Samples current) {
+    long baselineCount = baseline.count();
+    long currentCount = current.count();
+    double baselineMedian = baseline.median();
+    double currentMedian = current.median();
+    if (baselineCount < minSamples || currentCount < minSamples) {
+      return new Comparison(
+          key,
+          baselineCount,
+          currentCount,
+          baselineMedian,
+          currentMedian,
+          1,
+          Verdict.INSUFFICIENT_SAMPLES);
+    }
+    MannWhitneyUTest.Result result =
+        MannWhitneyUTest.greater(
+            baseline.values(), baseline.weights(), current.values(), current.weights());
+    return new Comparison(
+        key,
+        baselineCount,
+        currentCount,
+        baselineMedian,
+        currentMedian,
+        result.pValue(),
+        Verdict.NOT_SIGNIFICANT);
+  }
+
+  /**
+   * Applies the Holm-Bonferroni step-down procedure and the minimum slowdown to the tested
+   * comparisons, then ranks the result.
+   *
+   * @param comparisons the uncorrected comparisons
+   * @return the ranked comparisons with final verdicts
+   */
+  private List<Comparison> applyHolmCorrection(List<Comparison> comparisons) {
+    List<Comparison> tested =
+        comparisons.stream()
+            .filter(c -> c.verdict() != Verdict.INSUFFICIENT_SAMPLES)
+            .sorted(Comparator.comparingDouble(Comparison::pValue))
+            .toList();
+    List<Comparison> ranked = new ArrayList<>();
+    boolean rejecting = true;
+    for (int k = 0; k < tested.size(); k++) {
+      Comparison comparison = tested.get(k);
+      rejecting = rejecting && comparison.pValue() <= alpha / (tested.size() - k);
+      boolean regression = rejecting && comparison.change() >= minSlowdown;
+      ranked.add(
+          new Comparison(
+              comparison.key(),
+              comparison.baselineSamples(),
+              comparison.currentSamples(),
+              comparison.baselineMedianMs(),
+              comparison.currentMedianMs(),
+              comparison.pValue(),
+              regression ? Verdict.REGRESSION : Verdict.NOT_SIGNIFICANT));
+    }
+    comparisons.stream()
+        .filter(c -> c.verdict() == Verdict.INSUFFICIENT_SAMPLES)
+        .forEach(ranked::add);
+    ranked.sort(
+        Comparator.comparing(Comparison::verdict)
+            .thenComparing(Comparator.comparingDouble(Comparison::change).reversed()));
+    return ranked;
+  }
+
+  /**
+   * Extracts the durations of the passed iterations of a test case.
+   *
+   * @param testResult the test result from the JSON report
+   * @return the samples
+   */
+  @SuppressWarnings("unchecked")
+  private static Samples iterationSamples(Object testResult) {
+    List<Object> iterations =
+        testResult instanceof Map<?, ?> map && map.get("iterationDetails") instanceof List<?> list
+            ? (List<Object>) list
+            : List.of();
+    List<Double> durations = new ArrayList<>();
+    for (Object iteration : iterations) {
+      if (iteration instanceof Map<?, ?> details
+          && "Passed".equals(details.get("outcome"))
+          && details.get("durationInMs") instanceof Number duration) {
+        durations.add(duration.doubleValue());
+      }
+    }
+    double[] values = durations.stream().mapToDouble(Double::doubleValue).toArray();
+    long[] weights = new long[values.length];
+    Arrays.fill(weights, 1);
+    return new Samples(values, weights);
+  }
+
+  /**
+   * Converts the latency histogram buckets of an endpoint into weighted samples.
+   *
+   * @param endpointLatency the endpoint latency entry from the JSON report
+   * @return the samples
+   */
+  private static Samples histogramSamples(Object endpointLatency) {
+    Map<?, ?> buckets =
+        endpointLatency instanceof Map<?, ?> map && map.get("buckets") instanceof Map<?, ?> b
+            ? b
+            : Map.of();
+    double[] values = new double[buckets.size()];
+    long[] weights = new long[buckets.size()];
+    int i = 0;
+    for (Map.Entry<?, ?> bucket : buckets.entrySet()) {
+      int index = Integer.parseInt(bucket.getKey().toString());
+      values[i] = LatencyHistogram.bucketMidpointMillis(index);
+      weights[i] = ((Number) bucket.getValue()).longValue();
+      i++;
+    }
+    return new Samples(values, weights);
+  }
+
+  /**
+   * Returns a JSON object section of a report.
+   *
+   * @param report the report
+   * @param name the section name
+   * @return the section, or an empty map if absent
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> section(Map<String, Object> report, String name) {
+    return report.get(name) instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+  }
+
+  /**
+   * Logs the ranked comparison table.
+   *
+   * @param comparisons the ranked comparisons
+   */
+  private static void logTable(List<Comparison> comparisons) {
+    String format = "%-4s %-40s %12s %12s %9s %11s %10s  %s";
+    logger.info(
+        String.format(
+            format,
+            "Rank",
+            "Test case / endpoint",
+            "Base p50 ms",
+            "Curr p50 ms",
+            "Change",
+            "Samples",
+            "p-value",
+            "Verdict"));
+    int rank = 1;
+    for (Comparison c : comparisons) {
+      String line =
+          String.format(
+              format,
+              rank++,
+              c.key(),
+              String.format("%.2f", c.baselineMedianMs()),
+              String.format("%.2f", c.currentMedianMs()),
+              String.format("%+.1f%%", c.change() * 100),
+              c.baselineSamples() + "/" + c.currentSamples(),
+              String.format("%.4g", c.pValue()),
+              c.verdict());
+      if (c.verdict() == Verdict.REGRESSION) {
+        logger.error(line);
+      } else {
+        logger.info(line);
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package testUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import testUtils.TestResultsRecords.TestPlanSuite;
+import utils.JsonUtils;
+
+/**
+ * TestNG method interceptor that runs the most telling tests first, so that a broken deployment is
+ * reported within seconds.
+ *
+ * <p>Within every {@code <test>} the methods are ordered as follows, keeping the declaration order
+ * otherwise:
+ *
+ * <ol>
+ *   <li>methods of the {@code smoke} group
+ *   <li>methods whose test case did not pass in one of the last {@code priority.recentRuns} runs
+ *       (default 5) of the {@link RunHistory}
+ *   <li>all other methods
+ * </ol>
+ *
+ * <p>TestNG still runs {@code dependsOnMethods} dependencies before their dependents. Combine with
+ * {@link FailFastListener} to stop the run once enough tests have failed.
+ */
+public class PrioritizingMethodInterceptor implements IMethodInterceptor {
+
+  private static final Logger logger = LogManager.getLogger(PrioritizingMethodInterceptor.class);
+  private static final String SMOKE_GROUP = "smoke";
+  private static final String TEST_PLAN_SUITE_FILE_NAME = "test-plan-suite.json";
+
+  private Set<String> recentlyFailedMethods;
+
+  /**
+   * Orders the methods of a {@code <test>} by priority.
+   *
+   * @param methods the methods in declaration order
+   * @param context the test context
+   * @return the methods in execution order
+   */
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    Set<String> recentlyFailed = getRecentlyFailedMethods();
+    List<IMethodInstance> ordered =
+        methods.stream()
+            .sorted(Comparator.comparingInt(method -> priority(method.getMethod(), recentlyFailed)))
+            .toList();
+    logger.info(
+        "Execution order for {}: {}",
+        context.getName(),
+        ordered.stream().map(method -> method.getMethod().getMethodName()).toList());
+    return ordered;
+  }
+
+  /**
+   * Returns the priority of a method, lower runs first.
+   *
+   * @param method the test method
+   * @param recentlyFailed the names of recently failed test methods
+   * @return the priority
+   */
+  private int priority(ITestNGMethod method, Set<String> recentlyFailed) {
+    if (Arrays.asList(method.getGroups()).contains(SMOKE_GROUP)) {
+      return 0;
+    }
+    return recentlyFailed.contains(method.getMethodName()) ? 1 : 2;
+  }
+
+  /**
+   * Loads the names of the test methods that did not pass recently, once per run.
+   *
+   * @return the method names, empty when there is no history
+   */
+  private synchronized Set<String> getRecentlyFailedMethods() {
+    if (recentlyFailedMethods != null) {
+      return recentlyFailedMethods;
+    }
+    recentlyFailedMethods = Set.of();
+    int recentRuns = Integer.getInteger("priority.recentRuns", 5);
+    String directory = System.getProperty("results.history.dir", RunHistory.DEFAULT_HISTORY_DIR);
+    TestPlanSuite testPlanSuite =
+        JsonUtils.fromJson(TEST_PLAN_SUITE_FILE_NAME, TestPlanSuite.class, true);
+    if (recentRuns <= 0
+        || directory.isBlank()
+        || !Files.isDirectory(Path.of(directory))
+        || testPlanSuite == null) {
+      return recentlyFailedMethods;
+    }
+    try {
+      Set<String> failedTestCaseIds = new RunHistory(Path.of(directory)).recentlyFailed(recentRuns);
+      recentlyFailedMethods =
+          testPlanSuite.testCases().entrySet().stream()
+              .filter(entry -> failedTestCaseIds.contains(entry.getValue().testCaseId()))
+              .map(Map.Entry::getKey)
+              .collect(Collectors.toSet());
+      logger.info(
+          "Test methods not passing in the last {} runs: {}", recentRuns, recentlyFailedMethods);
+    } catch (IOException e) {
+      logger.warn("Failed to read run history from {}", directory, e);
+    }
+    return recentlyFailedMethods;
+  }
+}
@@ -0,0 +1,82 @@
+package testUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import testUtils.TestResultsRecords.TestResultReport;
+
+/**
+ * Encodes the test results report into one output format.
+ *
+ * <p>Encoders write straight to the output stream, so no intermediate string of the whole report
+ * is built. The formats written by {@link TestResultsReporter} are chosen with the {@code
+ * report.formats} system property, a comma separated list of {@link #forName(String) format names}
+ * (default {@code json}).
+ */
+public interface ReportEncoder {
+
+  /**
+   * Returns the file name suffix of the format, appended to {@code test-results-report}.
+   *
+   * @return the suffix, e.g. {@code .json}
+   */
+  String fileExtension();
+
+  /**
+   * Encodes the report.
+   *
+   * @param report the test results
+   * @param sections additional top-level report sections, e.g. {@code endpointLatency}
+   * @param out the stream to write to; it is not closed
+   * @throws IOException if writing fails
+   */
+  void encode(TestResultReport report, Map<String, Object> sections, OutputStream out)
+      throws IOException;
+
+  /**
+   * Builds the document tree shared by the structured formats.
+   *
+   * @param report the test results
+   * @param sections additional top-level report sections
+   * @return the document
+   */
+  static Map<String, Object> toDocument(TestResultReport report, Map<String, Object> sections) {
+    Map<String, Object> document = new LinkedHashMap<>();
+    document.put("testPlanName", report.testPlanName());
+    document.put("testSuiteName", report.testSuiteName());
+    document.put("testResults", report.testResults());
+    document.putAll(sections);
+    return document;
+  }
+
+  /**
+   * Returns the encoder for a format name.
+   *
+   * @param name one of {@code json}, {@code smile}, {@code cbor} or {@code junit}
+   * @return the encoder
+   */
+  static ReportEncoder forName(String name) {
+    return switch (name.trim().toLowerCase()) {
+      case "json" -> JacksonReportEncoder.JSON;
+      case "smile" -> JacksonReportEncoder.SMILE;
+      case "cbor" -> JacksonReportEncoder.CBOR;
+      case "junit" -> new JUnitXmlReportEncoder();
+      default -> throw new IllegalArgumentException("Unknown report format: " + name);
+    };
+  }
+
+  /**
+   * Returns the encoders configured with the {@code report.formats} system property.
+   *
+   * @return the configured encoders
+   */
+  static List<ReportEncoder> configured() {
+    return Arrays.stream(System.getProperty("report.formats", "json").split(","))
+        .filter(name -> !name.isBlank())
+        .map(ReportEncoder::forName)
+        .toList();
+  }
+}
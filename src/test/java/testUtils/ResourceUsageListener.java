@@ -0,0 +1,152 @@
+package testUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import utils.HarnessProfile;
+
+/**
+ * TestNG listener that measures the CPU time and the heap bytes allocated by the thread that runs
+ * each test and configuration method, with {@link ThreadMXBean}.
+ *
+ * <p>The deltas are logged and stored as the {@link #CPU_TIME_ATTRIBUTE} and {@link
+ * #ALLOCATED_BYTES_ATTRIBUTE} attributes of the method's result, from which {@link
+ * TestResultsReporter} adds them to the results report. Work that a test fans out to other threads
+ * is not included, and nothing is recorded when the JVM does not support the measurement or the
+ * {@link HarnessProfile} records no metrics. The usage is only logged by profiles that log.
+ */
+public class ResourceUsageListener implements IInvokedMethodListener {
+
+  /** Result attribute holding the CPU time of the method in milliseconds. */
+  public static final String CPU_TIME_ATTRIBUTE = "cpuTimeInMs";
+
+  /** Result attribute holding the bytes allocated by the method. */
+  public static final String ALLOCATED_BYTES_ATTRIBUTE = "allocatedBytes";
+
+  private static final Logger logger = LogManager.getLogger(ResourceUsageListener.class);
+
+  private static final String START_ATTRIBUTE = "resourceUsageStart";
+
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  private static final boolean CPU_TIME_SUPPORTED = enableCpuTime();
+
+  private static final boolean ALLOCATION_SUPPORTED = enableAllocation();
+
+  private final HarnessProfile profile = HarnessProfile.current();
+
+  /**
+   * CPU time and allocated bytes of the current thread at the start of a method.
+   *
+   * @param cpuTimeNanos the CPU time in nanoseconds, or -1
+   * @param allocatedBytes the allocated bytes, or -1
+   */
+  private record Snapshot(long cpuTimeNanos, long allocatedBytes) {
+
+    static Snapshot take() {
+      return new Snapshot(
+          CPU_TIME_SUPPORTED ? threads.getCurrentThreadCpuTime() : -1,
+          ALLOCATION_SUPPORTED
+              ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes()
+              : -1);
+    }
+  }
+
+  /**
+   * Takes the snapshot the method's usage is measured from.
+   *
+   * @param method the invoked method
+   * @param testResult the result of the method
+   */
+  @Override
+  public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+    if (!profile.recordsMetrics()) {
+      return;
+    }
+    testResult.setAttribute(START_ATTRIBUTE, Snapshot.take());
+  }
+
+  /**
+   * Stores and logs the CPU time and bytes allocated since {@link #beforeInvocation}.
+   *
+   * @param method the invoked method
+   * @param testResult the result of the method
+   */
+  @Override
+  public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+    if (!(testResult.removeAttribute(START_ATTRIBUTE) instanceof Snapshot start)) {
+      return;
+    }
+    Snapshot end = Snapshot.take();
+    Double cpuTimeInMs = null;
+    Long allocatedBytes = null;
+    if (start.cpuTimeNanos() >= 0 && end.cpuTimeNanos() >= 0) {
+      cpuTimeInMs = Math.round((end.cpuTimeNanos() - start.cpuTimeNanos()) / 1_000.0) / 1_000.0;
+      testResult.setAttribute(CPU_TIME_ATTRIBUTE, cpuTimeInMs);
+    }
+    if (start.allocatedBytes() >= 0 && end.allocatedBytes() >= 0) {
+      allocatedBytes = end.allocatedBytes() - start.allocatedBytes();
+      testResult.setAttribute(ALLOCATED_BYTES_ATTRIBUTE, allocatedBytes);
+    }
+    if (profile.logs() && (cpuTimeInMs != null || allocatedBytes != null)) {
+      logger.info(
+          "Resource usage of {}: CPU time {} ms, allocated {} bytes",
+          method.getTestMethod().getQualifiedName(),
+          cpuTimeInMs,
+          allocatedBytes);
+    }
+  }
+
+  /**
+   * Returns the CPU time of a method result, if it was measured.
+   *
+   * @param result the method result
+   * @return the CPU time in milliseconds, or null
+   */
+  public static Double cpuTimeInMs(ITestResult result) {
+    return result.getAttribute(CPU_TIME_ATTRIBUTE) instanceof Double cpuTime ? cpuTime : null;
+  }
+
+  /**
+   * Returns the allocated bytes of a method result, if they were measured.
+   *
+   * @param result the method result
+   * @return the allocated bytes, or null
+   */
+  public static Long allocatedBytes(ITestResult result) {
+    return result.getAttribute(ALLOCATED_BYTES_ATTRIBUTE) instanceof Long bytes ? bytes : null;
+  }
+
+  private static boolean enableCpuTime() {
+    try {
+      if (threads.isCurrentThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+        threads.setThreadCpuTimeEnabled(true);
+      }
+      return threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    } catch (UnsupportedOperationException e) {
+      logger.warn("Thread CPU time is not supported by this JVM", e);
+      return false;
+    }
+  }
+
+  private static boolean enableAllocation() {
+    if (!(threads instanceof com.sun.management.ThreadMXBean allocation)) {
+      return false;
+    }
+    try {
+      if (allocation.isThreadAllocatedMemorySupported()
+          && !allocation.isThreadAllocatedMemoryEnabled()) {
+        allocation.setThreadAllocatedMemoryEnabled(true);
+      }
+      return allocation.isThreadAllocatedMemorySupported()
+          && allocation.isThreadAllocatedMemoryEnabled();
+    } catch (UnsupportedOperationException e) {
+      logger.warn("Thread allocated memory is not supported by this JVM", e);
+      return false;
+    }
+  }
+}
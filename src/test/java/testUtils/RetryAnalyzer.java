@@ -5,6 +5,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestResult;
+import utils.HarnessMetrics;
 
 /** Retry analyzer for TestNG tests to handle HTTP 429 responses. */
 public class RetryAnalyzer implements IRetryAnalyzer {
@@ -35,6 +36,7 @@ public class RetryAnalyzer implements IRetryAnalyzer {
 
       logger.warn(message);
       Allure.step(message);
+      HarnessMetrics.get().retried("RetryAnalyzer");
       try {
         Thread.sleep(retryAfterSeconds * 1000);
       } catch (InterruptedException e) {
@@ -0,0 +1,528 @@
+package testUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only, compact binary history of test case and endpoint durations across runs.
+ *
+ * <p>Every run appends one block of fixed-size records to {@code runs.dat} and one fixed-size entry
+ * to {@code runs.idx}; keys (test case IDs and endpoints) are stored once in the {@code keys.txt}
+ * dictionary and referenced by their line number. The index entry is written last, so a run that
+ * crashed half way is never visible.
+ *
+ * <ul>
+ *   <li>{@code runs.idx}: {@code [runEpochMillis:long][offset:long][recordCount:int][unused:int]}
+ *       per run, in append order, so runs can be located by date with a binary search
+ *   <li>{@code runs.dat}: {@code [keyId:int][kind:byte][outcome:byte][valueMicros:int][count:int]}
+ *       per record, sorted by key ID within a run, so a key is located with a binary search
+ * </ul>
+ *
+ * <p>Trend queries touch only the index entries and the records of the requested runs through a
+ * memory-mapped view of {@code runs.dat}, so they stay in the millisecond range after thousands of
+ * runs. Use {@link #main(String[])} as a small command line client.
+ */
+public class RunHistory {
+
+  /** Default history directory. */
+  static final String DEFAULT_HISTORY_DIR = "test-results/history";
+
+  private static final int INDEX_ENTRY_SIZE = 24;
+  private static final int RECORD_SIZE = 14;
+
+  private final Path keysFile;
+  private final Path dataFile;
+  private final Path indexFile;
+  private final List<String> keys = new ArrayList<>();
+  private final Map<String, Integer> keyIds = new HashMap<>();
+  private long[] runEpochMillis = new long[0];
+  private long[] runOffsets = new long[0];
+  private int[] runRecordCounts = new int[0];
+  private MappedByteBuffer data;
+
+  /** What a record measures. */
+  public enum Kind {
+    /** Total duration of a test case, over all its iterations. */
+    TEST_CASE,
+    /** Median latency of an endpoint in the run. */
+    ENDPOINT_P50,
+    /** 95th percentile latency of an endpoint in the run. */
+    ENDPOINT_P95
+  }
+
+  /** Outcome of a test case in a run; endpoints are always recorded as {@code PASSED}. */
+  public enum Outcome {
+    PASSED,
+    FAILED,
+    INCONCLUSIVE,
+    ERROR,
+    UNSPECIFIED;
+
+    /**
+     * Maps an outcome string of the results report.
+     *
+     * @param outcome the report outcome, e.g. {@code "Passed"}
+     * @return the outcome
+     */
+    public static Outcome fromReport(String outcome) {
+      return switch (outcome) {
+        case "Passed" -> PASSED;
+        case "Failed" -> FAILED;
+        case "Inconclusive" -> INCONCLUSIVE;
+        case "Error" -> ERROR;
+        default -> UNSPECIFIED;
+      };
+    }
+  }
+
+  /**
+   * A value to append for the current run.
+   *
+   * @param key the test case ID or endpoint
+   * @param kind what the value measures
+   * @param outcome the outcome
+   * @param valueMs the duration in milliseconds
+   * @param count the number of iterations or requests behind the value
+   */
+  public record Entry(String key, Kind kind, Outcome outcome, double valueMs, int count) {}
+
+  /**
+   * A recorded value of one run.
+   *
+   * @param runAt start of the run
+   * @param outcome the outcome
+   * @param valueMs the duration in milliseconds
+   * @param count the number of iterations or requests behind the value
+   */
+  public record Point(Instant runAt, Outcome outcome, double valueMs, int count) {}
+
+  /**
+   * Trend of one key over the last runs.
+   *
+   * @param key the test case ID or endpoint
+   * @param kind what the values measure
+   * @param points the recorded values, oldest first
+   * @param p50Ms median of the values
+   * @param p95Ms 95th percentile of the values
+   * @param failureRate share of runs that failed or errored
+   * @param flakinessRate share of runs that were inconclusive or flipped between pass and fail
+   */
+  public record Trend(
+      String key,
+      Kind kind,
+      List<Point> points,
+      double p50Ms,
+      double p95Ms,
+      double failureRate,
+      double flakinessRate) {}
+
+  /**
+   * Opens (and creates if needed) a history directory.
+   *
+   * @param directory the history directory
+   * @throws IOException if the directory cannot be read
+   */
+  public RunHistory(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    keysFile = directory.resolve("keys.txt");
+    dataFile = directory.resolve("runs.dat");
+    indexFile = directory.resolve("runs.idx");
+    reload();
+  }
+
+  /**
+   * Appends the values of one run.
+   *
+   * @param runAt start of the run
+   * @param entries the values to append
+   * @throws IOException if the history cannot be written
+   */
+  public synchronized void append(Instant runAt, List<Entry> entries) throws IOException {
+    try (FileChannel index =
+        FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      FileLock lock = index.lock();
+      try {
+        reload();
+        StringBuilder newKeys = new StringBuilder();
+        ByteBuffer records = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        List<Entry> sorted = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+          if (!keyIds.containsKey(entry.key())) {
+            keyIds.put(entry.key(), keys.size());
+            keys.add(entry.key());
+            newKeys.append(entry.key().replace('\n', ' ')).append('\n');
+          }
+          sorted.add(entry);
+        }
+        sorted.sort(Comparator.comparingInt((Entry e) -> keyIds.get(e.key())));
+        for (Entry entry : sorted) {
+          records
+              .putInt(keyIds.get(entry.key()))
+              .put((byte) entry.kind().ordinal())
+              .put((byte) entry.outcome().ordinal())
+              .putInt((int) Math.min(Integer.MAX_VALUE, Math.round(entry.valueMs() * 1_000)))
+              .putInt(entry.count());
+        }
+        if (!newKeys.isEmpty()) {
+          Files.writeString(
+              keysFile, newKeys, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        long offset;
+        try (FileChannel dataChannel =
+            FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          offset = dataChannel.size();
+          records.flip();
+          dataChannel.write(records, offset);
+          dataChannel.force(false);
+        }
+        ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        indexEntry.putLong(runAt.toEpochMilli()).putLong(offset).putInt(sorted.size()).putInt(0);
+        indexEntry.flip();
+        index.write(indexEntry, (long) runEpochMillis.length * INDEX_ENTRY_SIZE);
+        index.force(false);
+      } finally {
+        lock.release();
+      }
+    }
+    reload();
+  }
+
+  /**
+   * Returns the number of recorded runs.
+   *
+   * @return the run count
+   */
+  public synchronized int runCount() {
+    return runEpochMillis.length;
+  }
+
+  /**
+   * Returns the position of the first run started at or after the given time.
+   *
+   * @param time the time
+   * @return the run position, or {@link #runCount()} if all runs are older
+   */
+  public synchronized int firstRunAtOrAfter(Instant time) {
+    int position = Arrays.binarySearch(runEpochMillis, time.toEpochMilli());
+    if (position < 0) {
+      return -position - 1;
+    }
+    while (position > 0 && runEpochMillis[position - 1] == time.toEpochMilli()) {
+      position--;
+    }
+    return position;
+  }
+
+  /**
+   * Returns the trend of a key over the last runs.
+   *
+   * @param key the test case ID or endpoint
+   * @param kind what the values measure
+   * @param lastRuns how many of the most recent runs to include
+   * @return the trend, with no points if the key is unknown
+   */
+  public synchronized Trend trend(String key, Kind kind, int lastRuns) {
+    return trend(key, kind, Math.max(0, runCount() - lastRuns), runCount());
+  }
+
+  /**
+   * Returns the trend of a key over the runs in {@code [fromRun, toRun)}.
+   *
+   * @param key the test case ID or endpoint
+   * @param kind what the values measure
+   * @param fromRun first run position, inclusive
+   * @param toRun last run position, exclusive
+   * @return the trend, with no points if the key is unknown
+   */
+  public synchronized Trend trend(String key, Kind kind, int fromRun, int toRun) {
+    List<Point> points = new ArrayList<>();
+    Integer keyId = keyIds.get(key);
+    if (keyId != null) {
+      for (int run = fromRun; run < toRun; run++) {
+        int record = findRecord(run, keyId, kind);
+        if (record >= 0) {
+          int position = recordPosition(run, record);
+          points.add(
+              new Point(
+                  Instant.ofEpochMilli(runEpochMillis[run]),
+                  Outcome.values()[data.get(position + 5)],
+                  data.getInt(position + 6) / 1_000.0,
+                  data.getInt(position + 10)));
+        }
+      }
+    }
+    return summarize(key, kind, points);
+  }
+
+  /**
+   * Returns the trends of all test cases over the last runs, the flakiest first.
+   *
+   * @param lastRuns how many of the most recent runs to include
+   * @return the test case trends
+   */
+  public synchronized List<Trend> testCaseTrends(int lastRuns) {
+    List<Trend> trends = new ArrayList<>();
+    for (String key : keys) {
+      Trend trend = trend(key, Kind.TEST_CASE, lastRuns);
+      if (!trend.points().isEmpty()) {
+        trends.add(trend);
+      }
+    }
+    trends.sort(
+        Comparator.comparingDouble(Trend::flakinessRate)
+            .thenComparingDouble(Trend::failureRate)
+            .reversed());
+    return trends;
+  }
+
+  /**
+   * Returns the test case IDs that did not pass in at least one of the last runs.
+   *
+   * @param lastRuns how many of the most recent runs to include
+   * @return the test case IDs, most recently failed first
+   */
+  public synchronized Set<String> recentlyFailed(int lastRuns) {
+    Set<String> failed = new LinkedHashSet<>();
+    for (int run = runCount() - 1; run >= Math.max(0, runCount() - lastRuns); run--) {
+      for (int record = 0; record < runRecordCounts[run]; record++) {
+        int position = recordPosition(run, record);
+        Outcome outcome = Outcome.values()[data.get(position + 5)];
+        if (data.get(position + 4) == Kind.TEST_CASE.ordinal() && outcome != Outcome.PASSED) {
+          failed.add(keys.get(data.getInt(position)));
+        }
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Finds the record of a key and kind within a run by binary search on the key ID.
+   *
+   * @param run the run position
+   * @param keyId the key ID
+   * @param kind the kind
+   * @return the record position within the run, or -1 if absent
+   */
+  private int findRecord(int run, int keyId, Kind kind) {
+    int low = 0;
+    int high = runRecordCounts[run] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midKey = data.getInt(recordPosition(run, mid));
+      if (midKey < keyId) {
+        low = mid + 1;
+      } else if (midKey > keyId) {
+        high = mid - 1;
+      } else {
+        // A key has one record per kind; scan the few neighbours sharing the key ID
+        int first = mid;
+        while (first > 0 && data.getInt(recordPosition(run, first - 1)) == keyId) {
+          first--;
+        }
+        for (int record = first; record < runRecordCounts[run]; record++) {
+          int position = recordPosition(run, record);
+          if (data.getInt(position) != keyId) {
+            break;
+          }
+          if (data.get(position + 4) == kind.ordinal()) {
+            return record;
+          }
+        }
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the byte position of a record in the data file.
+   *
+   * @param run the run position
+   * @param record the record position within the run
+   * @return the byte position
+   */
+  private int recordPosition(int run, int record) {
+    return (int) (runOffsets[run] + (long) record * RECORD_SIZE);
+  }
+
+  /**
+   * Computes percentiles, failure and flakiness rates of a series.
+   *
+   * @param key the key
+   * @param kind the kind
+   * @param points the series, oldest first
+   * @return the trend
+   */
+  private static Trend summarize(String key, Kind kind, List<Point> points) {
+    double[] values = points.stream().mapToDouble(Point::valueMs).sorted().toArray();
+    int failures = 0;
+    int flaky = 0;
+    Boolean previousPassed = null;
+    for (Point point : points) {
+      boolean passed = point.outcome() == Outcome.PASSED;
+      boolean failed = point.outcome() == Outcome.FAILED || point.outcome() == Outcome.ERROR;
+      if (failed) {
+        failures++;
+      }
+      if (point.outcome() == Outcome.INCONCLUSIVE
+          || (previousPassed != null && (passed || failed) && previousPassed != passed)) {
+        flaky++;
+      }
+      if (passed || failed) {
+        previousPassed = passed;
+      }
+    }
+    int runs = points.size();
+    return new Trend(
+        key,
+        kind,
+        points,
+        percentile(values, 50),
+        percentile(values, 95),
+        runs == 0 ? 0 : (double) failures / runs,
+        runs == 0 ? 0 : (double) flaky / runs);
+  }
+
+  /**
+   * Returns the nearest-rank percentile of sorted values.
+   *
+   * @param sorted the sorted values
+   * @param percentile the percentile between 0 and 100
+   * @return the percentile value, or 0 when empty
+   */
+  private static double percentile(double[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Reloads the key dictionary and the run index, and remaps the data file.
+   *
+   * @throws IOException if the history cannot be read
+   */
+  private void reload() throws IOException {
+    if (Files.exists(keysFile)) {
+      List<String> lines = Files.readAllLines(keysFile, StandardCharsets.UTF_8);
+      for (int id = keys.size(); id < lines.size(); id++) {
+        keys.add(lines.get(id));
+        keyIds.put(lines.get(id), id);
+      }
+    }
+    int runs = Files.exists(indexFile) ? (int) (Files.size(indexFile) / INDEX_ENTRY_SIZE) : 0;
+    ByteBuffer index = ByteBuffer.wrap(runs == 0 ? new byte[0] : Files.readAllBytes(indexFile));
+    runEpochMillis = new long[runs];
+    runOffsets = new long[runs];
+    runRecordCounts = new int[runs];
+    for (int run = 0; run < runs; run++) {
+      runEpochMillis[run] = index.getLong();
+      runOffsets[run] = index.getLong();
+      runRecordCounts[run] = index.getInt();
+      index.getInt();
+    }
+    if (Files.exists(dataFile)) {
+      try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    } else {
+      data = null;
+    }
+  }
+
+  /**
+   * Command line client.
+   *
+   * <pre>{@code
+   * trend <testCaseId|endpoint> [lastRuns]   duration trend of a test case or endpoint
+   * flaky [lastRuns]                         test cases ranked by flakiness
+   * }</pre>
+   *
+   * <p>The history directory is read from the {@code results.history.dir} system property.
+   *
+   * @param args the command and its arguments
+   * @throws IOException if the history cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    RunHistory history =
+        new RunHistory(Path.of(System.getProperty("results.history.dir", DEFAULT_HISTORY_DIR)));
+    String command = args.length > 0 ? args[0] : "flaky";
+    long start = System.nanoTime();
+    switch (command) {
+      case "trend" -> {
+        int lastRuns = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        Trend testCase = history.trend(args[1], Kind.TEST_CASE, lastRuns);
+        if (!testCase.points().isEmpty()) {
+          printTrend(testCase);
+        } else {
+          printTrend(history.trend(args[1], Kind.ENDPOINT_P50, lastRuns));
+          printTrend(history.trend(args[1], Kind.ENDPOINT_P95, lastRuns));
+        }
+      }
+      case "flaky" -> {
+        int lastRuns = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        System.out.printf(
+            "%-12s %6s %10s %10s %9s %9s%n",
+            "TestCase",
+            "Runs",
+            "p50 ms",
+            "p95 ms",
+            "Fail",
+            "Flaky");
+        for (Trend trend : history.testCaseTrends(lastRuns)) {
+          System.out.printf(
+              "%-12s %6d %10.1f %10.1f %8.1f%% %8.1f%%%n",
+              trend.key(),
+              trend.points().size(),
+              trend.p50Ms(),
+              trend.p95Ms(),
+              trend.failureRate() * 100,
+              trend.flakinessRate() * 100);
+        }
+      }
+      default -> throw new IllegalArgumentException("Unknown command: " + command);
+    }
+    System.out.printf(
+        "%d runs in history, query took %.2f ms%n",
+        history.runCount(), (System.nanoTime() - start) / 1_000_000.0);
+  }
+
+  /**
+   * Prints a trend and its series.
+   *
+   * @param trend the trend
+   */
+  private static void printTrend(Trend trend) {
+    System.out.printf(
+        "%s [%s] runs=%d p50=%.1f ms p95=%.1f ms failureRate=%.1f%% flakinessRate=%.1f%%%n",
+        trend.key(),
+        trend.kind(),
+        trend.points().size(),
+        trend.p50Ms(),
+        trend.p95Ms(),
+        trend.failureRate() * 100,
+        trend.flakinessRate() * 100);
+    for (Point point : trend.points()) {
+      System.out.printf(
+          "  %s  %-12s %10.1f ms  (%d)%n",
+          point.runAt(), point.outcome(), point.valueMs(), point.count());
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package testUtils;
+
+import io.restassured.RestAssured;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.SuiteXmlParser;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.HarnessMetrics;
+
+/**
+ * Long-lived test runner that keeps the test classpath loaded and the JIT warm between runs.
+ *
+ * <p>The daemon listens on the loopback interface ({@code daemon.port}, default {@value
+ * #DEFAULT_PORT}) and runs one request at a time. A request is a single line:
+ *
+ * <pre>{@code
+ * run [suite=testng.xml] [classes=TS01_CreateBook,...] [groups=smoke,...] [methods=Class.method,...]
+ * shutdown
+ * }</pre>
+ *
+ * <p>The suite file is filtered by the given classes (simple or fully qualified names), methods
+ * and groups, and the results are streamed back one line per event, ending with a {@code DONE}
+ * summary line. Use {@link TestDaemonClient} or any line-based tool such as {@code nc} to send
+ * requests. RestAssured, the harness metrics and the results reporter are reset before each run.
+ */
+public class TestDaemon {
+
+  /** Default port of the daemon. */
+  static final int DEFAULT_PORT = 7357;
+
+  private static final String DEFAULT_SUITE = "testng.xml";
+  private static final Logger logger = LogManager.getLogger(TestDaemon.class);
+
+  /**
+   * Starts the daemon and serves requests until a {@code shutdown} request is received.
+   *
+   * @param args not used
+   * @throws IOException if the server socket cannot be opened
+   */
+  public static void main(String[] args) throws IOException {
+    int port = Integer.getInteger("daemon.port", DEFAULT_PORT);
+    try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      logger.info("Test daemon listening on {}", server.getLocalSocketAddress());
+      while (true) {
+        try (Socket socket = server.accept();
+            BufferedReader in =
+                new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out =
+                new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+          String request = in.readLine();
+          if (request == null || request.isBlank()) {
+            continue;
+          }
+          if (request.trim().equals("shutdown")) {
+            out.println("BYE");
+            logger.info("Test daemon stopped");
+            return;
+          }
+          handle(request.trim(), out);
+        } catch (IOException e) {
+          logger.warn("Failed to serve test daemon request", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs a request and streams the results.
+   *
+   * @param request the request line
+   * @param out the client stream
+   */
+  private static void handle(String request, PrintWriter out) {
+    String[] tokens = request.split("\\s+");
+    if (!tokens[0].equals("run")) {
+      out.println("ERROR Unknown command: " + tokens[0]);
+      return;
+    }
+    Map<String, List<String>> options = new HashMap<>();
+    for (int i = 1; i < tokens.length; i++) {
+      String[] option = tokens[i].split("=", 2);
+      if (option.length != 2) {
+        out.println("ERROR Expected key=value but got: " + tokens[i]);
+        return;
+      }
+      options.put(option[0], List.of(option[1].split(",")));
+    }
+
+    long start = System.nanoTime();
+    XmlSuite suite;
+    try {
+      suite = selectTests(options);
+    } catch (IOException e) {
+      out.println("ERROR " + e.getMessage());
+      return;
+    }
+    logger.info("Test daemon running: {}", request);
+
+    RestAssured.reset();
+    HarnessMetrics.get().reset();
+    ResultStreamer streamer = new ResultStreamer(out);
+    TestNG testng = new TestNG();
+    testng.setUseDefaultListeners(false);
+    testng.setXmlSuites(List.of(suite));
+    testng.addListener(streamer);
+    try {
+      testng.run();
+    } catch (RuntimeException e) {
+      logger.error("Test run failed", e);
+      out.println("ERROR " + e);
+    }
+    out.printf(
+        "DONE passed=%d failed=%d skipped=%d in %d ms%n",
+        streamer.passed.get(),
+        streamer.failed.get(),
+        streamer.skipped.get(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Parses the suite file and keeps only the selected classes, methods and groups.
+   *
+   * @param options the request options
+   * @return the suite to run
+   * @throws IOException if the suite file cannot be read
+   */
+  private static XmlSuite selectTests(Map<String, List<String>> options) throws IOException {
+    String suiteFile = options.getOrDefault("suite", List.of(DEFAULT_SUITE)).get(0);
+    List<String> classes = new ArrayList<>(options.getOrDefault("classes", List.of()));
+    Map<String, List<XmlInclude>> methodsByClass = new HashMap<>();
+    for (String method : options.getOrDefault("methods", List.of())) {
+      int split = method.lastIndexOf('.');
+      String className = method.substring(0, split);
+      methodsByClass
+          .computeIfAbsent(className, key -> new ArrayList<>())
+          .add(new XmlInclude(method.substring(split + 1)));
+      classes.add(className);
+    }
+    List<String> groups = options.getOrDefault("groups", List.of());
+
+    XmlSuite suite;
+    try (InputStream in = Files.newInputStream(Path.of(suiteFile))) {
+      suite = new SuiteXmlParser().parse(suiteFile, in, true);
+    }
+    for (XmlTest test : suite.getTests()) {
+      List<XmlClass> selected = new ArrayList<>();
+      for (XmlClass xmlClass : test.getXmlClasses()) {
+        String name = xmlClass.getName();
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        if (classes.isEmpty() || classes.contains(name) || classes.contains(simpleName)) {
+          List<XmlInclude> methods =
+              methodsByClass.getOrDefault(
+                  name, methodsByClass.getOrDefault(simpleName, List.of()));
+          if (!methods.isEmpty()) {
+            xmlClass.setIncludedMethods(methods);
+          }
+          selected.add(xmlClass);
+        }
+      }
+      test.setXmlClasses(selected);
+      groups.forEach(test::addIncludedGroup);
+    }
+    suite.getTests().removeIf(test -> test.getXmlClasses().isEmpty());
+    return suite;
+  }
+
+  /** Streams test events to the client, one line per event. */
+  private static class ResultStreamer implements ITestListener {
+    private final PrintWriter out;
+    private final AtomicInteger passed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private ResultStreamer(PrintWriter out) {
+      this.out = out;
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+      send("STARTED", result, "");
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+      passed.incrementAndGet();
+      send("PASSED", result, "");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+      failed.incrementAndGet();
+      send("FAILED", result, String.valueOf(result.getThrowable()).replace('\n', ' '));
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+      if (!result.wasRetried()) {
+        skipped.incrementAndGet();
+      }
+      send(result.wasRetried() ? "RETRIED" : "SKIPPED", result, "");
+    }
+
+    private void send(String event, ITestResult result, String detail) {
+      String line =
+          event
+              + " "
+              + result.getTestClass().getRealClass().getSimpleName()
+              + "."
+              + result.getMethod().getMethodName();
+      if (!event.equals("STARTED")) {
+        line += " " + (result.getEndMillis() - result.getStartMillis()) + " ms";
+        line += detail.isEmpty() ? "" : " " + detail;
+      }
+      synchronized (out) {
+        out.println(line);
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package testUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Command line client of the {@link TestDaemon}. Sends its arguments as one request line and
+ * prints the streamed results.
+ *
+ * <p>The client only depends on the JDK so that it starts in milliseconds:
+ *
+ * <pre>{@code
+ * java -cp target/test-classes testUtils.TestDaemonClient run classes=TS01_CreateBook
+ * }</pre>
+ *
+ * <p>Exits with status 1 when a test failed or the request was rejected.
+ */
+public class TestDaemonClient {
+
+  /**
+   * Sends a request to the daemon on {@code daemon.port}.
+   *
+   * @param args the request, e.g. {@code run groups=smoke}
+   * @throws IOException if the daemon cannot be reached
+   */
+  public static void main(String[] args) throws IOException {
+    int port = Integer.getInteger("daemon.port", TestDaemon.DEFAULT_PORT);
+    String request = args.length > 0 ? String.join(" ", args) : "run";
+    boolean success = true;
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        BufferedReader in =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+      out.println(request);
+      String line;
+      while ((line = in.readLine()) != null) {
+        System.out.println(line);
+        if (line.startsWith("ERROR") || (line.startsWith("DONE") && !line.contains(" failed=0 "))) {
+          success = false;
+        }
+      }
+    }
+    System.exit(success ? 0 : 1);
+  }
+}
@@ -0,0 +1,28 @@
+package testUtils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JDK Flight Recorder event spanning one test method invocation, from start to outcome. */
+@Name(TestMethodEvent.NAME)
+@Label("Test Method")
+@Category({"Book API", "TestNG"})
+@Description("Execution of a TestNG test method")
+@StackTrace(false)
+public class TestMethodEvent extends Event {
+
+  /** Event type name used in recordings. */
+  public static final String NAME = "bookapi.TestMethod";
+
+  /** Test name as {@code <Class>.<method>}. */
+  @Label("Test Name")
+  public String testName;
+
+  /** Outcome of the test, e.g. {@code passed}. */
+  @Label("Outcome")
+  public String outcome;
+}
@@ -1,17 +1,29 @@
 package testUtils;
 
+import io.qameta.allure.Allure;
 import java.util.Arrays;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
+import utils.HarnessMetrics;
+import utils.HarnessProfile;
+import utils.SegmentedLogAppender;
 
-/** TestNG listener that logs test execution events using Log4j2. */
+/**
+ * TestNG listener that logs test execution events using Log4j2 and records them in the {@link
+ * HarnessMetrics} and as flight recorder events, as far as the {@link HarnessProfile} asks for.
+ */
 public class TestResultLoggerListener implements ITestListener {
 
   private static final Logger logger = LogManager.getLogger(TestResultLoggerListener.class);
 
+  /** Result attribute holding the flight recorder event of the running test. */
+  private static final String TEST_EVENT_ATTRIBUTE = "testMethodEvent";
+
+  private final HarnessProfile profile = HarnessProfile.current();
+
   /**
    * Called when a test method starts. Logs the method name and parameters.
    *
@@ -19,6 +31,12 @@ public class TestResultLoggerListener implements ITestListener {
    */
   @Override
   public void onTestStart(ITestResult result) {
+    if (profile.recordsMetrics()) {
+      beginTestEvent(result);
+    }
+    if (!profile.logs()) {
+      return;
+    }
     logger.info("<=========== Test Started : {} ===========>", result.getMethod().getMethodName());
     Object[] params = result.getParameters();
     if (params != null && params.length > 0) {
@@ -40,20 +58,29 @@ public class TestResultLoggerListener implements ITestListener {
    */
   @Override
   public void onTestSuccess(ITestResult result) {
-    logger.info("<=========== Test Passed : {} ===========>\n", result.getMethod().getMethodName());
+    if (profile.logs()) {
+      logger.info(
+          "<=========== Test Passed : {} ===========>\n", result.getMethod().getMethodName());
+    }
+    finished(result, "passed");
   }
 
   /**
-   * Called when a test method fails. Logs the method name and throwable.
+   * Called when a test method fails. Logs the method name and throwable, and attaches the log of
+   * the test from the {@link SegmentedLogAppender} to the Allure report.
    *
    * @param result the test result
    */
   @Override
   public void onTestFailure(ITestResult result) {
-    logger.error(
-        "<=========== Test Failed : {} ===========>",
-        result.getMethod().getMethodName(),
-        result.getThrowable());
+    if (profile.logs()) {
+      logger.error(
+          "<=========== Test Failed : {} ===========>",
+          result.getMethod().getMethodName(),
+          result.getThrowable());
+      attachLogExcerpt(result);
+    }
+    finished(result, "failed");
   }
 
   /**
@@ -63,7 +90,75 @@ public class TestResultLoggerListener implements ITestListener {
    */
   @Override
   public void onTestSkipped(ITestResult result) {
-    logger.warn(
-        "<=========== Test Skipped : {} ===========>\n", result.getMethod().getMethodName());
+    if (profile.logs()) {
+      logger.warn(
+          "<=========== Test Skipped : {} ===========>\n", result.getMethod().getMethodName());
+    }
+    finished(result, result.wasRetried() ? "retried" : "skipped");
+  }
+
+  /**
+   * Attaches the log events of a test, read from the index of the {@link SegmentedLogAppender}, to
+   * its Allure result. Nothing is attached when the appender is not configured.
+   *
+   * @param result the test result
+   */
+  private void attachLogExcerpt(ITestResult result) {
+    String excerpt = SegmentedLogAppender.excerpt(getTestName(result));
+    if (excerpt != null) {
+      Allure.addAttachment("Test log", "text/plain", excerpt, ".log");
+    }
+  }
+
+  /**
+   * Records the outcome of a test in the metrics and commits its flight recorder event.
+   *
+   * @param result the test result
+   * @param outcome the test outcome
+   */
+  private void finished(ITestResult result, String outcome) {
+    if (profile.recordsMetrics()) {
+      HarnessMetrics.get().testFinished(outcome);
+      commitTestEvent(result, outcome);
+    }
+  }
+
+  /**
+   * Starts the flight recorder event of a test, if flight recording is enabled.
+   *
+   * @param result the test result
+   */
+  private void beginTestEvent(ITestResult result) {
+    TestMethodEvent event = new TestMethodEvent();
+    if (event.isEnabled()) {
+      event.testName = getTestName(result);
+      event.begin();
+      result.setAttribute(TEST_EVENT_ATTRIBUTE, event);
+    }
+  }
+
+  /**
+   * Ends and commits the flight recorder event started for a test, if any.
+   *
+   * @param result the test result
+   * @param outcome the test outcome
+   */
+  private void commitTestEvent(ITestResult result, String outcome) {
+    if (result.removeAttribute(TEST_EVENT_ATTRIBUTE) instanceof TestMethodEvent event) {
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  /**
+   * Returns the test name as {@code <Class>.<method>}, matching the log context.
+   *
+   * @param result the test result
+   * @return the test name
+   */
+  private String getTestName(ITestResult result) {
+    return result.getTestClass().getRealClass().getSimpleName()
+        + "."
+        + result.getMethod().getMethodName();
   }
 }
@@ -8,7 +8,6 @@
  */
 package testUtils;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -22,49 +21,69 @@ public class TestResultsRecords {
   public record TestPlanSuite(
       String testPlanName, String testSuiteName, Map<String, TestCaseInfo> testCases) {}
 
-  /** Represents a single test iteration result. */
+  /**
+   * Represents a single test iteration result. The CPU time and allocated bytes of the thread that
+   * ran the iteration are null when they could not be measured, see {@link ResourceUsageListener}.
+   */
   public record TestIterationResult(
-      int id, String outcome, String comment, Long durationInMs, String errorMessage) {}
+      int id,
+      String outcome,
+      String comment,
+      Long durationInMs,
+      Double cpuTimeInMs,
+      Long allocatedBytes,
+      String errorMessage) {}
 
-  /** Represents the complete test result for a test case. */
+  /**
+   * Represents the complete test result for a test case. For data-driven tests with many rows, only
+   * a sample of the iterations is kept in {@code iterationDetails}; {@code iterationOutcomes} counts
+   * all of them by outcome.
+   */
   public record TestResult(
       String outcome,
       String comment,
       Long durationInMs,
+      Double cpuTimeInMs,
+      Long allocatedBytes,
       String errorMessage,
-      List<TestIterationResult> iterationDetails) {
+      List<TestIterationResult> iterationDetails,
+      Map<String, Integer> iterationOutcomes) {
 
     /** Constructor for single test execution (no iterations). */
     public TestResult(String outcome, String comment, Long durationInMs, String errorMessage) {
-      this(outcome, comment, durationInMs, errorMessage, List.of());
+      this(outcome, comment, durationInMs, null, null, errorMessage, List.of(), Map.of());
     }
 
-    /** Creates a new TestResult with an additional iteration. */
-    public TestResult withIterationResult(TestIterationResult iterationResult) {
-      ArrayList<TestIterationResult> iterationResults = new ArrayList<>(iterationDetails);
-      iterationResults.add(iterationResult);
-
-      // Calculate new total duration
-      Long newDuration = durationInMs + iterationResult.durationInMs();
+    /** Returns the number of iterations, including those not kept in the details. */
+    public int iterationCount() {
+      return iterationOutcomes.values().stream().mapToInt(Integer::intValue).sum();
+    }
 
-      // Determine overall outcome
-      String currentOutcome = outcome;
-      String newIterationOutcome = iterationResult.outcome();
+    static Double sum(Double total, Double value) {
+      return total == null
+          ? value
+          : value == null ? total : Math.round((total + value) * 1_000) / 1_000.0;
+    }
 
-      // If current and new outcomes are different, set to Inconclusive
-      String newOutcome =
-          currentOutcome.equals(newIterationOutcome) ? currentOutcome : "Inconclusive";
+    static Long sum(Long total, Long value) {
+      return total == null ? value : value == null ? total : total + value;
+    }
+  }
 
-      String newErrorMessage = errorMessage;
-      if (!iterationResult.errorMessage().isEmpty()) {
-        newErrorMessage =
-            "Iteration " + iterationResults.size() + ": " + iterationResult.errorMessage() + "\n";
-        if (!errorMessage.isEmpty()) {
-          newErrorMessage = errorMessage + "\n" + newErrorMessage;
-        }
-      }
+  /**
+   * Represents the accumulated resource usage of a configuration method, such as the {@code
+   * BeforeTest} seeding of a test class, over all its invocations.
+   */
+  public record ConfigurationUsage(
+      int invocations, Long durationInMs, Double cpuTimeInMs, Long allocatedBytes) {
 
-      return new TestResult(newOutcome, comment, newDuration, newErrorMessage, iterationResults);
+    /** Returns the usage with one more invocation added. */
+    public ConfigurationUsage plus(ConfigurationUsage invocation) {
+      return new ConfigurationUsage(
+          invocations + invocation.invocations(),
+          durationInMs + invocation.durationInMs(),
+          TestResult.sum(cpuTimeInMs, invocation.cpuTimeInMs()),
+          TestResult.sum(allocatedBytes, invocation.allocatedBytes()));
     }
   }
 
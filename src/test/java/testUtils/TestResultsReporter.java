@@ -8,14 +8,20 @@
  */
 package testUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.IReporter;
@@ -25,8 +31,14 @@ import org.testng.ISuiteResult;
 import org.testng.ITestContext;
 import org.testng.ITestResult;
 import org.testng.xml.XmlSuite;
+import testUtils.RunHistory.Entry;
+import testUtils.RunHistory.Kind;
+import testUtils.RunHistory.Outcome;
 import testUtils.TestResultsRecords.*;
+import utils.FlightRecording;
+import utils.HarnessMetrics;
 import utils.JsonUtils;
+import utils.LatencyHistogram;
 
 /**
  * Custom TestNG reporter that generates structured JSON reports for test execution results.
@@ -77,8 +89,11 @@ public class TestResultsReporter implements IReporter {
   /** Name of the JSON configuration file containing test plan and test case mappings. */
   private static final String TEST_PLAN_SUITE_FILE_NAME = "test-plan-suite.json";
 
+  /** Output path of the report files without extension, see {@link ReportEncoder}. */
+  private static final String REPORT_FILE_BASE_PATH = "test-results/test-results-report";
+
   /** Path where the final test results report will be written. */
-  private static final String TEST_CASE_RESULTS_FILE_PATH = "test-results/test-results-report.json";
+  static final String TEST_CASE_RESULTS_FILE_PATH = REPORT_FILE_BASE_PATH + ".json";
 
   /** Logger instance for this class. */
   private static final Logger logger = LogManager.getLogger(TestResultsReporter.class);
@@ -89,8 +104,20 @@ public class TestResultsReporter implements IReporter {
   /** Map storing aggregated test results by test case ID. */
   private static Map<String, TestResult> testResultsMap = new HashMap<>();
 
-  /** Map storing test parameters to their corresponding iteration ID. */
-  private static Map<String, Integer> testParamsIterationIdMap = new HashMap<>();
+  /** Map storing the iterations of each test case by test case ID while results are collected. */
+  private static Map<String, TestCaseIterations> testCaseIterationsMap = new LinkedHashMap<>();
+
+  /** Maximum length of the parameters shown in an iteration comment. */
+  private static final int MAX_PARAMETERS_LENGTH = 200;
+
+  /** Maximum number of failed iterations whose error is included in a test case error message. */
+  private static final int MAX_ITERATION_ERRORS = 100;
+
+  /** Number of first iterations of a test case whose details are kept whatever their outcome. */
+  private static final int MAX_ITERATION_DETAILS = 100;
+
+  /** Map storing the resource usage of configuration methods by {@code <Class>.<method>}. */
+  private static Map<String, ConfigurationUsage> configurationUsageMap = new TreeMap<>();
 
   /**
    * Generates the test results report by processing all test suites and their results.
@@ -101,8 +128,11 @@ public class TestResultsReporter implements IReporter {
    * <ol>
    *   <li>Loads test case mappings from the configuration file
    *   <li>Processes all test results (passed, failed, skipped)
+   *   <li>Accumulates the resource usage of configuration methods
    *   <li>Aggregates results for parameterized tests
+   *   <li>Stops the flight recording, if one is running, and summarizes it
    *   <li>Generates and writes the final JSON report
+   *   <li>Appends the run to the {@link RunHistory}
    * </ol>
    *
    * @param xmlSuites list of XML suite configurations (not used in current implementation)
@@ -112,6 +142,10 @@ public class TestResultsReporter implements IReporter {
   @Override
   public void generateReport(
       List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
+    // Start from a clean state when the JVM runs several suites, see TestDaemon
+    testResultsMap.clear();
+    testCaseIterationsMap.clear();
+    configurationUsageMap.clear();
 
     // Load test case mappings from configuration file
     TestPlanSuite testPlanSuite =
@@ -128,8 +162,14 @@ public class TestResultsReporter implements IReporter {
         collectTestResults(testContext.getSkippedTests());
         collectTestResults(testContext.getFailedTests());
         collectTestResults(testContext.getPassedTests());
+        collectConfigurationUsage(testContext.getPassedConfigurations());
+        collectConfigurationUsage(testContext.getFailedConfigurations());
+        collectConfigurationUsage(testContext.getSkippedConfigurations());
       }
     }
+    testCaseIterationsMap.forEach(
+        (testCaseId, iterations) -> testResultsMap.put(testCaseId, iterations.toResult()));
+    testCaseIterationsMap.clear();
 
     // Create the final test result report
     TestResultReport testResultReport = null;
@@ -144,7 +184,72 @@ public class TestResultsReporter implements IReporter {
     }
 
     ensureOutputDirectory();
-    writeResultsReport(testResultReport);
+    writeResultsReport(testResultReport, FlightRecording.stopAndSummarize());
+    appendToRunHistory(getRunStart(suites));
+  }
+
+  /**
+   * Returns the start time of the earliest suite.
+   *
+   * @param suites the executed suites
+   * @return the run start time
+   */
+  private Instant getRunStart(List<ISuite> suites) {
+    return suites.stream()
+        .flatMap(suite -> suite.getResults().values().stream())
+        .map(suiteResult -> suiteResult.getTestContext().getStartDate().toInstant())
+        .min(Instant::compareTo)
+        .orElseGet(Instant::now);
+  }
+
+  /**
+   * Appends the test case durations and outcomes, and the endpoint latency percentiles of this run
+   * to the run history in {@code results.history.dir}; an empty directory disables the history.
+   *
+   * @param runStart the start time of the run
+   */
+  private void appendToRunHistory(Instant runStart) {
+    String directory = System.getProperty("results.history.dir", RunHistory.DEFAULT_HISTORY_DIR);
+    if (directory.isBlank()) {
+      return;
+    }
+    List<Entry> entries = new ArrayList<>();
+    testResultsMap.forEach(
+        (testCaseId, result) ->
+            entries.add(
+                new Entry(
+                    testCaseId,
+                    Kind.TEST_CASE,
+                    Outcome.fromReport(result.outcome()),
+                    result.durationInMs(),
+                    result.iterationCount())));
+    HarnessMetrics.get()
+        .latencyByEndpoint()
+        .forEach(
+            (endpoint, histogram) -> {
+              int count = (int) histogram.count();
+              entries.add(
+                  new Entry(
+                      endpoint,
+                      Kind.ENDPOINT_P50,
+                      Outcome.PASSED,
+                      histogram.percentileMillis(50),
+                      count));
+              entries.add(
+                  new Entry(
+                      endpoint,
+                      Kind.ENDPOINT_P95,
+                      Outcome.PASSED,
+                      histogram.percentileMillis(95),
+                      count));
+            });
+    try {
+      RunHistory history = new RunHistory(Path.of(directory));
+      history.append(runStart, entries);
+      logger.info("Run appended to history ({} runs): {}", history.runCount(), directory);
+    } catch (IOException e) {
+      logger.error("Failed to append run to history: ", e);
+    }
   }
 
   /**
@@ -152,7 +257,9 @@ public class TestResultsReporter implements IReporter {
    *
    * <p>This method filters out null parameters and {@link ITestContext} instances to create a clean
    * string representation of test parameters. This is particularly useful for parameterized tests
-   * where we want to track what data was used.
+   * where we want to track what data was used. A {@link DataRow} is referenced by its file and row
+   * index rather than by its values, and the representation is cut to {@value
+   * #MAX_PARAMETERS_LENGTH} characters, so that the iterations of large data files stay small.
    *
    * @param params array of test method parameters (may contain nulls)
    * @return string representation of non-null, non-ITestContext parameters, or empty string if none
@@ -168,6 +275,9 @@ public class TestResultsReporter implements IReporter {
 
       if (params.length > 0) {
         stringParams = Arrays.toString(params);
+        if (stringParams.length() > MAX_PARAMETERS_LENGTH) {
+          stringParams = stringParams.substring(0, MAX_PARAMETERS_LENGTH - 3) + "...";
+        }
       }
     }
     return stringParams;
@@ -204,8 +314,8 @@ public class TestResultsReporter implements IReporter {
    * @return the next available iteration ID (starting from 1)
    */
   private int getNextIterationId(String testCaseId) {
-    TestResult existingResult = testResultsMap.get(testCaseId);
-    return existingResult != null ? existingResult.iterationDetails().size() + 1 : 1;
+    TestCaseIterations iterations = testCaseIterationsMap.get(testCaseId);
+    return iterations != null ? iterations.count + 1 : 1;
   }
 
   /**
@@ -226,7 +336,37 @@ public class TestResultsReporter implements IReporter {
       String errorMessage = getErrorMessage(testResult.getThrowable());
       String comment = "Automated Test Name: " + testName;
 
-      handleTestIteration(testCaseId, outcome, duration, parameters, errorMessage, comment);
+      handleTestIteration(
+          testCaseId,
+          outcome,
+          duration,
+          ResourceUsageListener.cpuTimeInMs(testResult),
+          ResourceUsageListener.allocatedBytes(testResult),
+          parameters,
+          errorMessage,
+          comment);
+    }
+  }
+
+  /**
+   * Accumulates the duration and resource usage of configuration method results by {@code
+   * <Class>.<method>}.
+   *
+   * @param resultMap TestNG result map containing configuration method results
+   */
+  private void collectConfigurationUsage(IResultMap resultMap) {
+    for (ITestResult result : resultMap.getAllResults()) {
+      String methodName =
+          result.getTestClass().getRealClass().getSimpleName()
+              + "."
+              + result.getMethod().getMethodName();
+      ConfigurationUsage usage =
+          new ConfigurationUsage(
+              1,
+              result.getEndMillis() - result.getStartMillis(),
+              ResourceUsageListener.cpuTimeInMs(result),
+              ResourceUsageListener.allocatedBytes(result));
+      configurationUsageMap.merge(methodName, usage, ConfigurationUsage::plus);
     }
   }
 
@@ -235,6 +375,8 @@ public class TestResultsReporter implements IReporter {
       String testCaseId,
       String outcome,
       long duration,
+      Double cpuTimeInMs,
+      Long allocatedBytes,
       String parameters,
       String errorMessage,
       String comment) {
@@ -242,41 +384,36 @@ public class TestResultsReporter implements IReporter {
     String iterationComment = buildIterationComment(parameters, testCaseId);
 
     TestIterationResult iteration =
-        new TestIterationResult(iterationId, outcome, iterationComment, duration, errorMessage);
+        new TestIterationResult(
+            iterationId,
+            outcome,
+            iterationComment,
+            duration,
+            cpuTimeInMs,
+            allocatedBytes,
+            errorMessage);
 
-    TestResult existingResult = testResultsMap.get(testCaseId);
+    TestCaseIterations iterations =
+        testCaseIterationsMap.computeIfAbsent(testCaseId, id -> new TestCaseIterations(comment));
 
-    // Track parameters for retries (if any)
-    if (!parameters.isEmpty()) {
-      testParamsIterationIdMap.put(parameters, iterationId);
-    }
-
-    if (existingResult != null) {
-      // Add iteration to existing result
-      testResultsMap.put(testCaseId, existingResult.withIterationResult(iteration));
-    } else {
-      // Create new result with first iteration
-      String initialError = errorMessage.isEmpty() ? "" : "Iteration 1: " + errorMessage + "\n";
-      TestResult newResult =
-          new TestResult(outcome, comment, duration, initialError, List.of(iteration));
-      testResultsMap.put(testCaseId, newResult);
-    }
+    iterations.add(iteration, parameters);
   }
 
   /** Builds iteration comment based on whether test has parameters or not. */
   private String buildIterationComment(String parameters, String testCaseId) {
+    TestCaseIterations iterations = testCaseIterationsMap.get(testCaseId);
     if (!parameters.isEmpty()) {
       // Parameterized test
       String comment = "DataDriven: Test Parameters: " + parameters;
-      if (testParamsIterationIdMap.containsKey(parameters)) {
-        comment =
-            "Retried Iteration " + testParamsIterationIdMap.get(parameters) + " -> " + comment;
+      Integer retriedIterationId =
+          iterations != null ? iterations.iterationIdsByParameters.get(parameters) : null;
+      if (retriedIterationId != null) {
+        comment = "Retried Iteration " + retriedIterationId + " -> " + comment;
       }
       return comment;
     } else {
       // Simple test (no parameters)
-      TestResult existingResult = testResultsMap.get(testCaseId);
-      if (existingResult != null && !existingResult.iterationDetails().isEmpty()) {
+      if (iterations != null && iterations.count > 0) {
         return "Retry Attempt";
       } else {
         return "Initial Attempt";
@@ -330,35 +467,170 @@ public class TestResultsReporter implements IReporter {
   }
 
   /**
-   * Writes the test results report to a JSON file.
+   * Summarizes the latency of every endpoint called during the run.
+   *
+   * <p>Besides the percentiles, the non-empty {@link LatencyHistogram} buckets are exported as
+   * {@code index -> count} so that later runs can be compared statistically by {@link
+   * PerformanceRegressionGate}.
+   *
+   * @return the latency summary keyed by endpoint
+   */
+  private Map<String, Object> getEndpointLatency() {
+    Map<String, Object> endpointLatency = new LinkedHashMap<>();
+    HarnessMetrics.get()
+        .latencyByEndpoint()
+        .forEach(
+            (endpoint, histogram) -> {
+              Map<String, Long> buckets = new LinkedHashMap<>();
+              long[] counts = histogram.bucketCounts();
+              for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                  buckets.put(String.valueOf(i), counts[i]);
+                }
+              }
+              Map<String, Object> latency = new LinkedHashMap<>();
+              latency.put("count", histogram.count());
+              latency.put("meanInMs", histogram.meanMillis());
+              latency.put("p50InMs", histogram.percentileMillis(50));
+              latency.put("p95InMs", histogram.percentileMillis(95));
+              latency.put("p99InMs", histogram.percentileMillis(99));
+              latency.put("buckets", buckets);
+              endpointLatency.put(endpoint, latency);
+            });
+    return endpointLatency;
+  }
+
+  /**
+   * Writes the test results report in every format configured with {@code report.formats}.
    *
-   * <p>Converts the test result report record to a JSON format and writes it to the configured
-   * output path. The JSON structure includes:
+   * <p>The JSON report is always written to {@link #TEST_CASE_RESULTS_FILE_PATH}; the other formats
+   * are written next to it with their own extension (see {@link ReportEncoder}). The structured
+   * formats include:
    *
    * <ul>
    *   <li>Test plan and suite metadata
    *   <li>Detailed test results by test case ID
    *   <li>Iteration details for each test
-   *   <li>Execution durations and outcomes
+   *   <li>Execution durations and outcomes, with the CPU time and allocated bytes of each test
+   *   <li>Duration and resource usage of configuration methods, such as test data seeding
+   *   <li>Latency percentiles and histogram buckets per endpoint
+   *   <li>Flight recording summary, when the run was recorded
    * </ul>
    *
    * @param report the complete test result report to write
-   * @throws RuntimeException if file writing fails (logged as error)
-   * @see JsonUtils#mapToJson(Map)
+   * @param flightRecordingSummary the flight recording summary, or null if not recorded
+   * @see ReportEncoder#configured()
    */
-  private void writeResultsReport(TestResultReport report) {
-    try (PrintWriter writer = new PrintWriter(new FileWriter(TEST_CASE_RESULTS_FILE_PATH))) {
-      // Convert record to Map for JsonUtils compatibility
-      Map<String, Object> reportMap =
-          Map.of(
-              "testPlanName", report.testPlanName(),
-              "testSuiteName", report.testSuiteName(),
-              "testResults", report.testResults());
-      String json = JsonUtils.mapToJson(reportMap);
-      writer.write(json);
-      logger.info("Test results report generated successfully: {}", TEST_CASE_RESULTS_FILE_PATH);
-    } catch (IOException e) {
-      logger.error("Failed to generate Test Results Report: ", e);
+  private void writeResultsReport(
+      TestResultReport report, Map<String, Object> flightRecordingSummary) {
+    Map<String, Object> sections = new LinkedHashMap<>();
+    sections.put("endpointLatency", getEndpointLatency());
+    sections.put("configurationUsage", configurationUsageMap);
+    if (flightRecordingSummary != null) {
+      sections.put("flightRecording", flightRecordingSummary);
+    }
+    for (ReportEncoder encoder : ReportEncoder.configured()) {
+      String path = REPORT_FILE_BASE_PATH + encoder.fileExtension();
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+        encoder.encode(report, sections, out);
+        logger.info("Test results report generated successfully: {}", path);
+      } catch (IOException e) {
+        logger.error("Failed to generate Test Results Report {}: ", path, e);
+      }
+    }
+  }
+
+  /**
+   * A fixed-size summary of the iterations of a test case collected so far, so that data-driven
+   * tests with any number of rows take bounded memory: the iterations are counted by outcome, the
+   * details of the first {@value #MAX_ITERATION_DETAILS} iterations and of the first {@value
+   * #MAX_ITERATION_ERRORS} failed ones are kept, and so are their errors in the error message. The
+   * parameters of failed iterations are remembered, up to the same limit, to mark their retries.
+   */
+  private static final class TestCaseIterations {
+
+    private final String comment;
+    private final List<TestIterationResult> details = new ArrayList<>();
+    private final Map<String, Integer> outcomeCounts = new LinkedHashMap<>();
+    private final Map<String, Integer> iterationIdsByParameters = new HashMap<>();
+    private final StringBuilder errorMessage = new StringBuilder();
+    private String outcome;
+    private long durationInMs;
+    private Double cpuTimeInMs;
+    private Long allocatedBytes;
+    private int count;
+    private int failedIterations;
+
+    TestCaseIterations(String comment) {
+      this.comment = comment;
+    }
+
+    /**
+     * Adds an iteration: the test case outcome becomes {@code Inconclusive} when the iterations
+     * have different outcomes, and the durations and resource usage are summed.
+     *
+     * @param iteration the iteration
+     * @param parameters the parameters of the iteration, empty for a simple test
+     */
+    void add(TestIterationResult iteration, String parameters) {
+      count++;
+      outcomeCounts.merge(iteration.outcome(), 1, Integer::sum);
+      if (outcome == null) {
+        outcome = iteration.outcome();
+        cpuTimeInMs = iteration.cpuTimeInMs();
+        allocatedBytes = iteration.allocatedBytes();
+      } else {
+        if (!outcome.equals(iteration.outcome())) {
+          outcome = "Inconclusive";
+        }
+        cpuTimeInMs = TestResult.sum(cpuTimeInMs, iteration.cpuTimeInMs());
+        allocatedBytes = TestResult.sum(allocatedBytes, iteration.allocatedBytes());
+      }
+      durationInMs += iteration.durationInMs();
+      boolean failed = !"Passed".equals(iteration.outcome());
+      boolean sampledFailure = failed && ++failedIterations <= MAX_ITERATION_ERRORS;
+      if (count <= MAX_ITERATION_DETAILS || sampledFailure) {
+        details.add(iteration);
+      }
+      if (sampledFailure && !parameters.isEmpty()) {
+        // Track parameters for retries, which TestNG reports after the skipped attempt
+        iterationIdsByParameters.put(parameters, iteration.id());
+      }
+      if (sampledFailure && !iteration.errorMessage().isEmpty()) {
+        if (!errorMessage.isEmpty()) {
+          errorMessage.append("\n");
+        }
+        errorMessage
+            .append("Iteration ")
+            .append(iteration.id())
+            .append(": ")
+            .append(iteration.errorMessage())
+            .append("\n");
+      }
+    }
+
+    /**
+     * Returns the test result of the iterations.
+     *
+     * @return the test result
+     */
+    TestResult toResult() {
+      String errors = errorMessage.toString();
+      if (failedIterations > MAX_ITERATION_ERRORS) {
+        errors +=
+            "\n... and "
+                + (failedIterations - MAX_ITERATION_ERRORS)
+                + " more failed iterations\n";
+      }
+      return new TestResult(
+          outcome,
+          comment,
+          durationInMs,
+          cpuTimeInMs,
+          allocatedBytes,
+          errors,
+          List.copyOf(details),
+          new LinkedHashMap<>(outcomeCounts));
     }
   }
 }
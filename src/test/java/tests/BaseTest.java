@@ -1,38 +1,83 @@
 package tests;
 
-import io.qameta.allure.restassured.AllureRestAssured;
+import static testUtils.BookApi.ADMIN;
+
 import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Listeners;
+import testUtils.BookCatalog;
+import testUtils.BookCatalogFilter;
+import testUtils.MockTokenIssuer;
+import testUtils.ResourceUsageListener;
 import testUtils.TestResultLoggerListener;
-import utils.RestAssuredLogFilter;
+import utils.CassetteFilter;
+import utils.FlightRecording;
+import utils.HarnessMetrics;
+import utils.HarnessProfile;
+import utils.JdkHttpTransportFilter;
+import utils.TestContext;
+import utils.TokenProvider;
 
 /** Base test class for API tests, providing setup and teardown logic. */
-@Listeners({TestResultLoggerListener.class, io.qameta.allure.testng.AllureTestNg.class})
-public class BaseTest {
-  private static final String BASE_URI = "http://localhost:3000";
+@Listeners({
+  TestResultLoggerListener.class,
+  ResourceUsageListener.class,
+  io.qameta.allure.testng.AllureTestNg.class
+})
+public class BaseTest implements IHookable {
+  private static final String BASE_URI =
+      System.getProperty("api.baseUri", "http://localhost:3000");
   private static final String BASE_PATH = "/api/books";
-  protected static final String USER_AUTH_TOKEN = "user-token";
-  protected static final String USER_ADMIN_TOKEN = "admin-token";
   protected Logger logger = LogManager.getLogger(getClass());
   protected static final int MAX_RETRY_COUNT = 3;
+  protected static final BookCatalog catalog = BookCatalog.get();
+  private static CassetteFilter cassette;
+  private static MockTokenIssuer tokenIssuer;
 
-  /** Sets up the test suite with base URI, path, and filters. */
+  /**
+   * Sets up the test suite with base URI, path, the reporting filters of the {@link
+   * HarnessProfile}, the recording of writes in the book catalog, the live metrics exporters and
+   * the optional flight recording. A cassette filter, when enabled, is installed after the other
+   * filters so that it records or replays the exchanges seen by all of them, and the JDK HTTP
+   * transport, when enabled, comes last because it sends the request itself. With {@code
+   * -Dauth.issuer=mock}, tokens are obtained from a local {@link MockTokenIssuer}.
+   *
+   * @throws IOException if the mock token issuer cannot be started
+   */
   @BeforeSuite(alwaysRun = true)
-  public void setUpSuite() {
+  public void setUpSuite() throws IOException {
+    if ("mock".equalsIgnoreCase(System.getProperty("auth.issuer", "").trim())) {
+      tokenIssuer = new MockTokenIssuer(0, Long.getLong("auth.mock.expiresIn", 300));
+      System.setProperty("auth.tokenUrl", tokenIssuer.tokenUrl());
+    }
     RestAssured.baseURI = BASE_URI;
     RestAssured.basePath = BASE_PATH;
-    RestAssured.filters(new RestAssuredLogFilter(), new AllureRestAssured());
+    RestAssured.filters(HarnessProfile.current().filters());
+    RestAssured.filters(new BookCatalogFilter(catalog));
+    cassette = CassetteFilter.fromSystemProperties();
+    if (cassette != null) {
+      RestAssured.filters(cassette);
+    }
+    JdkHttpTransportFilter transport = JdkHttpTransportFilter.fromSystemProperties();
+    if (transport != null) {
+      RestAssured.filters(transport);
+    }
+    HarnessMetrics.startExporters();
+    FlightRecording.start();
   }
 
   /** Runs before each test, sets up thread context. */
@@ -48,8 +93,24 @@ public class BaseTest {
    */
   @BeforeMethod(alwaysRun = true)
   public void setup(Method method) {
-    ThreadContext.put(
-        "testName", method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    ThreadContext.put("testName", testName(method));
+  }
+
+  /**
+   * Runs the test method with its {@link TestContext} bound, so that requests and log events from
+   * threads the test fans out to with {@link TestContext#wrap} are attributed to it.
+   *
+   * @param callBack the TestNG callback that invokes the test method
+   * @param testResult the result of the test method
+   */
+  @Override
+  public void run(IHookCallBack callBack, ITestResult testResult) {
+    Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+    new TestContext(testName(method), testResult).run(() -> callBack.runTestMethod(testResult));
+  }
+
+  private static String testName(Method method) {
+    return method.getDeclaringClass().getSimpleName() + "." + method.getName();
   }
 
   /** Runs after each test method, clears thread context. */
@@ -58,16 +119,28 @@ public class BaseTest {
     ThreadContext.clearAll();
   }
 
-  /** Resets the books after the test suite completes. */
+  /**
+   * Resets the books after the test suite completes, stops the token providers and closes the
+   * cassette and the mock token issuer, if any.
+   *
+   * @throws IOException if the cassette cannot be closed
+   */
   @AfterSuite(alwaysRun = true)
-  public void resetBooksAfterSuite() {
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_ADMIN_TOKEN)
-        .when()
-        .delete("/reset")
-        .then()
-        .statusCode(204);
+  public void resetBooksAfterSuite() throws IOException {
+    try {
+      ADMIN.given().when().delete("/reset").then().statusCode(204);
+    } finally {
+      TokenProvider.resetRoles();
+      if (tokenIssuer != null) {
+        tokenIssuer.close();
+        tokenIssuer = null;
+        System.clearProperty("auth.tokenUrl");
+      }
+      if (cassette != null) {
+        cassette.close();
+        cassette = null;
+      }
+    }
   }
 
   /**
@@ -90,6 +163,7 @@ public class BaseTest {
       int retryAfterSeconds = retryAfter != null ? Integer.parseInt(retryAfter) : 30;
 
       if (retryCount < MAX_RETRY_COUNT) {
+        HarnessMetrics.get().retried("retryRequest");
         String message =
             "Retrying test after "
                 + retryAfterSeconds
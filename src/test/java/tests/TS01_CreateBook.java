@@ -1,5 +1,8 @@
 package tests;
 
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+import static testUtils.JsonBodyMatcher.json;
 import static testUtils.LoggingMatcher.log;
 
 import io.qameta.allure.Description;
@@ -7,8 +10,6 @@ import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Severity;
 import io.qameta.allure.SeverityLevel;
-import io.restassured.RestAssured;
-import io.restassured.http.ContentType;
 import org.hamcrest.Matchers;
 import org.testng.annotations.Test;
 import pojos.Book;
@@ -27,18 +28,7 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldCreateBookWhenTitleAndAuthorAreValid() {
     Book book = new Book("Rest API Automation", "John Ferd");
     Book responseBook =
-        RestAssured.given()
-            .auth()
-            .oauth2(USER_AUTH_TOKEN)
-            .contentType(ContentType.JSON)
-            .body(book)
-            .when()
-            .post()
-            .then()
-            .statusCode(201)
-            .extract()
-            .response()
-            .as(Book.class);
+        USER.create(book).then().statusCode(201).extract().response().as(Book.class);
     Assertion.assertNotNull(responseBook.getId(), "Book ID should be generated by the server");
     Assertion.assertEquals(responseBook.getTitle(), book.getTitle(), "Book title should match");
     Assertion.assertEquals(responseBook.getAuthor(), book.getAuthor(), "Book author should match");
@@ -51,13 +41,7 @@ public class TS01_CreateBook extends BaseTest {
   @Description("Attempts to create a duplicate book and expects a 409 Conflict error.")
   public void testShouldRejectDuplicateBookCreation() {
     Book book = new Book("Rest API Automation", "John Ferd");
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    USER.create(book)
         .then()
         .statusCode(409)
         .body(
@@ -71,18 +55,14 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldCreateBookWithJsonStringifyWhenTitleAndAuthorAreValid() {
     Book book = new Book("Quick Start and Build API using Nodejs express", "Nayeem John");
     String bookString = JsonUtils.JsonStringify(book);
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(bookString)
-        .when()
-        .post()
+    USER.create(bookString)
         .then()
         .statusCode(201)
-        .body("id", log(logger, Matchers.notNullValue()))
-        .body("author", log(logger, Matchers.equalTo(book.getAuthor())))
-        .body("title", log(logger, Matchers.equalTo(book.getTitle())));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.notNullValue()))
+                .path("author", log(logger, Matchers.equalTo(book.getAuthor())))
+                .path("title", log(logger, Matchers.equalTo(book.getTitle()))));
   }
 
   /** Should create a book when title is different for the same author. */
@@ -94,18 +74,14 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldCreateBookWhenTitleIsDifferentForSameAuthor() {
     Book book = new Book("TestNG Annoation Introduction", "Nayeem John");
     String bookString = JsonUtils.JsonStringify(book);
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(bookString)
-        .when()
-        .post()
+    USER.create(bookString)
         .then()
         .statusCode(201)
-        .body("id", log(logger, Matchers.notNullValue()))
-        .body("author", log(logger, Matchers.equalTo(book.getAuthor())))
-        .body("title", log(logger, Matchers.equalTo(book.getTitle())));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.notNullValue()))
+                .path("author", log(logger, Matchers.equalTo(book.getAuthor())))
+                .path("title", log(logger, Matchers.equalTo(book.getTitle()))));
   }
 
   /** Should create a book when author is different for the same book. */
@@ -117,18 +93,14 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldCreateBookWhenAuthorIsDifferentForSameBook() {
     Book book = new Book("TestNG Annoation Introduction", "David James");
     String bookString = JsonUtils.JsonStringify(book);
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(bookString)
-        .when()
-        .post()
+    USER.create(bookString)
         .then()
         .statusCode(201)
-        .body("id", log(logger, Matchers.notNullValue()))
-        .body("author", log(logger, Matchers.equalTo(book.getAuthor())))
-        .body("title", log(logger, Matchers.equalTo(book.getTitle())));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.notNullValue()))
+                .path("author", log(logger, Matchers.equalTo(book.getAuthor())))
+                .path("title", log(logger, Matchers.equalTo(book.getTitle()))));
   }
 
   /** Should return 401 when no auth token is provided. */
@@ -137,11 +109,7 @@ public class TS01_CreateBook extends BaseTest {
       "Attempts to create a book without authentication and expects a 401 Unauthorized error.")
   public void testShouldReturn401WhenNoAuthTokenProvided() {
     Book book = new Book("Rest API Automation", "John Ferd");
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    ANONYMOUS.create(book)
         .then()
         .statusCode(401)
         .body("error", log(logger, Matchers.equalTo("Unauthorized. No token provided.")));
@@ -154,13 +122,7 @@ public class TS01_CreateBook extends BaseTest {
           + " error.")
   public void testShouldRejectBookWithMissingTitleAndAuthor() {
     Book book = new Book();
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    USER.create(book)
         .then()
         .statusCode(400)
         .body("error", log(logger, Matchers.equalTo("Both title and author are required.")));
@@ -172,13 +134,7 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldRejectBookWhenTitleIsMissing() {
     Book book = new Book();
     book.setAuthor("OnlyAuthor");
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    USER.create(book)
         .then()
         .statusCode(400)
         .body("error", log(logger, Matchers.equalTo("Both title and author are required.")));
@@ -190,13 +146,7 @@ public class TS01_CreateBook extends BaseTest {
   public void testShouldRejectBookWhenAuthorIsMissing() {
     Book book = new Book();
     book.setTitle("OnlyTitle");
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    USER.create(book)
         .then()
         .statusCode(400)
         .body("error", log(logger, Matchers.equalTo("Both title and author are required.")));
@@ -208,13 +158,7 @@ public class TS01_CreateBook extends BaseTest {
       "Attempts to create a book with a client-provided ID and expects a 400 Bad Request error.")
   public void testShouldRejectBookCreationWithClientProvidedId() {
     Book book = new Book(123, "Rest API Automation", "John Ferd");
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .contentType(ContentType.JSON)
-        .body(book)
-        .when()
-        .post()
+    USER.create(book)
         .then()
         .statusCode(400)
         .body(
@@ -1,5 +1,8 @@
 package tests;
 
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+import static testUtils.JsonBodyMatcher.json;
 import static testUtils.LoggingMatcher.log;
 
 import io.qameta.allure.Description;
@@ -7,15 +10,16 @@ import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Severity;
 import io.qameta.allure.SeverityLevel;
-import io.restassured.RestAssured;
-import io.restassured.http.ContentType;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import pojos.Book;
+import testUtils.DataFiles;
+import testUtils.DataRow;
 
 /** Test cases for retrieving books via the API. */
 @Epic("Book Management")
@@ -23,7 +27,13 @@ import pojos.Book;
 @Severity(SeverityLevel.CRITICAL)
 public class TS02_GetBook extends BaseTest {
 
-  /** Creates books before running get book tests. */
+  /** Page size of the API when no limit is given. */
+  private static final int DEFAULT_PAGE_LIMIT = 10;
+
+  /** Page size used to fetch every book when syncing the book catalog. */
+  private static final int SYNC_PAGE_LIMIT = 100;
+
+  /** Creates books before running get book tests and syncs the book catalog with the API. */
   @BeforeTest(alwaysRun = true)
   @Description("Creates a set of books before running get book tests to ensure data is available.")
   public void createBooksBeforeGetBookTest() {
@@ -32,46 +42,74 @@ public class TS02_GetBook extends BaseTest {
       books.add(new Book("Get API Test Book Title " + i, "Get API Test Book Author " + i));
     }
     for (Book book : books) {
-      retryRequest(
-              () ->
-                  RestAssured.given()
-                      .auth()
-                      .oauth2(USER_AUTH_TOKEN)
-                      .contentType(ContentType.JSON)
-                      .body(book)
-                      .when()
-                      .post())
+      retryRequest(() -> USER.create(book))
           .then()
           .statusCode(201)
-          .body("id", log(logger, Matchers.notNullValue()))
-          .body("title", log(logger, Matchers.equalTo(book.getTitle())))
-          .body("author", log(logger, Matchers.equalTo(book.getAuthor())));
+          .body(
+              json()
+                  .path("id", log(logger, Matchers.notNullValue()))
+                  .path("title", log(logger, Matchers.equalTo(book.getTitle())))
+                  .path("author", log(logger, Matchers.equalTo(book.getAuthor()))));
+    }
+    catalog.sync(fetchAllBooks());
+  }
+
+  /**
+   * Fetches every book page by page until an empty page, since a list without a page and limit
+   * only returns the first {@value #DEFAULT_PAGE_LIMIT} books.
+   *
+   * @return the books, in API order
+   */
+  private List<Book> fetchAllBooks() {
+    List<Book> books = new ArrayList<>();
+    for (int page = 1; ; page++) {
+      int current = page;
+      Book[] pageBooks =
+          retryRequest(() -> ANONYMOUS.list(current, SYNC_PAGE_LIMIT))
+              .then()
+              .statusCode(200)
+              .extract()
+              .as(Book[].class);
+      if (pageBooks.length == 0) {
+        return books;
+      }
+      books.addAll(List.of(pageBooks));
     }
   }
 
+  /**
+   * Returns the IDs of books, in order.
+   *
+   * @param books the books
+   * @return the IDs
+   */
+  private static List<Integer> ids(List<Book> books) {
+    return books.stream().map(Book::getId).toList();
+  }
+
   /** Should return books for default page 1. */
   @Test(groups = {"smoke", "regression"})
-  @Description("Retrieves books for default page 1 and verifies at least 10 books are returned.")
+  @Description("Retrieves books for default page 1 and verifies the first 10 books are returned.")
   public void testShouldReturnBooksForDefaultPage1() {
-    RestAssured.given()
-        .when()
-        .get()
+    ANONYMOUS.list()
         .then()
         .statusCode(200)
-        .body("book.size()", log(logger, Matchers.greaterThanOrEqualTo(10)));
+        .body(
+            json()
+                .path("$.size()", log(logger, Matchers.greaterThanOrEqualTo(10)))
+                .path(
+                    "id",
+                    log(logger, Matchers.equalTo(ids(catalog.page(1, DEFAULT_PAGE_LIMIT))))));
   }
 
   /** Should return books by page number. */
   @Test(groups = {"regression"})
   @Description("Retrieves books by page number and verifies correct books are returned.")
   public void testShouldReturnBooksByPageNumber() {
-    RestAssured.given()
-        .queryParam("page", "2")
-        .when()
-        .get()
+    ANONYMOUS.list("2", null)
         .then()
         .statusCode(200)
-        .body("id", log(logger, Matchers.hasItem(log(logger, Matchers.greaterThan(10)))));
+        .body("id", log(logger, Matchers.equalTo(ids(catalog.page(2, DEFAULT_PAGE_LIMIT)))));
   }
 
   /** Should return books by limit. */
@@ -79,27 +117,23 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Retrieves books by limit and verifies the number of books returned matches the limit.")
   public void testShouldReturnBooksByLimit() {
-    RestAssured.given()
-        .queryParam("limit", "5")
-        .when()
-        .get()
+    ANONYMOUS.list(null, "5")
         .then()
         .statusCode(200)
-        .body("$.size()", log(logger, Matchers.equalTo(5)));
+        .body(
+            json()
+                .path("$.size()", log(logger, Matchers.equalTo(5)))
+                .path("id", log(logger, Matchers.equalTo(ids(catalog.page(1, 5))))));
   }
 
   /** Should return books by limit and page. */
   @Test(groups = {"regression"})
   @Description("Retrieves books by limit and page and verifies correct books are returned.")
   public void testShouldReturnBooksByLimitAndPage() {
-    RestAssured.given()
-        .queryParam("page", 3)
-        .queryParam("limit", 5)
-        .when()
-        .get()
+    ANONYMOUS.list(3, 5)
         .then()
         .statusCode(200)
-        .body("id", log(logger, Matchers.hasItem(log(logger, Matchers.greaterThan(10)))));
+        .body("id", log(logger, Matchers.equalTo(ids(catalog.page(3, 5)))));
   }
 
   /** Should return no books if page number is not in range. */
@@ -107,10 +141,7 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Attempts to retrieve books with an out-of-range page number and expects no books returned.")
   public void testShouldReturnNoBooksIfPageNumberIsNotInRange() {
-    RestAssured.given()
-        .queryParam("page", "3")
-        .when()
-        .get()
+    ANONYMOUS.list(catalog.size() / DEFAULT_PAGE_LIMIT + 2, null)
         .then()
         .statusCode(200)
         .body("$", log(logger, Matchers.empty()));
@@ -121,10 +152,7 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Attempts to retrieve books with a negative page number and expects no books returned.")
   public void testShouldReturnNoBooksOnNegativePage() {
-    RestAssured.given()
-        .queryParam("page", -3)
-        .when()
-        .get()
+    ANONYMOUS.list(-3, null)
         .then()
         .statusCode(200)
         .body("$", log(logger, Matchers.empty()));
@@ -134,26 +162,28 @@ public class TS02_GetBook extends BaseTest {
   @Test(groups = {"negative", "regression"})
   @Description("Retrieves books with a negative limit and verifies books are still returned.")
   public void testShouldReturnBooksExcludingLastLimitOnNegativeLimit() {
-    RestAssured.given()
-        .queryParam("limit", -3)
-        .when()
-        .get()
+    ANONYMOUS.list(null, -3)
         .then()
         .statusCode(200)
-        .body("$", log(logger, Matchers.not(log(logger, Matchers.empty()))));
+        .body(
+            json()
+                .path("$", log(logger, Matchers.not(log(logger, Matchers.empty()))))
+                .path("id", log(logger, Matchers.equalTo(ids(catalog.page(1, -3))))));
   }
 
   /** Should return a single book by ID. */
   @Test(groups = {"smoke", "regression"})
   @Description("Retrieves a single book by ID and verifies the correct book is returned.")
   public void testShouldReturnSingleBookByID() {
-    RestAssured.given()
-        .pathParam("bookId", 10)
-        .when()
-        .get("/{bookId}")
+    Book book = catalog.search("Get API Test Book Title 10", "Get API Test Book Author 10").get(0);
+    ANONYMOUS.get(book.getId())
         .then()
         .statusCode(200)
-        .body("id", log(logger, Matchers.equalTo(10)));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.equalTo(book.getId())))
+                .path("title", log(logger, Matchers.equalTo(book.getTitle())))
+                .path("author", log(logger, Matchers.equalTo(book.getAuthor()))));
   }
 
   /** Should not return a book when book ID is an invalid string. */
@@ -161,29 +191,27 @@ public class TS02_GetBook extends BaseTest {
       groups = {"negative", "regression"},
       dataProvider = "InvalidBookID")
   @Description("Attempts to retrieve a book with an invalid string ID and expects a 404 error.")
-  public void testShouldNotReturnBookWhenBookIdIsInvalidString(Object inValidBookId) {
-    RestAssured.given()
-        .pathParam("bookId", inValidBookId)
-        .when()
-        .get("/{bookId}")
+  public void testShouldNotReturnBookWhenBookIdIsInvalidString(DataRow row) {
+    ANONYMOUS.get(row.text("bookId"))
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Book not found")));
   }
 
-  @DataProvider(name = "InvalidBookID")
-  public Object[] getInvalidBookID() {
-    return new Object[] {111111111, "ZZZZZZZZZZZZZZZZZ", "122222222", "#$%^&*&^%", 8};
+  /**
+   * Streams the invalid book IDs of {@code data/invalid-book-ids.csv}; with {@code -Ddata.dir} a
+   * larger file of the same name can be run.
+   */
+  @DataProvider(name = "InvalidBookID", parallel = true)
+  public Iterator<Object[]> getInvalidBookID() {
+    return DataFiles.rows("invalid-book-ids.csv");
   }
 
   /** Should not return a book when book ID does not exist. */
   @Test(groups = {"negative", "regression"})
   @Description("Attempts to retrieve a book with a non-existent ID and expects a 404 error.")
   public void testShouldNotReturnBookWhenBookIdNotExists() {
-    RestAssured.given()
-        .pathParam("bookId", 112345)
-        .when()
-        .get("/{bookId}")
+    ANONYMOUS.get(112345)
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Book not found")));
@@ -194,13 +222,17 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Retrieves all books when book ID is empty and verifies the response contains books.")
   public void testShouldReturnAllBooksWhenBookIdIsEmpty() {
-    RestAssured.given()
-        .pathParam("bookId", "")
-        .when()
-        .get("/{bookId}")
+    ANONYMOUS.get("")
         .then()
         .statusCode(200)
-        .body("$.size()", log(logger, Matchers.greaterThanOrEqualTo(10)));
+        .body(
+            json()
+                .path("$.size()", log(logger, Matchers.greaterThanOrEqualTo(10)))
+                .path(
+                    "id",
+                    log(
+                        logger,
+                        Matchers.equalTo(ids(catalog.page(1, DEFAULT_PAGE_LIMIT))))));
   }
 
   /** Should return books containing the author. */
@@ -208,30 +240,38 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Searches for books by author and verifies books containing the author are returned.")
   public void testShouldReturnBooksContainsAuthor() {
-    RestAssured.given()
-        .queryParam("author", "Book Author")
-        .when()
-        .get("/search")
+    ANONYMOUS.search(null, "Book Author")
         .then()
         .statusCode(200)
         .body(
-            "author",
-            log(logger, Matchers.hasItem(log(logger, Matchers.containsString("Book Author")))));
+            json()
+                .path(
+                    "author",
+                    log(
+                        logger,
+                        Matchers.hasItem(log(logger, Matchers.containsString("Book Author")))))
+                .path(
+                    "id",
+                    log(logger, Matchers.equalTo(ids(catalog.search(null, "Book Author"))))));
   }
 
   /** Should return books containing the title. */
   @Test(groups = {"regression"})
   @Description("Searches for books by title and verifies books containing the title are returned.")
   public void testShouldReturnBooksContainsTitle() {
-    RestAssured.given()
-        .queryParam("title", "Book Title")
-        .when()
-        .get("/search")
+    ANONYMOUS.search("Book Title", null)
         .then()
         .statusCode(200)
         .body(
-            "title",
-            log(logger, Matchers.hasItem(log(logger, Matchers.containsString("Book Title")))));
+            json()
+                .path(
+                    "title",
+                    log(
+                        logger,
+                        Matchers.hasItem(log(logger, Matchers.containsString("Book Title")))))
+                .path(
+                    "id",
+                    log(logger, Matchers.equalTo(ids(catalog.search("Book Title", null))))));
   }
 
   /** Should return books containing both title and author. */
@@ -239,21 +279,27 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Searches for books by both title and author and verifies matching books are returned.")
   public void testShouldReturnBooksContainsTitleAndAuthor() {
-    RestAssured.given()
-        .queryParam("title", "Book Title")
-        .queryParam("author", "book author")
-        .when()
-        .get("/search")
+    ANONYMOUS.search("Book Title", "book author")
         .then()
         .statusCode(200)
         .body(
-            "title",
-            log(logger, Matchers.hasItem(log(logger, Matchers.containsString("Book Title")))))
-        .body(
-            "author",
-            log(
-                logger,
-                Matchers.hasItem(log(logger, Matchers.containsStringIgnoringCase("book author")))));
+            json()
+                .path(
+                    "title",
+                    log(
+                        logger,
+                        Matchers.hasItem(log(logger, Matchers.containsString("Book Title")))))
+                .path(
+                    "author",
+                    log(
+                        logger,
+                        Matchers.hasItem(
+                            log(logger, Matchers.containsStringIgnoringCase("book author")))))
+                .path(
+                    "id",
+                    log(
+                        logger,
+                        Matchers.equalTo(ids(catalog.search("Book Title", "book author"))))));
   }
 
   /** Should return a single book with title and author. */
@@ -261,35 +307,37 @@ public class TS02_GetBook extends BaseTest {
   @Description(
       "Searches for a single book by title and author and verifies only one book is returned.")
   public void testShouldReturnSingleBookWithTitleAndAuthor() {
-    RestAssured.given()
-        .queryParam("title", "get api test book title 10")
-        .queryParam("author", "author 10")
-        .when()
-        .get("/search")
+    ANONYMOUS.search("get api test book title 10", "author 10")
         .then()
         .statusCode(200)
-        .body("$.size()", log(logger, Matchers.equalTo(1)))
-        .body(
-            "title",
-            log(
-                logger,
-                Matchers.hasItem(
-                    log(logger, Matchers.containsString("Get API Test Book Title 10")))))
         .body(
-            "author",
-            log(
-                logger,
-                Matchers.hasItem(
-                    log(logger, Matchers.containsStringIgnoringCase("book author 10")))));
+            json()
+                .path("$.size()", log(logger, Matchers.equalTo(1)))
+                .path(
+                    "title",
+                    log(
+                        logger,
+                        Matchers.hasItem(
+                            log(logger, Matchers.containsString("Get API Test Book Title 10")))))
+                .path(
+                    "author",
+                    log(
+                        logger,
+                        Matchers.hasItem(
+                            log(logger, Matchers.containsStringIgnoringCase("book author 10")))))
+                .path(
+                    "id",
+                    log(
+                        logger,
+                        Matchers.equalTo(
+                            ids(catalog.search("get api test book title 10", "author 10"))))));
   }
 
   /** Should return 404 when book search is without author and title. */
   @Test(groups = {"negative", "regression"})
   @Description("Attempts to search for books without author and title and expects a 400 error.")
   public void testShouldReturn404WhenBookSearchWithoutAuthorAndTitle() {
-    RestAssured.given()
-        .when()
-        .get("/search")
+    ANONYMOUS.search(null, null)
         .then()
         .statusCode(400)
         .body(
@@ -301,11 +349,7 @@ public class TS02_GetBook extends BaseTest {
   @Test(groups = {"negative", "regression"})
   @Description("Searches for a book with a non-existent title and author and expects a 404 error.")
   public void testShouldReturnNoBooksWhenBookWithTitleAndAuthorNotExists() {
-    RestAssured.given()
-        .queryParam("title", "Get API Test Book Title 1")
-        .queryParam("author", "Get API Test Book Author 2")
-        .when()
-        .get("/search")
+    ANONYMOUS.search("Get API Test Book Title 1", "Get API Test Book Author 2")
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Books not found for search")));
@@ -315,10 +359,7 @@ public class TS02_GetBook extends BaseTest {
   @Test(groups = {"negative", "regression"})
   @Description("Searches for a book with a non-existent author and expects a 404 error.")
   public void testShouldReturnNoBooksWhenBookWithAuthorNotExists() {
-    RestAssured.given()
-        .queryParam("author", "Get API Test Book Author 222222")
-        .when()
-        .get("/search")
+    ANONYMOUS.search(null, "Get API Test Book Author 222222")
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Books not found for search")));
@@ -328,10 +369,7 @@ public class TS02_GetBook extends BaseTest {
   @Test(groups = {"negative", "regression"})
   @Description("Searches for a book with a non-existent title and expects a 404 error.")
   public void testShouldReturnNoBooksWhenBookWithTitleNotExists() {
-    RestAssured.given()
-        .queryParam("title", "Get API Test Book Title 11111")
-        .when()
-        .get("/search")
+    ANONYMOUS.search("Get API Test Book Title 11111", null)
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Books not found for search")));
@@ -1,5 +1,8 @@
 package tests;
 
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+import static testUtils.JsonBodyMatcher.json;
 import static testUtils.LoggingMatcher.log;
 
 import io.qameta.allure.Description;
@@ -7,8 +10,6 @@ import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Severity;
 import io.qameta.allure.SeverityLevel;
-import io.restassured.RestAssured;
-import io.restassured.http.ContentType;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
@@ -30,19 +31,7 @@ public class TS03_UpdateBook extends BaseTest {
   public void createBookBeforeUpdateBookTest() {
     Book book = new Book("PUT API Test Book Title", "PUT API Test Book Author");
     Book responseBook =
-        retryRequest(
-                () ->
-                    RestAssured.given()
-                        .auth()
-                        .oauth2(USER_AUTH_TOKEN)
-                        .contentType(ContentType.JSON)
-                        .body(book)
-                        .when()
-                        .post())
-            .then()
-            .statusCode(201)
-            .extract()
-            .as(Book.class);
+        retryRequest(() -> USER.create(book)).then().statusCode(201).extract().as(Book.class);
     Assertion.assertNotNull(responseBook.getId(), "Book ID should be generated by the server");
     Assertion.assertEquals(responseBook.getTitle(), book.getTitle(), "Book title should match");
     Assertion.assertEquals(responseBook.getAuthor(), book.getAuthor(), "Book author should match");
@@ -54,36 +43,26 @@ public class TS03_UpdateBook extends BaseTest {
   @Test(groups = {"smoke", "regression"})
   @Description("Updates the author of an existing book and verifies the change.")
   public void testShouldUpdateBookAuthor() {
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .pathParam("bookId", bookId)
-        .body("{\"author\": \"Test PUT API Book Author Name\"}")
-        .when()
-        .put("/{bookId}")
+    USER.update(bookId, "{\"author\": \"Test PUT API Book Author Name\"}")
         .then()
         .statusCode(200)
-        .body("id", log(logger, Matchers.equalTo(bookId)))
-        .body("author", log(logger, Matchers.equalTo("Test PUT API Book Author Name")));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.equalTo(bookId)))
+                .path("author", log(logger, Matchers.equalTo("Test PUT API Book Author Name"))));
   }
 
   /** Should update the title of a book. */
   @Test(groups = {"smoke", "regression"})
   @Description("Updates the title of an existing book and verifies the change.")
   public void testShouldUpdateBookTitle() {
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .pathParam("bookId", bookId)
-        .body("{\"title\": \"Test PUT API Book Title\"}")
-        .when()
-        .put("/{bookId}")
+    USER.update(bookId, "{\"title\": \"Test PUT API Book Title\"}")
         .then()
         .statusCode(200)
-        .body("id", log(logger, Matchers.equalTo(bookId)))
-        .body("title", log(logger, Matchers.equalTo("Test PUT API Book Title")));
+        .body(
+            json()
+                .path("id", log(logger, Matchers.equalTo(bookId)))
+                .path("title", log(logger, Matchers.equalTo("Test PUT API Book Title"))));
   }
 
   /** Should return 401 when no auth is provided on update book. */
@@ -91,11 +70,7 @@ public class TS03_UpdateBook extends BaseTest {
   @Description(
       "Attempts to update a book without authentication and expects a 401 Unauthorized error.")
   public void testShouldReturn401WhenNoAuthIsProvidedOnUpdateBook() {
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .pathParam("bookId", bookId)
-        .when()
-        .put("/{bookId}")
+    ANONYMOUS.update(bookId)
         .then()
         .statusCode(401)
         .body("error", log(logger, Matchers.equalTo("Unauthorized. No token provided.")));
@@ -105,13 +80,7 @@ public class TS03_UpdateBook extends BaseTest {
   @Test(groups = {"negative", "regression"})
   @Description("Attempts to update a non-existent book and expects a 404 Not Found error.")
   public void testShouldReturn404WhenBookWithIdIsNotExists() {
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .pathParam("bookId", 890761)
-        .when()
-        .put("/{bookId}")
+    USER.update(890761)
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Book not found")));
@@ -123,14 +92,7 @@ public class TS03_UpdateBook extends BaseTest {
       "Attempts to update a book with a mismatched ID in the request body and expects a 400 Bad"
           + " Request error.")
   public void testShouldReturn400WhenDifferentBookIdIsGivenInBody() {
-    RestAssured.given()
-        .contentType(ContentType.JSON)
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .pathParam("bookId", bookId)
-        .body("{\"author\": \"Updated Author Name\", \"id\": 345}")
-        .when()
-        .put("/{bookId}")
+    USER.update(bookId, "{\"author\": \"Updated Author Name\", \"id\": 345}")
         .then()
         .statusCode(400)
         .body("error", log(logger, Matchers.equalTo("Updating book ID is not allowed.")));
@@ -143,19 +105,7 @@ public class TS03_UpdateBook extends BaseTest {
           + " update.")
   public void testShouldUpdateBookWhenSameBookIdIsGivenInBody() {
     Book book = new Book(bookId, "Test PUT API Book Title 2", "Test PUT API Book Author Name 2");
-    Book responseBook =
-        RestAssured.given()
-            .contentType(ContentType.JSON)
-            .auth()
-            .oauth2(USER_AUTH_TOKEN)
-            .pathParam("bookId", bookId)
-            .body(book)
-            .when()
-            .put("/{bookId}")
-            .then()
-            .statusCode(200)
-            .extract()
-            .as(Book.class);
+    Book responseBook = USER.update(bookId, book).then().statusCode(200).extract().as(Book.class);
     Assertion.assertNotNull(responseBook.getId(), "Book ID should be generated by the server");
     Assertion.assertEquals(responseBook.getTitle(), book.getTitle(), "Book title should match");
     Assertion.assertEquals(responseBook.getAuthor(), book.getAuthor(), "Book author should match");
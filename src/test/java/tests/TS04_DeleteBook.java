@@ -1,5 +1,8 @@
 package tests;
 
+import static testUtils.BookApi.ADMIN;
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
 import static testUtils.LoggingMatcher.log;
 
 import io.qameta.allure.Description;
@@ -7,8 +10,6 @@ import io.qameta.allure.Epic;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Severity;
 import io.qameta.allure.SeverityLevel;
-import io.restassured.RestAssured;
-import io.restassured.http.ContentType;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
@@ -30,19 +31,7 @@ public class TS04_DeleteBook extends BaseTest {
   public void createBookBeforeDeleteBookTest() {
     Book book = new Book("Delete API Test Book Title", "Delete API Test Book Author");
     Book responseBook =
-        retryRequest(
-                () ->
-                    RestAssured.given()
-                        .auth()
-                        .oauth2(USER_AUTH_TOKEN)
-                        .contentType(ContentType.JSON)
-                        .body(book)
-                        .when()
-                        .post())
-            .then()
-            .statusCode(201)
-            .extract()
-            .as(Book.class);
+        retryRequest(() -> USER.create(book)).then().statusCode(201).extract().as(Book.class);
     Assertion.assertNotNull(responseBook.getId(), "Book ID should be generated by the server");
     Assertion.assertEquals(responseBook.getTitle(), book.getTitle(), "Book title should match");
     Assertion.assertEquals(responseBook.getAuthor(), book.getAuthor(), "Book author should match");
@@ -56,10 +45,7 @@ public class TS04_DeleteBook extends BaseTest {
       "Attempts to delete a book without authentication and expects a 401 Unauthorized error.")
   public void testShouldReturn401WhenNoAuthTokenProvidedOnDelete() {
 
-    RestAssured.given()
-        .pathParam("bookId", bookId)
-        .when()
-        .delete("/{bookId}")
+    ANONYMOUS.delete(bookId)
         .then()
         .statusCode(401)
         .body("error", log(logger, Matchers.equalTo("Unauthorized. No token provided.")));
@@ -70,12 +56,7 @@ public class TS04_DeleteBook extends BaseTest {
   @Description(
       "Attempts to delete a book with a user token (not admin) and expects a 403 Forbidden error.")
   public void testShouldReturn403WhenUserAuthTokenIsProvidedOnDelete() {
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_AUTH_TOKEN)
-        .pathParam("bookId", bookId)
-        .when()
-        .delete("/{bookId}")
+    USER.delete(bookId)
         .then()
         .statusCode(403)
         .body("error", log(logger, Matchers.equalTo("Forbidden. Admin access required.")));
@@ -86,14 +67,7 @@ public class TS04_DeleteBook extends BaseTest {
   @Description(
       "Deletes a book using a valid admin token and verifies successful deletion (204 No Content).")
   public void testShouldDeleteBookWhenBookIdIsValid() {
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_ADMIN_TOKEN)
-        .pathParam("bookId", bookId)
-        .when()
-        .delete("/{bookId}")
-        .then()
-        .statusCode(204);
+    ADMIN.delete(bookId).then().statusCode(204);
   }
 
   /** Should return 404 when the book is already deleted or does not exist. */
@@ -103,12 +77,7 @@ public class TS04_DeleteBook extends BaseTest {
   @Description(
       "Attempts to delete a book that is already deleted or does not exist and expects a 404 Not Found error.")
   public void testShouldReturn404WhenBookIsAlreadyDeletedOrNotExists() {
-    RestAssured.given()
-        .auth()
-        .oauth2(USER_ADMIN_TOKEN)
-        .pathParam("bookId", bookId)
-        .when()
-        .delete("/{bookId}")
+    ADMIN.delete(bookId)
         .then()
         .statusCode(404)
         .body("error", log(logger, Matchers.equalTo("Book not found")));
@@ -0,0 +1,208 @@
+package tests;
+
+import static testUtils.BookApi.ADMIN;
+import static testUtils.BookApi.USER;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Severity;
+import io.qameta.allure.SeverityLevel;
+import io.restassured.response.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+import pojos.Book;
+import testUtils.Assertion;
+import testUtils.ConsistencyChecker;
+import testUtils.ConsistencyChecker.Anomaly;
+import testUtils.OperationHistory;
+import testUtils.OperationHistory.Outcome;
+import testUtils.OperationHistory.Type;
+import utils.TestContext;
+
+/**
+ * Stress test that runs concurrent creates, reads, searches, updates and deletes against
+ * overlapping book IDs from many virtual threads, records every operation in an {@link
+ * OperationHistory} and checks the history with the {@link ConsistencyChecker}.
+ *
+ * <p>The workload is sized with {@code stress.books} (default 20 seeded books), {@code
+ * stress.operations} (default 2000) and {@code stress.threads} (default 32). Every create and
+ * update writes a title that is unique to this run, except that consecutive creates share a title
+ * so that concurrent duplicate creations are exercised.
+ */
+@Epic("Book Management")
+@Feature("Concurrent CRUD")
+@Severity(SeverityLevel.CRITICAL)
+public class TS05_ConcurrentCrudStress extends BaseTest {
+
+  private static final int BOOKS = Integer.getInteger("stress.books", 20);
+  private static final int OPERATIONS = Integer.getInteger("stress.operations", 2000);
+  private static final int THREADS = Integer.getInteger("stress.threads", 32);
+
+  private final String runToken = "Stress " + Long.toString(System.nanoTime(), 36);
+  private final AtomicInteger createCounter = new AtomicInteger();
+  private final AtomicInteger updateCounter = new AtomicInteger();
+  private final List<Integer> bookIds = new CopyOnWriteArrayList<>();
+  private OperationHistory history;
+
+  /** Creates the books the concurrent operations start from. */
+  @BeforeTest(alwaysRun = true)
+  @Description("Creates the books that the concurrent operations target.")
+  public void createBooksBeforeStressTest() {
+    history = new OperationHistory();
+    for (int i = 0; i < BOOKS; i++) {
+      Book book = new Book(runToken + " Seed " + i, runToken + " Author");
+      Outcome outcome =
+          history.record(
+              Type.CREATE, 0, book, () -> outcome(retryRequest(() -> USER.create(book)), 201));
+      Assertion.assertEquals(outcome.status(), 201, "Seed book should be created");
+      bookIds.add(outcome.observed().get(0).getId());
+    }
+  }
+
+  /**
+   * Should observe only states that some sequential execution of the concurrent operations could
+   * have produced.
+   *
+   * @throws Exception if a worker thread fails
+   */
+  @Test(groups = {"stress"})
+  @Description(
+      "Runs concurrent creates, reads, searches, updates and deletes on overlapping books and"
+          + " checks that no read saw a deleted book, a lost update or a duplicate ID.")
+  public void testConcurrentCrudKeepsBooksConsistent() throws Exception {
+    AtomicInteger remaining = new AtomicInteger(OPERATIONS);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        workers.add(
+            executor.submit(
+                TestContext.wrap(
+                    () -> {
+                      while (remaining.getAndDecrement() > 0) {
+                        runRandomOperation();
+                      }
+                    })));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    }
+    for (int bookId : bookIds) {
+      read(bookId);
+    }
+
+    List<OperationHistory.Operation> operations = history.operations();
+    List<Anomaly> anomalies = ConsistencyChecker.check(operations);
+    String report = report(operations, anomalies);
+    logger.info(report);
+    Allure.addAttachment("Consistency report", "text/plain", report);
+    Assertion.assertEquals(
+        ConsistencyChecker.countByType(anomalies),
+        Map.of(),
+        "Concurrent operations should not produce impossible observations");
+  }
+
+  private void runRandomOperation() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int bookId = bookIds.get(random.nextInt(bookIds.size()));
+    int choice = random.nextInt(100);
+    if (choice < 35) {
+      read(bookId);
+    } else if (choice < 50) {
+      search();
+    } else if (choice < 75) {
+      update(bookId);
+    } else if (choice < 85) {
+      delete(bookId);
+    } else {
+      create();
+    }
+  }
+
+  private void create() {
+    int index = createCounter.getAndIncrement() / 2;
+    Book book = new Book(runToken + " Created " + index, runToken + " Author");
+    Outcome outcome = history.record(Type.CREATE, 0, book, () -> outcome(USER.create(book), 201));
+    if (outcome.status() == 201) {
+      bookIds.add(outcome.observed().get(0).getId());
+    }
+  }
+
+  private void read(int bookId) {
+    history.record(Type.READ, bookId, null, () -> outcome(USER.get(bookId), 200));
+  }
+
+  private void search() {
+    history.record(
+        Type.SEARCH,
+        0,
+        null,
+        () -> {
+          Response response = USER.search(null, runToken + " Author");
+          return response.getStatusCode() == 200
+              ? new Outcome(200, Arrays.asList(response.as(Book[].class)))
+              : new Outcome(response.getStatusCode(), List.of());
+        });
+  }
+
+  private void update(int bookId) {
+    String title = runToken + " Updated " + updateCounter.getAndIncrement();
+    history.record(
+        Type.UPDATE,
+        bookId,
+        new Book(bookId, title, null),
+        () -> outcome(USER.update(bookId, Map.of("title", title)), 200));
+  }
+
+  private void delete(int bookId) {
+    history.record(Type.DELETE, bookId, null, () -> outcome(ADMIN.delete(bookId), 204));
+  }
+
+  private static Outcome outcome(Response response, int successStatus) {
+    int status = response.getStatusCode();
+    if (status == successStatus && successStatus != 204) {
+      return new Outcome(status, List.of(response.as(Book.class)));
+    }
+    return new Outcome(status, List.of());
+  }
+
+  private static String report(
+      List<OperationHistory.Operation> operations, List<Anomaly> anomalies) {
+    Map<String, Long> counts =
+        operations.stream()
+            .collect(
+                Collectors.groupingBy(
+                    operation -> operation.type() + " " + operation.status(),
+                    TreeMap::new,
+                    Collectors.counting()));
+    StringBuilder report =
+        new StringBuilder(
+            String.format(
+                "%d operations on %d threads, %d anomalies%nOperations by type and status: %s%n",
+                operations.size(), THREADS, anomalies.size(), counts));
+    for (Anomaly anomaly : anomalies) {
+      report
+          .append(anomaly.type())
+          .append(" book ")
+          .append(anomaly.bookId())
+          .append(": ")
+          .append(anomaly.description())
+          .append(System.lineSeparator());
+    }
+    return report.toString();
+  }
+}
@@ -0,0 +1,232 @@
+package tests;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static testUtils.BookApi.ADMIN;
+import static testUtils.BookApi.ANONYMOUS;
+import static testUtils.BookApi.USER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Description;
+import io.qameta.allure.Epic;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Severity;
+import io.qameta.allure.SeverityLevel;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+import pojos.Book;
+import testUtils.Assertion;
+import testUtils.BookFuzzer;
+import testUtils.BookFuzzer.FuzzCase;
+import testUtils.BookFuzzer.Operation;
+import testUtils.BookFuzzer.RawBody;
+import testUtils.BookFuzzer.Violation;
+
+/**
+ * Property-based fuzzing of Book payloads and path IDs with the {@link BookFuzzer}.
+ *
+ * <p>Every fuzzed create, get, update and delete must keep these invariants:
+ *
+ * <ul>
+ *   <li>the API answers, and never with a 5xx status
+ *   <li>a 4xx response has a JSON body with a non-blank {@code error} message, except the 413, 414
+ *       and 431 limits that the HTTP server enforces before the API sees the request
+ *   <li>a create only succeeds for an object with non-blank string {@code title} and {@code
+ *       author} and no {@code id} other than null or 0, and returns them with a numeric ID
+ *   <li>a successful get or update returns a book with a numeric ID and string fields, or the list
+ *       of books for a get with an empty ID
+ * </ul>
+ *
+ * <p>The run is sized with {@code fuzz.cases} (default 2000) and {@code fuzz.threads} (default
+ * 16); {@code fuzz.seed} repeats the cases of an earlier run, whose seed is in the report.
+ */
+@Epic("Book Management")
+@Feature("Fuzzing")
+@Severity(SeverityLevel.NORMAL)
+public class TS06_BookFuzzing extends BaseTest {
+
+  private static final int CASES = Integer.getInteger("fuzz.cases", 2000);
+  private static final int THREADS = Integer.getInteger("fuzz.threads", 16);
+  private static final long SEED = Long.getLong("fuzz.seed", System.nanoTime());
+  private static final int BOOKS = 5;
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final List<Integer> bookIds = new ArrayList<>();
+
+  /** Creates the books that some fuzzed gets and updates target. */
+  @BeforeTest(alwaysRun = true)
+  @Description("Creates the books that fuzzed gets and updates target.")
+  public void createBooksBeforeFuzzing() {
+    String runToken = "Fuzz " + Long.toString(System.nanoTime(), 36);
+    for (int i = 0; i < BOOKS; i++) {
+      Book book = new Book(runToken + " Seed " + i, runToken + " Author");
+      Response response = retryRequest(() -> USER.create(book));
+      Assertion.assertEquals(response.getStatusCode(), 201, "Seed book should be created");
+      bookIds.add(response.as(Book.class).getId());
+    }
+  }
+
+  /**
+   * Should keep the API invariants for every fuzzed request.
+   *
+   * @throws InterruptedException if interrupted while the cases run
+   */
+  @Test(groups = {"fuzz"})
+  @Description(
+      "Sends thousands of fuzzed Book payloads and path IDs in parallel, checks that the API never"
+          + " fails with a 5xx or an inconsistent error body, and shrinks failing inputs.")
+  public void testFuzzedRequestsKeepApiInvariants() throws InterruptedException {
+    BookFuzzer.Result result = new BookFuzzer(SEED, bookIds).run(CASES, THREADS, this::check);
+    String report = result.report();
+    logger.info(report);
+    Allure.addAttachment("Fuzzing report", "text/plain", report);
+    Assertion.assertEquals(
+        result.failuresByKind(), Map.of(), "Fuzzed requests should keep the API invariants");
+  }
+
+  /**
+   * Sends a case and checks the invariants on its response.
+   *
+   * @param fuzzCase the case
+   * @return the violated invariant, or null if all hold
+   */
+  private Violation check(FuzzCase fuzzCase) {
+    Response response;
+    try {
+      response = retryRequest(() -> send(fuzzCase));
+    } catch (RuntimeException e) {
+      return new Violation("no response", e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+    int status = response.getStatusCode();
+    String body = response.asString();
+    if (status >= 500) {
+      return new Violation("server error", status + " " + abbreviate(body));
+    }
+    if (status == 429) {
+      return null;
+    }
+    if (status >= 400) {
+      return status == 413 || status == 414 || status == 431 ? null : checkError(status, body);
+    }
+    return switch (fuzzCase.operation()) {
+      case CREATE -> checkCreated(fuzzCase, status, body);
+      case GET, UPDATE -> status == 200 ? checkBook(fuzzCase, body) : null;
+      case DELETE -> null;
+    };
+  }
+
+  /**
+   * Sends a case. The ID is percent-encoded here rather than passed as a path parameter, because
+   * RestAssured treats braces in path parameter values as templates and hangs on an unmatched
+   * {@code {}.
+   *
+   * @param fuzzCase the case
+   * @return the response
+   */
+  private Response send(FuzzCase fuzzCase) {
+    String body = fuzzCase.bodyText();
+    String path = fuzzCase.id() == null ? "" : "/" + encode(fuzzCase.id());
+    return switch (fuzzCase.operation()) {
+      case CREATE -> body == null ? USER.givenJson().when().post() : USER.create(body);
+      case GET -> ANONYMOUS.given().urlEncodingEnabled(false).when().get(path);
+      case UPDATE -> {
+        RequestSpecification request = USER.givenJson().urlEncodingEnabled(false);
+        yield body == null ? request.when().put(path) : request.body(body).when().put(path);
+      }
+      case DELETE -> ADMIN.given().urlEncodingEnabled(false).when().delete(path);
+    };
+  }
+
+  private static String encode(Object id) {
+    return URLEncoder.encode(String.valueOf(id), UTF_8).replace("+", "%20");
+  }
+
+  private static Violation checkError(int status, String body) {
+    JsonNode error = parse(body);
+    if (error == null || !isNonBlankText(error.get("error"))) {
+      return new Violation("inconsistent error body", status + " " + abbreviate(body));
+    }
+    return null;
+  }
+
+  private Violation checkCreated(FuzzCase fuzzCase, int status, String body) {
+    JsonNode created = parse(body);
+    if (created != null && created.path("id").canConvertToInt()) {
+      // Keep the books of the API to the seeded ones
+      ADMIN.delete(created.path("id").asInt());
+    }
+    // Compare with the body as sent, where unpaired surrogates are encoded as ?
+    JsonNode sent =
+        fuzzCase.body() instanceof RawBody
+            ? null
+            : parse(new String(fuzzCase.bodyText().getBytes(UTF_8), UTF_8));
+    boolean valid =
+        sent != null
+            && sent.isObject()
+            && hasNoId(sent)
+            && isNonBlankText(sent.get("title"))
+            && isNonBlankText(sent.get("author"));
+    if (!valid) {
+      return new Violation("invalid book accepted", status + " " + abbreviate(body));
+    }
+    if (created == null
+        || !created.path("id").canConvertToInt()
+        || !created.path("title").equals(sent.get("title"))
+        || !created.path("author").equals(sent.get("author"))) {
+      return new Violation("unexpected created book", status + " " + abbreviate(body));
+    }
+    return null;
+  }
+
+  private static Violation checkBook(FuzzCase fuzzCase, String body) {
+    JsonNode book = parse(body);
+    if (book != null && book.isArray() && fuzzCase.operation() == Operation.GET) {
+      // An empty ID lists the books
+      return String.valueOf(fuzzCase.id()).isEmpty()
+          ? null
+          : new Violation("unexpected book", "list for ID " + abbreviate(body));
+    }
+    if (book == null
+        || !book.path("id").canConvertToInt()
+        || !book.path("title").isTextual()
+        || !book.path("author").isTextual()) {
+      return new Violation("unexpected book", abbreviate(body));
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether a sent book has no ID. Book sends an ID of 0 for a new book, so 0 is no ID.
+   *
+   * @param book the sent book
+   * @return true if its ID is missing, null or 0
+   */
+  private static boolean hasNoId(JsonNode book) {
+    JsonNode id = book.get("id");
+    return id == null || id.isNull() || id.isIntegralNumber() && id.asLong() == 0;
+  }
+
+  private static boolean isNonBlankText(JsonNode node) {
+    return node != null && node.isTextual() && !node.asText().isBlank();
+  }
+
+  private static JsonNode parse(String body) {
+    try {
+      return body == null || body.isEmpty() ? null : objectMapper.readTree(body);
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  private static String abbreviate(String text) {
+    return text.length() <= 200 ? text : text.substring(0, 200) + "...";
+  }
+}